@@ -54,8 +54,8 @@ public class DataInitializer implements CommandLineRunner {
 
     private void initEquityDataFromApiOrFallback() {
         try {
-            equityDataInitializationService.initializeEquityData();
-            log.info("[Seed] Equity data initialized via external API.");
+            equityDataInitializationService.syncEquityData();
+            log.info("[Seed] Equity data synchronized via external API.");
         } catch (Exception e) {
             log.warn("[Seed] API equity init failed, using fallback set (10 BIST). Reason: {}", e.getMessage());
             initFallbackEquities();
@@ -1,8 +1,14 @@
 package com.fintra.stocktrading.config.kafka;
 
 import com.fintra.stocktrading.event.TradeMatchedEvent;
+import com.fintra.stocktrading.event.codec.BinaryTradeMatchedEventCodec;
+import com.fintra.stocktrading.event.codec.JsonTradeMatchedEventCodec;
+import com.fintra.stocktrading.event.codec.TradeMatchedEventCodec;
+import com.fintra.stocktrading.event.codec.TradeMatchedEventDeserializer;
+import com.fintra.stocktrading.event.codec.TradeMatchedEventSerializer;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -14,60 +20,119 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @EnableKafka
 @Configuration
 public class KafkaConfig {
 
+    /**
+     * Codec the producer writes with: {@code binary} (default) or {@code json}. Consumers read
+     * both regardless of this setting.
+     */
     @Bean
-    public ProducerFactory<String, TradeMatchedEvent> tradeMatchedEventProducerFactory() {
+    public TradeMatchedEventCodec tradeMatchedEventCodec(
+            @Value("${app.kafka.trade-event-codec:binary}") String codec) {
+        return switch (codec) {
+            case BinaryTradeMatchedEventCodec.NAME -> new BinaryTradeMatchedEventCodec();
+            case JsonTradeMatchedEventCodec.NAME -> new JsonTradeMatchedEventCodec();
+            default -> throw new IllegalArgumentException("Unknown app.kafka.trade-event-codec: " + codec);
+        };
+    }
+
+    /**
+     * {@code delivery.timeout.ms} is set explicitly because the outbox relay waits that long
+     * for a send to settle before treating it as failed.
+     */
+    @Bean
+    public ProducerFactory<String, TradeMatchedEvent> tradeMatchedEventProducerFactory(
+            TradeMatchedEventCodec tradeMatchedEventCodec,
+            @Value("${app.kafka.outbox.delivery-timeout-ms:120000}") int deliveryTimeoutMs) {
+        return new DefaultKafkaProducerFactory<>(producerConfig(deliveryTimeoutMs), new StringSerializer(),
+                new TradeMatchedEventSerializer(tradeMatchedEventCodec));
+    }
+
+    /**
+     * Publishes records that could not be decoded to the dead-letter topic with their original
+     * bytes, which the trade event serializer cannot write.
+     */
+    @Bean
+    public KafkaTemplate<String, byte[]> deadLetterKafkaTemplate(
+            @Value("${app.kafka.outbox.delivery-timeout-ms:120000}") int deliveryTimeoutMs) {
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerConfig(deliveryTimeoutMs),
+                new StringSerializer(), new ByteArraySerializer()));
+    }
+
+    private static Map<String, Object> producerConfig(int deliveryTimeoutMs) {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:29092");
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
         config.put(ProducerConfig.ACKS_CONFIG, "all");
         config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
         config.put(ProducerConfig.RETRIES_CONFIG, 5);
         config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
-        return new DefaultKafkaProducerFactory<>(config);
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+        return config;
     }
 
     @Bean
-    public KafkaTemplate<String, TradeMatchedEvent> tradeMatchedEventKafkaTemplate() {
-        return new KafkaTemplate<>(tradeMatchedEventProducerFactory());
+    public KafkaTemplate<String, TradeMatchedEvent> tradeMatchedEventKafkaTemplate(
+            ProducerFactory<String, TradeMatchedEvent> tradeMatchedEventProducerFactory) {
+        return new KafkaTemplate<>(tradeMatchedEventProducerFactory);
     }
 
+    /**
+     * The codec deserializer is wrapped in an {@link ErrorHandlingDeserializer}: a record it
+     * cannot decode reaches the listener with a null value and the failure in a header instead
+     * of failing every poll of its partition, so the listener can hand it to the dead-letter
+     * recoverer.
+     */
     @Bean
-    public ConsumerFactory<String, TradeMatchedEvent> tradeMatchedEventConsumerFactory() {
-        JsonDeserializer<TradeMatchedEvent> deserializer = new JsonDeserializer<>(TradeMatchedEvent.class);
-        deserializer.addTrustedPackages("*");
-        deserializer.setUseTypeHeaders(false);
+    public ConsumerFactory<String, TradeMatchedEvent> tradeMatchedEventConsumerFactory(
+            @Value("${app.kafka.max-poll-records:500}") int maxPollRecords) {
+        TradeMatchedEventDeserializer deserializer = new TradeMatchedEventDeserializer(
+                List.of(new BinaryTradeMatchedEventCodec(), new JsonTradeMatchedEventCodec()));
 
         Map<String, Object> config = new HashMap<>();
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:29092");
         config.put(ConsumerConfig.GROUP_ID_CONFIG, "stock-trading-group");
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, deserializer);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
 
-        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(), deserializer);
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(deserializer));
     }
 
+    /**
+     * Events are keyed by equity, so one consumer per partition keeps per-symbol order while
+     * different symbols are consumed in parallel. Concurrency beyond the partition count idles.
+     * The listener is a batch listener that de-duplicates rematches across a whole poll.
+     * Undecodable records go to the dead-letter topic as raw bytes, decoded ones as events.
+     */
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, TradeMatchedEvent> tradeMatchedEventKafkaListenerContainerFactory(
-            KafkaTemplate<String, TradeMatchedEvent> kafkaTemplate) {
+            KafkaTemplate<String, TradeMatchedEvent> kafkaTemplate,
+            KafkaTemplate<String, byte[]> deadLetterKafkaTemplate,
+            ConsumerFactory<String, TradeMatchedEvent> tradeMatchedEventConsumerFactory,
+            @Value("${app.kafka.listener-concurrency:6}") int concurrency) {
 
         ConcurrentKafkaListenerContainerFactory<String, TradeMatchedEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(tradeMatchedEventConsumerFactory());
+        factory.setConsumerFactory(tradeMatchedEventConsumerFactory);
+        factory.setConcurrency(concurrency);
+        factory.setBatchListener(true);
 
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, deadLetterKafkaTemplate);
+        templates.put(TradeMatchedEvent.class, kafkaTemplate);
         DefaultErrorHandler errorHandler = new DefaultErrorHandler(
-                new DeadLetterPublishingRecoverer(kafkaTemplate),
+                new DeadLetterPublishingRecoverer(templates),
                 new FixedBackOff(1000L, 3)
         );
         factory.setCommonErrorHandler(errorHandler);
@@ -76,8 +141,10 @@ public class KafkaConfig {
     }
 
     @Bean
-    NewTopic tradeMatchedTopic(@Value("${app.kafka.trade-matched-topic:trade-matched-events}") String t) {
-        return org.springframework.kafka.config.TopicBuilder.name(t).partitions(1).replicas(1).build();
+    NewTopic tradeMatchedTopic(@Value("${app.kafka.trade-matched-topic:trade-matched-events}") String t,
+                               @Value("${app.kafka.trade-matched-partitions:6}") int partitions,
+                               @Value("${app.kafka.trade-matched-replicas:1}") int replicas) {
+        return org.springframework.kafka.config.TopicBuilder.name(t).partitions(partitions).replicas(replicas).build();
     }
 
 }
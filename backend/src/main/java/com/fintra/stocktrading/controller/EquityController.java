@@ -3,20 +3,25 @@ package com.fintra.stocktrading.controller;
 import com.fintra.stocktrading.controller.doc.EquityControllerDoc;
 import com.fintra.stocktrading.model.dto.response.EquityInfoResponse;
 import com.fintra.stocktrading.model.dto.response.EquityPriceResponse;
+import com.fintra.stocktrading.model.dto.response.MarketSnapshotResponse;
 import com.fintra.stocktrading.service.EquityService;
+import com.fintra.stocktrading.service.MarketSnapshotService;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/equities")
@@ -25,7 +30,11 @@ import java.util.List;
 @Validated
 public class EquityController implements EquityControllerDoc {
 
+    // The snapshot version counts from zero in every process, so the ETag also names the process start.
+    private static final long BOOT_EPOCH = System.currentTimeMillis();
+
     private final EquityService equityService;
+    private final MarketSnapshotService marketSnapshotService;
 
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_TRADER','ROLE_ANALYST')")
     @GetMapping
@@ -44,6 +53,24 @@ public class EquityController implements EquityControllerDoc {
         return ResponseEntity.ok(equities);
     }
 
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_TRADER','ROLE_ANALYST')")
+    @GetMapping("/snapshot")
+    public ResponseEntity<MarketSnapshotResponse> getMarketSnapshot(
+            @RequestParam(required = false) Set<String> fields,
+            WebRequest webRequest) {
+
+        MarketSnapshotResponse snapshot = marketSnapshotService.getSnapshot(fields);
+        String etag = "\"" + BOOT_EPOCH + "-" + snapshot.getVersion() + "\"";
+
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        log.debug("Serving market snapshot version {} with {} equities", snapshot.getVersion(), snapshot.getEquities().size());
+
+        return ResponseEntity.ok().eTag(etag).body(snapshot);
+    }
+
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN','ROLE_TRADER','ROLE_ANALYST')")
     @GetMapping("/{assetCode}/prices")
     public ResponseEntity<List<EquityPriceResponse>> getPriceHistory(
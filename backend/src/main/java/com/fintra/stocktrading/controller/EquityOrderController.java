@@ -3,13 +3,22 @@ package com.fintra.stocktrading.controller;
 import com.fintra.stocktrading.controller.doc.EquityOrderControllerDoc;
 import com.fintra.stocktrading.model.dto.request.EquityOrderRequest;
 import com.fintra.stocktrading.model.dto.request.EquityOrderUpdateRequest;
+import com.fintra.stocktrading.exception.NotFoundException;
 import com.fintra.stocktrading.model.dto.response.EquityOrderResponse;
+import com.fintra.stocktrading.model.dto.response.OrderAckResponse;
+import com.fintra.stocktrading.repository.AccountRepository;
 import com.fintra.stocktrading.service.EquityOrderService;
+import com.fintra.stocktrading.service.orderentry.ExecutionReportGateway;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/v1/equity-order")
@@ -18,6 +27,8 @@ import org.springframework.web.bind.annotation.*;
 public class EquityOrderController implements EquityOrderControllerDoc {
 
     private final EquityOrderService equityOrderService;
+    private final ExecutionReportGateway executionReportGateway;
+    private final AccountRepository accountRepository;
 
     @PostMapping
     @Override
@@ -31,6 +42,29 @@ public class EquityOrderController implements EquityOrderControllerDoc {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/async")
+    @Override
+    public ResponseEntity<OrderAckResponse> submitOrder(
+            @Valid @RequestBody EquityOrderRequest requestDto
+    ) {
+        log.info("Submit order requested: accountId={}, equityId={}, side={}, qty={}, type={}, price={}",
+                requestDto.getAccountId(), requestDto.getEquityId(), requestDto.getOrderSide(),
+                requestDto.getOrderQuantity(), requestDto.getOrderType(), requestDto.getPrice());
+        OrderAckResponse response = equityOrderService.submitOrder(requestDto);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping(value = "/executions/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'TRADER')")
+    @Override
+    public Flux<ServerSentEvent<Object>> streamExecutionReports(@RequestParam Integer accountId) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new NotFoundException("Account not found with ID: " + accountId);
+        }
+        log.info("Execution report stream opened for account ID: {}", accountId);
+        return executionReportGateway.stream(accountId);
+    }
+
     @DeleteMapping("/{orderId}")
     @Override
     public ResponseEntity<EquityOrderResponse> deleteOrder(@PathVariable Integer orderId) {
@@ -0,0 +1,34 @@
+package com.fintra.stocktrading.controller;
+
+import com.fintra.stocktrading.controller.doc.MarketDataControllerDoc;
+import com.fintra.stocktrading.exception.NotFoundException;
+import com.fintra.stocktrading.repository.EquityRepository;
+import com.fintra.stocktrading.service.marketdata.MarketDataGateway;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/v1/market-data")
+@RequiredArgsConstructor
+@Slf4j
+public class MarketDataController implements MarketDataControllerDoc {
+
+    private final MarketDataGateway marketDataGateway;
+    private final EquityRepository equityRepository;
+
+    @GetMapping(value = "/{equityId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('ROLE_TRADER')")
+    @Override
+    public Flux<ServerSentEvent<Object>> streamMarketData(@PathVariable Integer equityId) {
+        if (!equityRepository.existsById(equityId)) {
+            throw new NotFoundException("Equity not found with ID: " + equityId);
+        }
+        log.info("Market data stream opened for equity ID: {}", equityId);
+        return marketDataGateway.stream(equityId);
+    }
+}
@@ -2,33 +2,67 @@ package com.fintra.stocktrading.controller;
 
 import com.fintra.stocktrading.controller.doc.OrderBookControllerDoc;
 import com.fintra.stocktrading.model.dto.response.OrderBookResponse;
+import com.fintra.stocktrading.model.dto.response.TopOfBookResponse;
 import com.fintra.stocktrading.service.OrderBookService;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/v1/orderbook")
 @RequiredArgsConstructor
 @Slf4j
+@Validated
 public class OrderBookController implements OrderBookControllerDoc {
 
+    // Book versions restart from zero with the process; the start time keeps old ETags from matching.
+    private static final long BOOT_EPOCH = System.currentTimeMillis();
+
     private final OrderBookService orderBookService;
 
     @GetMapping("/{equityId}")
     @PreAuthorize("hasAuthority('ROLE_TRADER')")
     @Override
-    public ResponseEntity<OrderBookResponse> getOrderBook(@PathVariable Integer equityId) {
-        log.info("Request to get orderbook for equity ID: {}", equityId);
-        
-        OrderBookResponse response = orderBookService.getOrderBookByEquityId(equityId);
-        
-        log.info("Successfully retrieved orderbook for equity ID: {} with {} bids and {} asks", 
+    public ResponseEntity<OrderBookResponse> getOrderBook(@PathVariable Integer equityId,
+                                                          @RequestParam(required = false) @Min(1) Integer levels,
+                                                          WebRequest webRequest) {
+        log.debug("Request to get orderbook for equity ID: {} (levels: {})", equityId, levels);
+
+        OrderBookResponse response = levels == null
+                ? orderBookService.getOrderBookByEquityId(equityId)
+                : orderBookService.getOrderBookByEquityId(equityId, levels);
+        String etag = etag(response.getVersion());
+
+        if (webRequest.checkNotModified(etag)) {
+            log.debug("Orderbook for equity ID: {} not modified since version {}", equityId, response.getVersion());
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        log.debug("Successfully retrieved orderbook for equity ID: {} with {} bid and {} ask levels",
                 equityId, response.getBids().size(), response.getAsks().size());
-        
-        return ResponseEntity.ok(response);
+
+        return ResponseEntity.ok().eTag(etag).body(response);
+    }
+
+    @GetMapping("/{equityId}/bbo")
+    @PreAuthorize("hasAuthority('ROLE_TRADER')")
+    @Override
+    public ResponseEntity<TopOfBookResponse> getTopOfBook(@PathVariable Integer equityId, WebRequest webRequest) {
+        log.debug("Request to get top of book for equity ID: {}", equityId);
+
+        TopOfBookResponse response = orderBookService.getTopOfBook(equityId);
+        String etag = etag(response.getVersion());
+
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(response);
     }
 
     @GetMapping("/{equityId}/exclude/{orderId}")
@@ -47,4 +81,8 @@ public class OrderBookController implements OrderBookControllerDoc {
         
         return ResponseEntity.ok(response);
     }
+
+    private static String etag(long version) {
+        return "\"" + BOOT_EPOCH + "-" + version + "\"";
+    }
 }
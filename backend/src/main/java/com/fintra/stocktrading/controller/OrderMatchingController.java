@@ -1,9 +1,6 @@
 package com.fintra.stocktrading.controller;
 
-import com.fintra.stocktrading.exception.NotFoundException;
-import com.fintra.stocktrading.model.entity.EquityOrder;
-import com.fintra.stocktrading.repository.EquityOrderRepository;
-import com.fintra.stocktrading.service.OrderMatchingService;
+import com.fintra.stocktrading.service.matching.MatchingLaneScheduler;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -19,8 +16,7 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Order Matching", description = "APIs for manually triggering order matching")
 public class OrderMatchingController {
 
-    private final OrderMatchingService orderMatchingService;
-    private final EquityOrderRepository equityOrderRepository;
+    private final MatchingLaneScheduler matchingLaneScheduler;
 
     @PostMapping("/run")
     @Operation(
@@ -28,7 +24,7 @@ public class OrderMatchingController {
             description = "Manually triggers matching for all open orders in the system."
     )
     public ResponseEntity<String> runFullMatching() {
-        orderMatchingService.matchAllOpenOrders();
+        matchingLaneScheduler.await(matchingLaneScheduler.submitFullSweep());
         return ResponseEntity.ok("Full order matching completed.");
     }
 
@@ -38,10 +34,7 @@ public class OrderMatchingController {
             description = "Manually triggers matching for the given order."
     )
     public ResponseEntity<String> matchSpecificOrder(@PathVariable Integer orderId) {
-        EquityOrder order = equityOrderRepository.findById(orderId)
-                .orElseThrow(() -> new NotFoundException("Order not found with ID: " + orderId));
-
-        orderMatchingService.matchOrder(order);
+        matchingLaneScheduler.await(matchingLaneScheduler.submitMatch(orderId));
         return ResponseEntity.ok("Matching completed for order " + orderId);
     }
 }
@@ -0,0 +1,41 @@
+package com.fintra.stocktrading.controller;
+
+import com.fintra.stocktrading.controller.doc.PriceBackfillControllerDoc;
+import com.fintra.stocktrading.model.dto.response.PriceBackfillResponse;
+import com.fintra.stocktrading.service.PriceBackfillService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/v1/price-backfill")
+@RequiredArgsConstructor
+@Slf4j
+public class PriceBackfillController implements PriceBackfillControllerDoc {
+
+    private final PriceBackfillService priceBackfillService;
+
+    @Override
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping
+    public ResponseEntity<PriceBackfillResponse> startBackfill(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Price history backfill requested from {} to {}", from, to);
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(priceBackfillService.startBackfill(from, to));
+    }
+
+    @Override
+    @PreAuthorize("hasAnyRole('ADMIN', 'ANALYST')")
+    @GetMapping
+    public ResponseEntity<PriceBackfillResponse> getProgress() {
+        return ResponseEntity.ok(priceBackfillService.getProgress());
+    }
+}
@@ -0,0 +1,39 @@
+package com.fintra.stocktrading.controller;
+
+import com.fintra.stocktrading.controller.doc.SettlementControllerDoc;
+import com.fintra.stocktrading.model.dto.response.SettlementPreviewResponse;
+import com.fintra.stocktrading.service.BusinessDayService;
+import com.fintra.stocktrading.service.SystemDateService;
+import com.fintra.stocktrading.service.TradeSettlementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/v1/settlement")
+@RequiredArgsConstructor
+@Slf4j
+public class SettlementController implements SettlementControllerDoc {
+
+    private final TradeSettlementService tradeSettlementService;
+    private final SystemDateService systemDateService;
+    private final BusinessDayService businessDayService;
+
+    @Override
+    @PreAuthorize("hasAnyRole('ADMIN', 'ANALYST')")
+    @GetMapping("/preview")
+    public ResponseEntity<SettlementPreviewResponse> previewSettlement(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate tradeDate) {
+        LocalDate date = tradeDate != null
+                ? tradeDate
+                : businessDayService.getBusinessDayBefore(systemDateService.getTDate(), 2);
+        log.info("Settlement preview requested for trade date {}", date);
+
+        return ResponseEntity.ok(tradeSettlementService.previewSettlement(date));
+    }
+}
@@ -3,6 +3,7 @@ package com.fintra.stocktrading.controller.doc;
 import com.fintra.stocktrading.model.ApiError;
 import com.fintra.stocktrading.model.dto.response.EquityInfoResponse;
 import com.fintra.stocktrading.model.dto.response.EquityPriceResponse;
+import com.fintra.stocktrading.model.dto.response.MarketSnapshotResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -19,9 +20,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @Tag(name = "Equities", description = "APIs for retrieving equity information and price history from database")
 @SecurityRequirement(name = "bearerAuth")
@@ -143,6 +146,55 @@ public interface EquityControllerDoc {
             @RequestParam(required = false) String filter
     );
 
+    @Operation(
+            summary = "Get market snapshot of all equities",
+            description = "Returns the latest price record, last trade price and session volume of every equity " +
+                         "in one response, served from memory. The optional fields parameter limits each item to " +
+                         "the listed fields (equityId is always included). The response carries the server start time " +
+                         "and snapshot version as ETag; a request whose If-None-Match matches gets 304 Not Modified. " +
+                         "Accessible by ADMIN, TRADER and ANALYST roles.",
+            tags = {"Equities"}
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Market snapshot retrieved successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = MarketSnapshotResponse.class),
+                            examples = @ExampleObject(
+                                    name = "Projected Snapshot",
+                                    value = """
+                                            {
+                                              "version": 5120,
+                                              "equities": [
+                                                {
+                                                  "equityId": 1,
+                                                  "assetCode": "GARAN.E",
+                                                  "lastPrice": 86.40,
+                                                  "dayVolume": 12500
+                                                }
+                                              ]
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown field name",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class))
+            ),
+            @ApiResponse(responseCode = "304", description = "Snapshot unchanged since the version given in If-None-Match")
+    })
+    ResponseEntity<MarketSnapshotResponse> getMarketSnapshot(
+            @Parameter(description = "Optional comma-separated item fields to include", example = "assetCode,lastPrice,dayVolume")
+            @RequestParam(required = false) Set<String> fields,
+
+            @Parameter(hidden = true)
+            WebRequest webRequest
+    );
+
     @Operation(
             summary = "Get price history for equity from database",
             description = "Returns price history for the specified asset code from database. " +
@@ -4,7 +4,9 @@ import com.fintra.stocktrading.model.ApiError;
 import com.fintra.stocktrading.model.dto.request.EquityOrderRequest;
 import com.fintra.stocktrading.model.dto.request.EquityOrderUpdateRequest;
 import com.fintra.stocktrading.model.dto.response.EquityOrderResponse;
+import com.fintra.stocktrading.model.dto.response.OrderAckResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -15,6 +17,8 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
 
 @Tag(name = "Equity Orders", description = "APIs for placing, cancelling, and querying equity orders")
 @SecurityRequirement(name = "bearerAuth")
@@ -98,6 +102,91 @@ public interface EquityOrderControllerDoc {
             EquityOrderRequest requestDto
     );
 
+    @Operation(
+            summary = "Submit an equity order for asynchronous matching",
+            description = "Validates the order, reserves cash or shares and saves it like the synchronous endpoint, " +
+                    "then returns an acknowledgement with an entry sequence number without waiting for matching. " +
+                    "The order is matched on its equity's matching lane; fills are reported on the account's " +
+                    "execution report stream. Response time does not depend on how many resting orders it fills."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Order accepted for matching",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = OrderAckResponse.class),
+                            examples = @ExampleObject(
+                                    name = "OrderAccepted",
+                                    summary = "Order accepted",
+                                    value = """
+                        {
+                          "orderId": 101,
+                          "sequence": 1723371330000001,
+                          "accountId": 45,
+                          "equityId": 12,
+                          "orderSide": "BUY",
+                          "orderQuantity": 100,
+                          "price": 102.50,
+                          "orderType": "LIMIT",
+                          "status": "PENDING",
+                          "acceptedAt": "2025-08-05T11:20:00"
+                        }
+                        """
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Validation failed or insufficient balance / shares",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiError.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Account or equity not found",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiError.class)
+                    )
+            )
+    })
+    ResponseEntity<OrderAckResponse> submitOrder(
+            @Valid @RequestBody(description = "Create order request",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = EquityOrderRequest.class)))
+            EquityOrderRequest requestDto
+    );
+
+    @Operation(
+            summary = "Stream execution reports for an account (SSE)",
+            description = "Opens a Server-Sent Events stream of 'ack' events for orders accepted by the asynchronous " +
+                    "endpoint and 'fill' events for every execution of the account's orders, sent once the trades " +
+                    "are committed. Accessible by ADMIN and TRADER roles."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Event stream opened",
+            content = @Content(
+                    mediaType = "text/event-stream",
+                    examples = @ExampleObject(
+                            name = "ExecutionReportStream",
+                            value = """
+                                    event:ack
+                                    data:{"orderId":101,"sequence":1723371330000001,"accountId":45,"equityId":12,"orderSide":"BUY","orderQuantity":100,"price":102.50,"orderType":"LIMIT","status":"PENDING","acceptedAt":"2025-08-05T11:20:00"}
+
+                                    event:fill
+                                    data:{"orderId":101,"accountId":45,"equityId":12,"orderSide":"BUY","matchId":52001,"quantity":60,"price":102.25,"timestamp":"2025-08-05T11:20:00"}
+                                    """
+                    )
+            )
+    )
+    @ApiResponse(responseCode = "403", description = "Access denied - ADMIN or TRADER role required")
+    @ApiResponse(responseCode = "404", description = "Account not found")
+    Flux<ServerSentEvent<Object>> streamExecutionReports(
+            @Parameter(description = "Account ID to stream execution reports for", example = "45")
+            Integer accountId
+    );
+
     @Operation(
             summary = "Cancel (delete) an equity order",
             description = "Cancels a pending or updated equity order."
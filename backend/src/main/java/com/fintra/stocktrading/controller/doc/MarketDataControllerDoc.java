@@ -0,0 +1,53 @@
+package com.fintra.stocktrading.controller.doc;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+@Tag(name = "Market Data", description = "Streaming order book depth and trade prints for the trading interface")
+@SecurityRequirement(name = "bearerAuth")
+public interface MarketDataControllerDoc {
+
+    @Operation(
+            summary = "Stream depth and trades for an equity (SSE)",
+            description = "Opens a Server-Sent Events stream for one equity. The first event is a 'snapshot' with the " +
+                    "full price-level depth. It is followed by 'depth' events carrying only the changed levels " +
+                    "(amount 0 removes a level) and 'trade' events for each fill. Depth is published at most once per " +
+                    "publish interval. A client that falls behind receives a fresh 'snapshot' instead of the deltas it " +
+                    "missed. Event ids are book versions. Accessible by TRADER role."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Event stream opened",
+            content = @Content(
+                    mediaType = "text/event-stream",
+                    examples = @ExampleObject(
+                            name = "MarketDataStream",
+                            value = """
+                                    event:snapshot
+                                    id:48213
+                                    data:{"equityId":123,"version":48213,"bids":[{"price":105.50,"amount":300,"orderCount":2,"total":31650.00}],"asks":[{"price":106.00,"amount":150,"orderCount":1,"total":15900.00}]}
+
+                                    event:trade
+                                    data:{"equityId":123,"matchId":52001,"price":106.00,"quantity":150,"timestamp":"2025-08-11T10:15:30"}
+
+                                    event:depth
+                                    id:48219
+                                    data:{"equityId":123,"fromVersion":48213,"version":48219,"bids":[],"asks":[{"price":106.00,"amount":0,"orderCount":0,"total":0}]}
+                                    """
+                    )
+            )
+    )
+    @ApiResponse(responseCode = "403", description = "Access denied - TRADER role required")
+    @ApiResponse(responseCode = "404", description = "Equity not found")
+    Flux<ServerSentEvent<Object>> streamMarketData(
+            @Parameter(description = "Equity ID to stream market data for", example = "123")
+            Integer equityId
+    );
+}
@@ -1,6 +1,7 @@
 package com.fintra.stocktrading.controller.doc;
 
 import com.fintra.stocktrading.model.dto.response.OrderBookResponse;
+import com.fintra.stocktrading.model.dto.response.TopOfBookResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,6 +11,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 
 @Tag(name = "Order Book", description = "APIs for retrieving equity orderbook data for trading interface")
 @SecurityRequirement(name = "bearerAuth")
@@ -18,7 +20,10 @@ public interface OrderBookControllerDoc {
     @Operation(
             summary = "Get orderbook for equity",
             description = "Retrieves all pending, partially filled, and updated orders for a specific equity, " +
-                         "grouped as bids (buy orders sorted by price descending) and asks (sell orders sorted by price ascending). " +
+                         "aggregated per price level as bids (sorted by price descending) and asks (sorted by price ascending). " +
+                         "Served from memory; the response carries an ETag made of the server start time and the book " +
+                         "version, and a request whose If-None-Match matches it gets 304 Not Modified. " +
+                         "The optional levels parameter limits each side to the best N price levels. " +
                          "Used by trading interface to display current market depth. Accessible by TRADER role."
     )
     @ApiResponse(
@@ -33,31 +38,32 @@ public interface OrderBookControllerDoc {
                                     {
                                       "equityId": 123,
                                       "equityCode": "GARAN.E",
+                                      "version": 48213,
                                       "bids": [
                                         {
-                                          "orderId": 1001,
                                           "price": 105.50,
                                           "amount": 100,
+                                          "orderCount": 1,
                                           "total": 10550.00
                                         },
                                         {
-                                          "orderId": 1002,
                                           "price": 105.00,
                                           "amount": 200,
+                                          "orderCount": 1,
                                           "total": 21000.00
                                         }
                                       ],
                                       "asks": [
                                         {
-                                          "orderId": 1003,
                                           "price": 106.00,
                                           "amount": 150,
+                                          "orderCount": 1,
                                           "total": 15900.00
                                         },
                                         {
-                                          "orderId": 1004,
                                           "price": 106.50,
                                           "amount": 100,
+                                          "orderCount": 1,
                                           "total": 10650.00
                                         }
                                       ]
@@ -102,9 +108,61 @@ public interface OrderBookControllerDoc {
                     )
             )
     )
+    @ApiResponse(responseCode = "304", description = "Orderbook unchanged since the version given in If-None-Match")
     ResponseEntity<OrderBookResponse> getOrderBook(
             @Parameter(description = "Equity ID to get orderbook for", example = "123")
-            Integer equityId
+            Integer equityId,
+            @Parameter(description = "Maximum number of price levels per side (minimum 1); all levels when omitted", example = "10")
+            Integer levels,
+            @Parameter(hidden = true)
+            WebRequest webRequest
+    );
+
+    @Operation(
+            summary = "Get best bid and offer for equity",
+            description = "Retrieves the best bid and best ask price levels of a specific equity and the spread between them. " +
+                         "Served from memory in constant time; carries the server start time and book version as ETag and answers " +
+                         "304 Not Modified when If-None-Match matches. Accessible by TRADER role."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Top of book retrieved successfully",
+            content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TopOfBookResponse.class),
+                    examples = @ExampleObject(
+                            name = "TopOfBookExample",
+                            value = """
+                                    {
+                                      "equityId": 123,
+                                      "equityCode": "GARAN.E",
+                                      "version": 48213,
+                                      "bestBid": {
+                                        "price": 105.50,
+                                        "amount": 100,
+                                        "orderCount": 1,
+                                        "total": 10550.00
+                                      },
+                                      "bestAsk": {
+                                        "price": 106.00,
+                                        "amount": 150,
+                                        "orderCount": 1,
+                                        "total": 15900.00
+                                      },
+                                      "spread": 0.50
+                                    }
+                                    """
+                    )
+            )
+    )
+    @ApiResponse(responseCode = "403", description = "Access denied - TRADER role required")
+    @ApiResponse(responseCode = "404", description = "Equity not found")
+    @ApiResponse(responseCode = "304", description = "Book unchanged since the version given in If-None-Match")
+    ResponseEntity<TopOfBookResponse> getTopOfBook(
+            @Parameter(description = "Equity ID to get top of book for", example = "123")
+            Integer equityId,
+            @Parameter(hidden = true)
+            WebRequest webRequest
     );
 
     @Operation(
@@ -127,25 +185,26 @@ public interface OrderBookControllerDoc {
                                     {
                                       "equityId": 123,
                                       "equityCode": "GARAN.E",
+                                      "version": 48213,
                                       "bids": [
                                         {
-                                          "orderId": 1002,
                                           "price": 105.00,
                                           "amount": 200,
+                                          "orderCount": 1,
                                           "total": 21000.00
                                         }
                                       ],
                                       "asks": [
                                         {
-                                          "orderId": 1003,
                                           "price": 106.00,
                                           "amount": 150,
+                                          "orderCount": 1,
                                           "total": 15900.00
                                         },
                                         {
-                                          "orderId": 1004,
                                           "price": 106.50,
                                           "amount": 100,
+                                          "orderCount": 1,
                                           "total": 10650.00
                                         }
                                       ]
@@ -0,0 +1,112 @@
+package com.fintra.stocktrading.controller.doc;
+
+import com.fintra.stocktrading.model.dto.response.PriceBackfillResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+
+@Tag(name = "Price Backfill", description = "APIs for loading historical equity prices over long date ranges")
+public interface PriceBackfillControllerDoc {
+
+    @Operation(
+            summary = "Start a price history backfill",
+            description = "Splits the date range into windows and loads the ones not done yet in the background, " +
+                    "several at a time and rate limited. Windows are recorded, so a failed or interrupted run is " +
+                    "resumed by requesting the same range again; pending windows also resume after a restart."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Backfill started, or the range is already loaded",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = PriceBackfillResponse.class),
+                            examples = @ExampleObject(
+                                    name = "PriceBackfillStarted",
+                                    summary = "Backfill started",
+                                    description = "Two windows recorded, one loaded by an earlier run",
+                                    value = """
+                                    {
+                                      "running": true,
+                                      "totalWindows": 2,
+                                      "doneWindows": 1,
+                                      "failedWindows": 0,
+                                      "pendingWindows": 1,
+                                      "recordCount": 10412,
+                                      "windows": [
+                                        {
+                                          "windowStart": "2024-01-01",
+                                          "windowEnd": "2024-01-17",
+                                          "status": "DONE",
+                                          "recordCount": 10412,
+                                          "attempts": 1,
+                                          "updatedAt": "2025-08-09T10:15:30"
+                                        },
+                                        {
+                                          "windowStart": "2024-01-18",
+                                          "windowEnd": "2024-02-16",
+                                          "status": "PENDING",
+                                          "recordCount": 0,
+                                          "attempts": 0,
+                                          "updatedAt": "2025-08-09T10:14:02"
+                                        }
+                                      ]
+                                    }
+                                    """
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Start date after end date, or end date not before today",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Caller is not an admin",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "A backfill is already running",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    ResponseEntity<PriceBackfillResponse> startBackfill(
+            @Parameter(description = "First day to load (YYYY-MM-DD)", example = "2024-01-01", required = true)
+            LocalDate from,
+            @Parameter(description = "Last day to load (YYYY-MM-DD), at most yesterday", example = "2024-12-31",
+                    required = true)
+            LocalDate to
+    );
+
+    @Operation(
+            summary = "Get price history backfill progress",
+            description = "Returns every recorded window with its status, merged record count and last error, " +
+                    "and whether a run is in progress."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Progress retrieved successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = PriceBackfillResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Caller is not an admin or analyst",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    ResponseEntity<PriceBackfillResponse> getProgress();
+}
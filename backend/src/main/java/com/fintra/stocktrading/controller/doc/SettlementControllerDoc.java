@@ -0,0 +1,79 @@
+package com.fintra.stocktrading.controller.doc;
+
+import com.fintra.stocktrading.model.dto.response.SettlementPreviewResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+
+@Tag(name = "Settlement", description = "APIs for inspecting T+2 settlement before it runs")
+public interface SettlementControllerDoc {
+
+    @Operation(
+            summary = "Preview T+2 settlement (dry run)",
+            description = "Computes the net cash and share movements per account that T+2 settlement would apply " +
+                    "for the given trade date, without changing any balances or trades. Defaults to the trade date " +
+                    "the next EOD run would settle (two business days before the system date)."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Settlement preview computed successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = SettlementPreviewResponse.class),
+                            examples = @ExampleObject(
+                                    name = "SettlementPreview",
+                                    summary = "Settlement preview",
+                                    description = "One match of 100 shares at 10.00 between accounts 12 and 34",
+                                    value = """
+                                    {
+                                      "tradeDate": "2025-08-07",
+                                      "matchCount": 1,
+                                      "accountCount": 2,
+                                      "netFreeCash": "997.0000",
+                                      "netBlockedCash": "-1002.0000",
+                                      "accounts": [
+                                        {
+                                          "accountId": 12,
+                                          "freeCashDelta": "-1000.0000",
+                                          "blockedCashDelta": "-1002.0000",
+                                          "positions": [
+                                            { "equityId": 5, "boughtQuantity": 100, "boughtValue": "1002.0000", "soldQuantity": 0 }
+                                          ]
+                                        },
+                                        {
+                                          "accountId": 34,
+                                          "freeCashDelta": "1997.0000",
+                                          "blockedCashDelta": "0",
+                                          "positions": [
+                                            { "equityId": 5, "boughtQuantity": 0, "boughtValue": "0", "soldQuantity": 100 }
+                                          ]
+                                        }
+                                      ]
+                                    }
+                                    """
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Caller is not an admin or analyst",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    ResponseEntity<SettlementPreviewResponse> previewSettlement(
+            @Parameter(
+                    description = "Trade date to preview (YYYY-MM-DD). Defaults to system date minus two business days",
+                    example = "2025-08-07"
+            )
+            LocalDate tradeDate
+    );
+}
@@ -13,6 +13,7 @@ public class TradeMatchedEvent {
     private Integer sellTradeId;
     private Integer buyOrderId;
     private Integer sellOrderId;
+    private Integer equityId;
     private int quantity;
     private BigDecimal price;
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
@@ -0,0 +1,128 @@
+package com.fintra.stocktrading.event.codec;
+
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+import com.fintra.stocktrading.service.matching.PriceTicks;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Fixed-layout binary encoding of {@link TradeMatchedEvent}, big-endian, 50 bytes:
+ * <pre>
+ *  0  magic        byte   0xB7
+ *  1  version      byte   1
+ *  2  presence     byte   bit per nullable field, in the order below
+ *  3  reserved     byte
+ *  4  matchId      int
+ *  8  buyTradeId   int
+ * 12  sellTradeId  int
+ * 16  buyOrderId   int
+ * 20  sellOrderId  int
+ * 24  equityId     int
+ * 28  quantity     int
+ * 32  price        long   {@link PriceTicks} (scale 4)
+ * 40  epochSecond  long   timestamp as UTC wall clock
+ * 48  reserved     short
+ * </pre>
+ * New fields go after the current layout under a new version; readers reject versions they
+ * do not know.
+ */
+public class BinaryTradeMatchedEventCodec implements TradeMatchedEventCodec {
+
+    public static final String NAME = "binary";
+
+    static final byte MAGIC = (byte) 0xB7;
+    static final byte VERSION_1 = 1;
+    static final int V1_LENGTH = 50;
+
+    private static final int MATCH_ID = 1;
+    private static final int BUY_TRADE_ID = 1 << 1;
+    private static final int SELL_TRADE_ID = 1 << 2;
+    private static final int BUY_ORDER_ID = 1 << 3;
+    private static final int SELL_ORDER_ID = 1 << 4;
+    private static final int EQUITY_ID = 1 << 5;
+    private static final int PRICE = 1 << 6;
+    private static final int TIMESTAMP = 1 << 7;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean accepts(byte firstByte) {
+        return firstByte == MAGIC;
+    }
+
+    @Override
+    public byte[] encode(TradeMatchedEvent e) {
+        int presence = flag(e.getMatchId(), MATCH_ID)
+                | flag(e.getBuyTradeId(), BUY_TRADE_ID)
+                | flag(e.getSellTradeId(), SELL_TRADE_ID)
+                | flag(e.getBuyOrderId(), BUY_ORDER_ID)
+                | flag(e.getSellOrderId(), SELL_ORDER_ID)
+                | flag(e.getEquityId(), EQUITY_ID)
+                | flag(e.getPrice(), PRICE)
+                | flag(e.getTimestamp(), TIMESTAMP);
+
+        ByteBuffer buf = ByteBuffer.allocate(V1_LENGTH);
+        buf.put(MAGIC).put(VERSION_1).put((byte) presence).put((byte) 0);
+        buf.putInt(orZero(e.getMatchId()));
+        buf.putInt(orZero(e.getBuyTradeId()));
+        buf.putInt(orZero(e.getSellTradeId()));
+        buf.putInt(orZero(e.getBuyOrderId()));
+        buf.putInt(orZero(e.getSellOrderId()));
+        buf.putInt(orZero(e.getEquityId()));
+        buf.putInt(e.getQuantity());
+        buf.putLong(e.getPrice() != null ? PriceTicks.toTicks(e.getPrice()) : 0L);
+        buf.putLong(e.getTimestamp() != null ? e.getTimestamp().toEpochSecond(ZoneOffset.UTC) : 0L);
+        buf.putShort((short) 0);
+        return buf.array();
+    }
+
+    @Override
+    public TradeMatchedEvent decode(byte[] payload) {
+        if (payload.length < 2 || payload[0] != MAGIC) {
+            throw new SerializationException("Not a binary TradeMatchedEvent");
+        }
+        if (payload[1] != VERSION_1 || payload.length < V1_LENGTH) {
+            throw new SerializationException("Unsupported TradeMatchedEvent layout: version="
+                    + payload[1] + ", length=" + payload.length);
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(payload);
+        buf.position(2);
+        int presence = buf.get() & 0xFF;
+        buf.get();
+
+        TradeMatchedEvent e = new TradeMatchedEvent();
+        e.setMatchId(present(presence, MATCH_ID, buf.getInt()));
+        e.setBuyTradeId(present(presence, BUY_TRADE_ID, buf.getInt()));
+        e.setSellTradeId(present(presence, SELL_TRADE_ID, buf.getInt()));
+        e.setBuyOrderId(present(presence, BUY_ORDER_ID, buf.getInt()));
+        e.setSellOrderId(present(presence, SELL_ORDER_ID, buf.getInt()));
+        e.setEquityId(present(presence, EQUITY_ID, buf.getInt()));
+        e.setQuantity(buf.getInt());
+        long priceTicks = buf.getLong();
+        e.setPrice((presence & PRICE) != 0 ? PriceTicks.toPrice(priceTicks) : null);
+        long epochSecond = buf.getLong();
+        e.setTimestamp((presence & TIMESTAMP) != 0
+                ? LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC)
+                : null);
+        return e;
+    }
+
+    private static int flag(Object value, int bit) {
+        return value != null ? bit : 0;
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static Integer present(int presence, int bit, int value) {
+        return (presence & bit) != 0 ? value : null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.fintra.stocktrading.event.codec;
+
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * The original JSON encoding, kept as fallback and for reading records written before the
+ * binary codec was enabled.
+ */
+public class JsonTradeMatchedEventCodec implements TradeMatchedEventCodec {
+
+    public static final String NAME = "json";
+
+    private final JsonSerializer<TradeMatchedEvent> serializer = new JsonSerializer<>();
+    private final JsonDeserializer<TradeMatchedEvent> deserializer = new JsonDeserializer<>(TradeMatchedEvent.class);
+
+    public JsonTradeMatchedEventCodec() {
+        serializer.setAddTypeInfo(false);
+        deserializer.addTrustedPackages("*");
+        deserializer.setUseTypeHeaders(false);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean accepts(byte firstByte) {
+        return firstByte == '{';
+    }
+
+    @Override
+    public byte[] encode(TradeMatchedEvent event) {
+        return serializer.serialize(null, event);
+    }
+
+    @Override
+    public TradeMatchedEvent decode(byte[] payload) {
+        return deserializer.deserialize(null, payload);
+    }
+}
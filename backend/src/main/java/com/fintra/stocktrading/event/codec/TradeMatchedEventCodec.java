@@ -0,0 +1,20 @@
+package com.fintra.stocktrading.event.codec;
+
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+
+/**
+ * Wire format of {@link TradeMatchedEvent} on Kafka. The producer writes with the configured
+ * codec; the consumer picks the codec per record from its first byte, so topics holding both
+ * formats can be consumed during a switch.
+ */
+public interface TradeMatchedEventCodec {
+
+    String name();
+
+    /** Whether a payload starting with {@code firstByte} was written by this codec. */
+    boolean accepts(byte firstByte);
+
+    byte[] encode(TradeMatchedEvent event);
+
+    TradeMatchedEvent decode(byte[] payload);
+}
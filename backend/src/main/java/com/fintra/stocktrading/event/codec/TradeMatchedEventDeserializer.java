@@ -0,0 +1,33 @@
+package com.fintra.stocktrading.event.codec;
+
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.List;
+
+/**
+ * Decodes each record with the first codec that recognises its leading byte.
+ */
+public class TradeMatchedEventDeserializer implements Deserializer<TradeMatchedEvent> {
+
+    private final List<TradeMatchedEventCodec> codecs;
+
+    public TradeMatchedEventDeserializer(List<TradeMatchedEventCodec> codecs) {
+        this.codecs = List.copyOf(codecs);
+    }
+
+    @Override
+    public TradeMatchedEvent deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        for (TradeMatchedEventCodec codec : codecs) {
+            if (codec.accepts(data[0])) {
+                return codec.decode(data);
+            }
+        }
+        throw new SerializationException("Unrecognised TradeMatchedEvent encoding on topic " + topic
+                + " (first byte 0x" + Integer.toHexString(data[0] & 0xFF) + ")");
+    }
+}
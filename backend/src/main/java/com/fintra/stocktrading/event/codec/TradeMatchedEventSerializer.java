@@ -0,0 +1,16 @@
+package com.fintra.stocktrading.event.codec;
+
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.common.serialization.Serializer;
+
+@RequiredArgsConstructor
+public class TradeMatchedEventSerializer implements Serializer<TradeMatchedEvent> {
+
+    private final TradeMatchedEventCodec codec;
+
+    @Override
+    public byte[] serialize(String topic, TradeMatchedEvent event) {
+        return event != null ? codec.encode(event) : null;
+    }
+}
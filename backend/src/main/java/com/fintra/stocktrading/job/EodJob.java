@@ -1,18 +1,39 @@
 package com.fintra.stocktrading.job;
 
 import com.fintra.stocktrading.service.EodService;
+import com.fintra.stocktrading.service.EquityDataInitializationService;
+import com.fintra.stocktrading.service.MarketSnapshotService;
+import com.fintra.stocktrading.service.matching.TradingRulesCache;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class EodJob {
 
     private final EodService eodService;
+    private final TradingRulesCache tradingRulesCache;
+    private final MarketSnapshotService marketSnapshotService;
+    private final EquityDataInitializationService equityDataInitializationService;
 
     @Scheduled(cron = "0 10 17 * * MON-FRI")
     public void triggerEod() {
         eodService.runEndOfDay();
+        tradingRulesCache.refresh();
+        marketSnapshotService.reload();
+    }
+
+    @Scheduled(cron = "0 55 9 * * MON-FRI")
+    public void triggerSessionOpen() {
+        try {
+            equityDataInitializationService.syncEquityData();
+        } catch (RuntimeException e) {
+            log.warn("Equity data sync failed, opening with stored prices: {}", e.getMessage());
+        }
+        tradingRulesCache.refresh();
+        marketSnapshotService.reload();
     }
 }
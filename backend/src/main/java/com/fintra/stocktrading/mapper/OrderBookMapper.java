@@ -2,51 +2,47 @@ package com.fintra.stocktrading.mapper;
 
 import com.fintra.stocktrading.model.dto.response.OrderBookItemResponse;
 import com.fintra.stocktrading.model.dto.response.OrderBookResponse;
-import com.fintra.stocktrading.model.entity.EquityOrder;
+import com.fintra.stocktrading.model.dto.response.TopOfBookResponse;
+import com.fintra.stocktrading.service.matching.OrderBook;
+import com.fintra.stocktrading.service.matching.PriceTicks;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
 public class OrderBookMapper {
 
-    public OrderBookItemResponse toOrderBookItemResponse(EquityOrder equityOrder) {
-        if (equityOrder == null) {
-            return null;
-        }
-
-        BigDecimal total = equityOrder.getPrice()
-                .multiply(BigDecimal.valueOf(equityOrder.getRemainingQuantity()));
-
+    public OrderBookItemResponse toOrderBookItemResponse(OrderBook.Level level) {
+        BigDecimal price = PriceTicks.toPrice(level.priceTicks());
         return OrderBookItemResponse.builder()
-                .orderId(equityOrder.getOrderId())
-                .price(equityOrder.getPrice())
-                .amount(equityOrder.getRemainingQuantity())
-                .total(total)
+                .price(price)
+                .amount(Math.toIntExact(level.quantity()))
+                .orderCount(level.orderCount())
+                .total(price.multiply(BigDecimal.valueOf(level.quantity())))
                 .build();
     }
 
-    public OrderBookResponse toOrderBookResponse(
-            Integer equityId,
-            String equityCode,
-            List<EquityOrder> buyOrders,
-            List<EquityOrder> sellOrders
-    ) {
-        List<OrderBookItemResponse> bids = buyOrders.stream()
-                .map(this::toOrderBookItemResponse)
-                .collect(Collectors.toList());
-
-        List<OrderBookItemResponse> asks = sellOrders.stream()
-                .map(this::toOrderBookItemResponse)
-                .collect(Collectors.toList());
-
+    public OrderBookResponse toOrderBookResponse(Integer equityId, String equityCode, OrderBook.Depth depth) {
         return OrderBookResponse.builder()
                 .equityId(equityId)
                 .equityCode(equityCode)
-                .bids(bids)
-                .asks(asks)
+                .version(depth.version())
+                .bids(depth.bids().stream().map(this::toOrderBookItemResponse).collect(Collectors.toList()))
+                .asks(depth.asks().stream().map(this::toOrderBookItemResponse).collect(Collectors.toList()))
+                .build();
+    }
+
+    public TopOfBookResponse toTopOfBookResponse(Integer equityId, String equityCode, OrderBook.Top top) {
+        OrderBook.Level bid = top.bestBid();
+        OrderBook.Level ask = top.bestAsk();
+        return TopOfBookResponse.builder()
+                .equityId(equityId)
+                .equityCode(equityCode)
+                .version(top.version())
+                .bestBid(bid != null ? toOrderBookItemResponse(bid) : null)
+                .bestAsk(ask != null ? toOrderBookItemResponse(ask) : null)
+                .spread(bid != null && ask != null ? PriceTicks.toPrice(ask.priceTicks() - bid.priceTicks()) : null)
                 .build();
     }
 }
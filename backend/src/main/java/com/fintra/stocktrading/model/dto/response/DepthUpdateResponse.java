@@ -0,0 +1,32 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Streamed order book depth change for one equity")
+public class DepthUpdateResponse {
+
+    @Schema(description = "Equity ID", example = "123")
+    private Integer equityId;
+
+    @Schema(description = "Book version the delta applies on top of; absent for snapshots", example = "48213")
+    private Long fromVersion;
+
+    @Schema(description = "Book version after applying this update", example = "48219")
+    private Long version;
+
+    @Schema(description = "Changed bid levels; an amount of 0 removes the level. Full side for snapshots")
+    private List<OrderBookItemResponse> bids;
+
+    @Schema(description = "Changed ask levels; an amount of 0 removes the level. Full side for snapshots")
+    private List<OrderBookItemResponse> asks;
+}
@@ -0,0 +1,45 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fintra.stocktrading.model.enums.OrderSide;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Streamed fill of one of the account's orders")
+public class ExecutionReportResponse {
+
+    @Schema(description = "Order ID", example = "101")
+    private Integer orderId;
+
+    @Schema(description = "Account ID", example = "45")
+    private Integer accountId;
+
+    @Schema(description = "Equity ID", example = "12")
+    private Integer equityId;
+
+    @Schema(description = "Order side", example = "BUY")
+    private OrderSide orderSide;
+
+    @Schema(description = "Match ID of the fill", example = "52001")
+    private Integer matchId;
+
+    @Schema(description = "Executed quantity (lot count)", example = "100")
+    private Integer quantity;
+
+    @Schema(description = "Execution price", example = "102.50")
+    private BigDecimal price;
+
+    @Schema(description = "Execution time", example = "2025-08-05T11:20:01")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime timestamp;
+}
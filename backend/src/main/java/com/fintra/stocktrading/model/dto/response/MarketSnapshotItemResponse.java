@@ -0,0 +1,54 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Market snapshot of one equity; fields not requested or not known are omitted")
+public class MarketSnapshotItemResponse {
+
+    @Schema(description = "Equity ID", example = "123")
+    private Integer equityId;
+
+    @Schema(description = "Equity code", example = "GARAN.E")
+    private String assetCode;
+
+    @Schema(description = "Equity name", example = "GARANTI BANKASI A.S.")
+    private String equityName;
+
+    @Schema(description = "Date of the latest imported price record", example = "2025-08-07")
+    private LocalDate dataDate;
+
+    @Schema(description = "Open price of the latest imported price record", example = "86.00")
+    private BigDecimal openPrice;
+
+    @Schema(description = "High price of the latest imported price record", example = "87.00")
+    private BigDecimal highPrice;
+
+    @Schema(description = "Low price of the latest imported price record", example = "85.80")
+    private BigDecimal lowPrice;
+
+    @Schema(description = "Close price of the latest imported price record", example = "86.25")
+    private BigDecimal closePrice;
+
+    @Schema(description = "Price of the latest trade in this session", example = "86.40")
+    private BigDecimal lastPrice;
+
+    @Schema(description = "Quantity traded in this session (lot count)", example = "12500")
+    private Long dayVolume;
+
+    @Schema(description = "Time of the latest trade in this session", example = "2025-08-08T11:42:07")
+    private LocalDateTime lastTradeAt;
+}
@@ -0,0 +1,23 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Snapshot of every equity's latest prices and session activity")
+public class MarketSnapshotResponse {
+
+    @Schema(description = "Snapshot version; changes whenever any equity changes and is sent as the ETag", example = "5120")
+    private Long version;
+
+    @Schema(description = "Equities sorted by equity code")
+    private List<MarketSnapshotItemResponse> equities;
+}
@@ -0,0 +1,53 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fintra.stocktrading.model.enums.OrderSide;
+import com.fintra.stocktrading.model.enums.OrderStatus;
+import com.fintra.stocktrading.model.enums.OrderType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Acknowledgement of an order accepted for asynchronous matching")
+public class OrderAckResponse {
+
+    @Schema(description = "Order ID", example = "101")
+    private Integer orderId;
+
+    @Schema(description = "Entry sequence number; orders of one equity are matched in this order", example = "1723371330000001")
+    private Long sequence;
+
+    @Schema(description = "Account ID", example = "45")
+    private Integer accountId;
+
+    @Schema(description = "Equity ID", example = "12")
+    private Integer equityId;
+
+    @Schema(description = "Order side", example = "BUY")
+    private OrderSide orderSide;
+
+    @Schema(description = "Order quantity (lot count)", example = "100")
+    private Integer orderQuantity;
+
+    @Schema(description = "Limit price", example = "102.50")
+    private BigDecimal price;
+
+    @Schema(description = "Effective order type", example = "LIMIT")
+    private OrderType orderType;
+
+    @Schema(description = "Status at acceptance", example = "PENDING")
+    private OrderStatus status;
+
+    @Schema(description = "Acceptance time", example = "2025-08-05T11:20:00")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime acceptedAt;
+}
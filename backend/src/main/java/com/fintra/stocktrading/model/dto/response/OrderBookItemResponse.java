@@ -12,18 +12,21 @@ import java.math.BigDecimal;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Schema(description = "Individual orderbook item representing a single order")
+@Schema(description = "Orderbook price level aggregating all resting orders at one price")
 public class OrderBookItemResponse {
 
-    @Schema(description = "Order ID", example = "12345")
+    @Schema(description = "Order ID; empty for aggregated price levels", example = "12345")
     private Integer orderId;
 
     @Schema(description = "Order price", example = "105.50")
     private BigDecimal price;
 
-    @Schema(description = "Order quantity (lot count)", example = "100")
+    @Schema(description = "Total resting quantity at this price (lot count)", example = "100")
     private Integer amount;
 
+    @Schema(description = "Number of resting orders at this price", example = "3")
+    private Integer orderCount;
+
     @Schema(description = "Total value (price * amount)", example = "10550.00")
     private BigDecimal total;
 }
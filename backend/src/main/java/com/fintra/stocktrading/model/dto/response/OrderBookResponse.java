@@ -21,9 +21,12 @@ public class OrderBookResponse {
     @Schema(description = "Equity code", example = "GARAN.E")
     private String equityCode;
 
-    @Schema(description = "Buy orders (bids) sorted by price descending (highest to lowest)")
+    @Schema(description = "Book version; changes whenever the book changes and is sent as the ETag", example = "48213")
+    private Long version;
+
+    @Schema(description = "Bid price levels sorted by price descending (highest to lowest)")
     private List<OrderBookItemResponse> bids;
 
-    @Schema(description = "Sell orders (asks) sorted by price ascending (lowest to highest)")
+    @Schema(description = "Ask price levels sorted by price ascending (lowest to highest)")
     private List<OrderBookItemResponse> asks;
 }
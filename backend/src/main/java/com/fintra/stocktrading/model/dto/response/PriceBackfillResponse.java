@@ -0,0 +1,38 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Progress of the price history backfill, summed over all known windows")
+public class PriceBackfillResponse {
+
+    @Schema(description = "Whether a backfill run is in progress", example = "true")
+    private Boolean running;
+
+    @Schema(description = "Number of windows recorded", example = "60")
+    private Integer totalWindows;
+
+    @Schema(description = "Number of windows loaded completely", example = "42")
+    private Integer doneWindows;
+
+    @Schema(description = "Number of windows whose last attempt failed", example = "1")
+    private Integer failedWindows;
+
+    @Schema(description = "Number of windows not attempted yet", example = "17")
+    private Integer pendingWindows;
+
+    @Schema(description = "Price records merged across all windows", example = "437304")
+    private Long recordCount;
+
+    @Schema(description = "Windows ordered by start date")
+    private List<PriceBackfillWindowResponse> windows;
+}
@@ -0,0 +1,40 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import com.fintra.stocktrading.model.enums.BackfillStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Progress of one date window of a price history backfill")
+public class PriceBackfillWindowResponse {
+
+    @Schema(description = "First day of the window", example = "2024-01-01")
+    private LocalDate windowStart;
+
+    @Schema(description = "Last day of the window", example = "2024-01-30")
+    private LocalDate windowEnd;
+
+    @Schema(description = "Window status", example = "DONE")
+    private BackfillStatus status;
+
+    @Schema(description = "Price records merged by the last attempt", example = "10412")
+    private Integer recordCount;
+
+    @Schema(description = "Number of completed or failed attempts", example = "1")
+    private Integer attempts;
+
+    @Schema(description = "Error of the last failed attempt", example = "Price service temporarily unavailable")
+    private String lastError;
+
+    @Schema(description = "Time of the last status change", example = "2025-08-09T10:15:30")
+    private LocalDateTime updatedAt;
+}
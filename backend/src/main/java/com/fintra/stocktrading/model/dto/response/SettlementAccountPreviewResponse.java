@@ -0,0 +1,14 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import lombok.*;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SettlementAccountPreviewResponse {
+    private Integer accountId;
+    private BigDecimal freeCashDelta;
+    private BigDecimal blockedCashDelta;
+
+    private List<SettlementPositionPreviewResponse> positions;
+}
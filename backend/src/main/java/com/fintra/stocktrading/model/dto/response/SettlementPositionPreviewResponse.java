@@ -0,0 +1,12 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import lombok.*;
+import java.math.BigDecimal;
+
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class SettlementPositionPreviewResponse {
+    private Integer equityId;
+    private Integer boughtQuantity;
+    private BigDecimal boughtValue;
+    private Integer soldQuantity;
+}
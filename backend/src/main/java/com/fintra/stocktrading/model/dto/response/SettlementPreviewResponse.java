@@ -0,0 +1,37 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Dry-run result of T+2 settlement: net cash and share movements per account")
+public class SettlementPreviewResponse {
+
+    @Schema(description = "Trade date whose matches would be settled", example = "2025-08-07")
+    private LocalDate tradeDate;
+
+    @Schema(description = "Number of unsettled matches on the trade date", example = "1250")
+    private Integer matchCount;
+
+    @Schema(description = "Number of accounts whose balances or positions would change", example = "87")
+    private Integer accountCount;
+
+    @Schema(description = "Sum of the net free cash movements across all accounts", example = "152340.5000")
+    private BigDecimal netFreeCash;
+
+    @Schema(description = "Sum of the net blocked cash movements across all accounts", example = "-76210.2500")
+    private BigDecimal netBlockedCash;
+
+    @Schema(description = "Net movements per account, ordered by account id")
+    private List<SettlementAccountPreviewResponse> accounts;
+}
@@ -0,0 +1,35 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Best bid and best offer (top of book) for a specific equity")
+public class TopOfBookResponse {
+
+    @Schema(description = "Equity ID", example = "123")
+    private Integer equityId;
+
+    @Schema(description = "Equity code", example = "GARAN.E")
+    private String equityCode;
+
+    @Schema(description = "Book version; changes whenever the book changes and is sent as the ETag", example = "48213")
+    private Long version;
+
+    @Schema(description = "Highest bid price level; empty when there are no bids")
+    private OrderBookItemResponse bestBid;
+
+    @Schema(description = "Lowest ask price level; empty when there are no asks")
+    private OrderBookItemResponse bestAsk;
+
+    @Schema(description = "Best ask minus best bid; empty unless both sides are present", example = "0.50")
+    private BigDecimal spread;
+}
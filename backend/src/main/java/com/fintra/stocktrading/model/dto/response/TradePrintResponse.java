@@ -0,0 +1,35 @@
+package com.fintra.stocktrading.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Streamed trade print for one equity")
+public class TradePrintResponse {
+
+    @Schema(description = "Equity ID", example = "123")
+    private Integer equityId;
+
+    @Schema(description = "Match ID of the fill", example = "52001")
+    private Integer matchId;
+
+    @Schema(description = "Execution price", example = "105.50")
+    private BigDecimal price;
+
+    @Schema(description = "Executed quantity (lot count)", example = "100")
+    private Integer quantity;
+
+    @Schema(description = "Execution time", example = "2025-08-11T10:15:30")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime timestamp;
+}
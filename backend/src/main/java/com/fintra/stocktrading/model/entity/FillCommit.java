@@ -0,0 +1,29 @@
+package com.fintra.stocktrading.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A matching transaction that journaled fills. The row is inserted by that transaction, so on
+ * recovery a commit id found here proves its journal entries belong to a match that happened,
+ * even when the process died before the journal recorded the commit.
+ */
+@Entity
+@Table(name = "fill_commits", indexes = @Index(name = "ix_fill_commits_committed_at", columnList = "committed_at"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FillCommit {
+    @Id
+    @Column(name = "commit_id", length = 36)
+    private String commitId;
+
+    @Column(name = "committed_at", nullable = false)
+    private LocalDateTime committedAt;
+}
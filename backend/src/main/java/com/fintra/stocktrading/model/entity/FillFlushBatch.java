@@ -0,0 +1,29 @@
+package com.fintra.stocktrading.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A write-behind batch of fills, logs and histories that has committed. Rows are inserted in
+ * the same transaction as the batch, so on recovery a batch id found here proves every journal
+ * entry of that batch is already in the database.
+ */
+@Entity
+@Table(name = "fill_flush_batches", indexes = @Index(name = "ix_fill_flush_batches_flushed_at", columnList = "flushed_at"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FillFlushBatch {
+    @Id
+    @Column(name = "batch_id", length = 36)
+    private String batchId;
+
+    @Column(name = "flushed_at", nullable = false)
+    private LocalDateTime flushedAt;
+}
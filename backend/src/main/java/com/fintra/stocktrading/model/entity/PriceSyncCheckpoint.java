@@ -0,0 +1,44 @@
+package com.fintra.stocktrading.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A price history sync that fetched every record from {@code checkedFrom} to {@code checkedThrough}.
+ * A date checked this way that still lacks a bar for some equity had none at the source.
+ */
+@Entity
+@Table(name = "price_sync_checkpoints",
+        indexes = @Index(name = "ix_price_sync_checkpoints_checked_through", columnList = "checked_through"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PriceSyncCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "checkpoint_id")
+    private Integer checkpointId;
+
+    @Column(name = "checked_from", nullable = false)
+    private LocalDate checkedFrom;
+
+    @Column(name = "checked_through", nullable = false)
+    private LocalDate checkedThrough;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.completedAt == null) {
+            this.completedAt = LocalDateTime.now();
+        }
+    }
+}
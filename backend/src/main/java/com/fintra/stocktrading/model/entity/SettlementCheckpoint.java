@@ -0,0 +1,45 @@
+package com.fintra.stocktrading.model.entity;
+
+import com.fintra.stocktrading.model.enums.SettlementPhase;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "settlement_checkpoints",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"trade_date", "phase", "chunk_no"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SettlementCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "checkpoint_id")
+    private Integer checkpointId;
+
+    @Column(name = "trade_date", nullable = false)
+    private LocalDate tradeDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "phase", nullable = false, length = 32)
+    private SettlementPhase phase;
+
+    @Column(name = "chunk_no", nullable = false)
+    private Integer chunkNo;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.completedAt == null) {
+            this.completedAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.fintra.stocktrading.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A trade event waiting to be relayed to Kafka. Rows are inserted in the same transaction as
+ * the trades they describe and deleted once the broker has acknowledged them.
+ */
+@Entity
+@Table(name = "trade_event_outbox", indexes = @Index(name = "ix_trade_event_outbox_equity", columnList = "equity_id"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TradeEventOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_id")
+    private Long outboxId;
+
+    @Column(name = "equity_id", nullable = false)
+    private Integer equityId;
+
+    @Column(name = "match_id", nullable = false)
+    private Integer matchId;
+
+    @Column(name = "payload", nullable = false, length = 64)
+    private byte[] payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
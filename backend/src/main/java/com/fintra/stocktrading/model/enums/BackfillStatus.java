@@ -0,0 +1,7 @@
+package com.fintra.stocktrading.model.enums;
+
+public enum BackfillStatus {
+    PENDING,
+    DONE,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.fintra.stocktrading.model.enums;
+
+public enum SettlementPhase {
+    POSITIONS,
+    POSITIONS_COMPLETE
+}
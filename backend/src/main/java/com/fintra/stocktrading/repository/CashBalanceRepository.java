@@ -3,8 +3,13 @@ package com.fintra.stocktrading.repository;
 import com.fintra.stocktrading.model.entity.Account;
 import com.fintra.stocktrading.model.entity.CashBalance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +18,37 @@ public interface CashBalanceRepository extends JpaRepository<CashBalance, Intege
     Optional<CashBalance> findByAccount(Account account);
     Optional<CashBalance> findByAccount_AccountId(Integer accountId);
     void deleteByAccount_AccountId(Integer accountId);
+
+    @Modifying
+    @Query("UPDATE CashBalance c SET c.freeBalance = c.freeBalance - :amount, c.blockedBalance = c.blockedBalance + :amount, " +
+            "c.updatedAt = :now WHERE c.account.accountId = :accountId AND c.freeBalance >= :amount")
+    int blockFree(@Param("accountId") Integer accountId, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CashBalance c SET c.blockedBalance = c.blockedBalance - :amount, c.freeBalance = c.freeBalance + :amount, " +
+            "c.updatedAt = :now WHERE c.account.accountId = :accountId AND c.blockedBalance >= :amount")
+    int releaseBlocked(@Param("accountId") Integer accountId, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CashBalance c SET c.blockedBalance = c.blockedBalance - :amount, c.updatedAt = :now " +
+            "WHERE c.account.accountId = :accountId AND c.blockedBalance >= :amount")
+    int reduceBlocked(@Param("accountId") Integer accountId, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CashBalance c SET c.freeBalance = c.freeBalance + :amount, c.updatedAt = :now " +
+            "WHERE c.account.accountId = :accountId")
+    int addFree(@Param("accountId") Integer accountId, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    /**
+     * Debits {@code fromAccountId} and credits {@code toAccountId} in one statement. Returns 2
+     * when both rows were updated; fewer means the source lacked free balance or a row is missing,
+     * and the caller must roll back.
+     */
+    @Modifying
+    @Query("UPDATE CashBalance c SET c.freeBalance = CASE WHEN c.account.accountId = :toAccountId " +
+            "THEN c.freeBalance + :amount ELSE c.freeBalance - :amount END, c.updatedAt = :now " +
+            "WHERE (c.account.accountId = :toAccountId) " +
+            "OR (c.account.accountId = :fromAccountId AND c.freeBalance >= :amount)")
+    int transferFree(@Param("fromAccountId") Integer fromAccountId, @Param("toAccountId") Integer toAccountId,
+                     @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
 }
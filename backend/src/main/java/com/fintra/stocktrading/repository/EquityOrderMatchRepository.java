@@ -5,6 +5,8 @@ import com.fintra.stocktrading.model.entity.EquityOrder;
 import com.fintra.stocktrading.model.entity.EquityOrderMatch;
 import com.fintra.stocktrading.model.enums.OrderSide;
 import com.fintra.stocktrading.model.enums.OrderStatus;
+import com.fintra.stocktrading.model.enums.TradeStatus;
+import com.fintra.stocktrading.service.settlement.SettlementLeg;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
@@ -24,6 +26,26 @@ public interface EquityOrderMatchRepository extends JpaRepository<EquityOrderMat
     List<EquityOrderMatch> findBySellOrder(EquityOrder sellOrder);
     List<EquityOrderMatch> findByMatchTimeBetween(LocalDateTime start, LocalDateTime end);
 
+    @Query("""
+        SELECT new com.fintra.stocktrading.service.settlement.SettlementLeg(
+            m.matchId, bo.equity.equityId,
+            bo.orderId, bo.account.accountId, bt.tradeId, bt.tradeQuantity, bt.price, bt.commission,
+            so.orderId, so.account.accountId, st.tradeId, st.tradeQuantity, st.price, st.commission
+        )
+        FROM EquityOrderMatch m
+        JOIN m.buyOrder bo
+        JOIN m.sellOrder so
+        JOIN Trade bt ON bt.matchId = m.matchId AND bt.equityOrder = bo
+        JOIN Trade st ON st.matchId = m.matchId AND st.equityOrder = so
+        WHERE m.matchTime BETWEEN :start AND :end
+          AND bt.status <> :settled
+          AND st.status <> :settled
+        ORDER BY m.matchId
+    """)
+    List<SettlementLeg> findUnsettledLegs(@Param("start") LocalDateTime start,
+                                          @Param("end") LocalDateTime end,
+                                          @Param("settled") TradeStatus settled);
+
     @Query("""
         SELECT CASE 
             WHEN m.buyOrder.orderId = :orderId THEN m.sellOrder.orderId
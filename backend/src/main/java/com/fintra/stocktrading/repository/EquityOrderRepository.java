@@ -1,15 +1,18 @@
 package com.fintra.stocktrading.repository;
 
 import com.fintra.stocktrading.model.entity.EquityOrder;
-import com.fintra.stocktrading.model.enums.OrderSide;
 import com.fintra.stocktrading.model.enums.OrderStatus;
-import jakarta.persistence.LockModeType;
+import com.fintra.stocktrading.service.expiry.ExpiringOrder;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,59 +22,67 @@ public interface EquityOrderRepository extends JpaRepository<EquityOrder, Intege
     List<EquityOrder> findByFinalStatus(OrderStatus finalStatus);
     List<EquityOrder> findByFinalStatusIn(List<OrderStatus> statuses);
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT o FROM EquityOrder o WHERE o.orderId = :id")
-    Optional<EquityOrder> findByIdForUpdate(@Param("id") Integer id);
+    @Query(
+            "SELECT o FROM EquityOrder o " +
+                    "WHERE o.finalStatus IN :statuses " +
+                    "  AND o.remainingQuantity > 0 " +
+                    "ORDER BY o.entryDate ASC, o.orderId ASC"
+    )
+    List<EquityOrder> findOpenOrdersForBook(@Param("statuses") List<OrderStatus> statuses);
 
     @Query(
             "SELECT o FROM EquityOrder o " +
                     "WHERE o.equity.equityId = :equityId " +
                     "  AND o.finalStatus IN :statuses " +
-                    "  AND o.orderSide = :orderSide " +
                     "  AND o.remainingQuantity > 0 " +
-                    "ORDER BY " +
-                    "  CASE WHEN :orderSide = 'BUY' THEN o.price END DESC, " +
-                    "  CASE WHEN :orderSide = 'SELL' THEN o.price END ASC"
+                    "ORDER BY o.entryDate ASC, o.orderId ASC"
     )
-    List<EquityOrder> findOrderBookOrdersByEquityIdAndSide(
+    List<EquityOrder> findOpenOrdersByEquityId(
             @Param("equityId") Integer equityId,
-            @Param("statuses") List<OrderStatus> statuses,
-            @Param("orderSide") OrderSide orderSide
+            @Param("statuses") List<OrderStatus> statuses
     );
 
     @Query(
-            "SELECT o FROM EquityOrder o " +
-                    "WHERE o.equity.equityId = :equityId " +
+            "SELECT new com.fintra.stocktrading.service.expiry.ExpiringOrder(" +
+                    "  o.orderId, o.account.accountId, o.equity.equityId, o.orderSide, o.remainingQuantity, o.price) " +
+                    "FROM EquityOrder o " +
+                    "WHERE o.orderDate = :orderDate " +
                     "  AND o.finalStatus IN :statuses " +
-                    "  AND o.orderSide = :orderSide " +
-                    "  AND o.remainingQuantity > 0 " +
-                    "  AND o.orderId != :excludeOrderId " +
-                    "ORDER BY " +
-                    "  CASE WHEN :orderSide = 'BUY' THEN o.price END DESC, " +
-                    "  CASE WHEN :orderSide = 'SELL' THEN o.price END ASC"
+                    "  AND o.orderId > :afterOrderId " +
+                    "ORDER BY o.orderId ASC"
     )
-    List<EquityOrder> findOrderBookOrdersByEquityIdAndSideExcludingOrder(
-            @Param("equityId") Integer equityId,
+    List<ExpiringOrder> findExpiringOrders(
+            @Param("orderDate") LocalDate orderDate,
             @Param("statuses") List<OrderStatus> statuses,
-            @Param("orderSide") OrderSide orderSide,
-            @Param("excludeOrderId") Integer excludeOrderId
+            @Param("afterOrderId") Integer afterOrderId,
+            Pageable pageable
     );
 
+    @Modifying
     @Query(
-            "SELECT o FROM EquityOrder o " +
-                    "WHERE o.equity.equityId = :equityId " +
-                    "  AND o.finalStatus IN :statuses " +
-                    "  AND o.orderSide = :orderSide " +
-                    "  AND o.remainingQuantity > 0 " +
-                    "  AND o.orderId NOT IN :excludeOrderIds " +
-                    "ORDER BY " +
-                    "  CASE WHEN :orderSide = 'BUY' THEN o.price END DESC, " +
-                    "  CASE WHEN :orderSide = 'SELL' THEN o.price END ASC"
+            "UPDATE EquityOrder o " +
+                    "SET o.finalStatus = :expired, o.combinedStatus = :expired, " +
+                    "    o.version = COALESCE(o.version, 0) + 1, o.updatedAt = :now " +
+                    "WHERE o.orderId IN :orderIds " +
+                    "  AND o.finalStatus IN :statuses"
     )
-    List<EquityOrder> findOrderBookOrdersByEquityIdAndSideExcludingMultipleOrders(
-            @Param("equityId") Integer equityId,
+    int expireOrders(
+            @Param("orderIds") Collection<Integer> orderIds,
             @Param("statuses") List<OrderStatus> statuses,
-            @Param("orderSide") OrderSide orderSide,
-            @Param("excludeOrderIds") List<Integer> excludeOrderIds
+            @Param("expired") OrderStatus expired,
+            @Param("now") LocalDateTime now
     );
+
+    @Query("SELECT o.equity.equityId FROM EquityOrder o WHERE o.orderId = :orderId")
+    Optional<Integer> findEquityIdByOrderId(@Param("orderId") Integer orderId);
+
+    @Query("SELECT o.finalStatus FROM EquityOrder o WHERE o.orderId = :orderId")
+    Optional<OrderStatus> findFinalStatusByOrderId(@Param("orderId") Integer orderId);
+
+    @Query(
+            "SELECT DISTINCT o.equity.equityId FROM EquityOrder o " +
+                    "WHERE o.finalStatus IN :statuses " +
+                    "  AND o.remainingQuantity > 0"
+    )
+    List<Integer> findEquityIdsWithOpenOrders(@Param("statuses") List<OrderStatus> statuses);
 }
@@ -2,6 +2,7 @@ package com.fintra.stocktrading.repository;
 
 import com.fintra.stocktrading.model.entity.Equity;
 import com.fintra.stocktrading.model.entity.EquityPriceHistory;
+import com.fintra.stocktrading.service.pricehistory.EquityPriceDate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -42,6 +43,11 @@ public interface EquityPriceHistoryRepository extends JpaRepository<EquityPriceH
 
     boolean existsByEquityAndDataDate(Equity equity, LocalDate dataDate);
 
+    @Query("SELECT new com.fintra.stocktrading.service.pricehistory.EquityPriceDate(eph.equity.equityId, eph.dataDate) " +
+            "FROM EquityPriceHistory eph WHERE eph.dataDate BETWEEN :startDate AND :endDate")
+    List<EquityPriceDate> findPriceDatesInRange(@Param("startDate") LocalDate startDate,
+                                                @Param("endDate") LocalDate endDate);
+
     @Query("SELECT DISTINCT eph.dataDate FROM EquityPriceHistory eph WHERE eph.equity.equityId IN :equityIds AND eph.dataDate BETWEEN :startDate AND :endDate")
     List<LocalDate> findExistingPriceDatesByEquityInRange(@Param("equityIds") List<Integer> equityIds,
                                                          @Param("startDate") LocalDate startDate,
@@ -57,4 +63,15 @@ public interface EquityPriceHistoryRepository extends JpaRepository<EquityPriceH
         )
         """)
     List<EquityPriceHistory> findLatestPricesForEquities(@Param("equities") List<Equity> equities);
+
+    @Query("""
+        SELECT eph FROM EquityPriceHistory eph
+        JOIN FETCH eph.equity
+        WHERE eph.dataDate = (
+            SELECT MAX(eph2.dataDate)
+            FROM EquityPriceHistory eph2
+            WHERE eph2.equity = eph.equity
+        )
+        """)
+    List<EquityPriceHistory> findLatestPricePerEquity();
 }
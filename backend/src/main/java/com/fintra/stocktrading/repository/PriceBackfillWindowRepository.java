@@ -0,0 +1,23 @@
+package com.fintra.stocktrading.repository;
+
+import com.fintra.stocktrading.model.entity.PriceBackfillWindow;
+import com.fintra.stocktrading.model.enums.BackfillStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PriceBackfillWindowRepository extends JpaRepository<PriceBackfillWindow, Integer> {
+
+    @Query("SELECT w FROM PriceBackfillWindow w WHERE w.windowStart >= :from AND w.windowEnd <= :to " +
+            "ORDER BY w.windowStart")
+    List<PriceBackfillWindow> findWithinRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    List<PriceBackfillWindow> findByStatusOrderByWindowStart(BackfillStatus status);
+
+    List<PriceBackfillWindow> findAllByOrderByWindowStart();
+}
@@ -0,0 +1,13 @@
+package com.fintra.stocktrading.repository;
+
+import com.fintra.stocktrading.model.entity.PriceSyncCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PriceSyncCheckpointRepository extends JpaRepository<PriceSyncCheckpoint, Integer> {
+
+    Optional<PriceSyncCheckpoint> findTopByOrderByCheckedThroughDescCompletedAtDesc();
+}
@@ -0,0 +1,25 @@
+package com.fintra.stocktrading.repository;
+
+import com.fintra.stocktrading.model.entity.SettlementCheckpoint;
+import com.fintra.stocktrading.model.enums.SettlementPhase;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+@Repository
+public interface SettlementCheckpointRepository extends JpaRepository<SettlementCheckpoint, Integer> {
+
+    @Query("SELECT c.chunkNo FROM SettlementCheckpoint c WHERE c.tradeDate = :tradeDate AND c.phase = :phase")
+    Set<Integer> findCompletedChunks(@Param("tradeDate") LocalDate tradeDate, @Param("phase") SettlementPhase phase);
+
+    boolean existsByTradeDateAndPhase(LocalDate tradeDate, SettlementPhase phase);
+
+    @Modifying
+    @Query("DELETE FROM SettlementCheckpoint c WHERE c.tradeDate = :tradeDate")
+    int deleteByTradeDate(@Param("tradeDate") LocalDate tradeDate);
+}
@@ -0,0 +1,23 @@
+package com.fintra.stocktrading.repository;
+
+import com.fintra.stocktrading.model.entity.TradeEventOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TradeEventOutboxRepository extends JpaRepository<TradeEventOutbox, Long> {
+
+    @Query("SELECT o FROM TradeEventOutbox o ORDER BY o.outboxId ASC")
+    List<TradeEventOutbox> findOldest(Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM TradeEventOutbox o WHERE o.outboxId IN :ids")
+    int deleteByOutboxIds(@Param("ids") Collection<Long> ids);
+}
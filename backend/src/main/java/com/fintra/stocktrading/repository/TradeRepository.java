@@ -3,14 +3,19 @@ package com.fintra.stocktrading.repository;
 import com.fintra.stocktrading.model.entity.EquityOrder;
 import com.fintra.stocktrading.model.entity.Trade;
 import org.springframework.data.domain.Page;
+import com.fintra.stocktrading.model.enums.OrderSide;
 import com.fintra.stocktrading.model.enums.TradeStatus;
+import com.fintra.stocktrading.service.marketdata.MarketDayTotal;
+import com.fintra.stocktrading.service.settlement.SettlementPositionTotal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,6 +41,31 @@ public interface TradeRepository extends JpaRepository<Trade, Integer> {
 
     Optional<Trade> findByMatchIdAndEquityOrder(Integer matchId, EquityOrder equityOrder);
 
+    @Modifying
+    @Query("""
+    UPDATE Trade t SET t.status = :status, t.updatedAt = :now
+    WHERE t.tradeId IN :tradeIds AND t.status <> :status
+    """)
+    int updateStatusByTradeIds(@Param("tradeIds") Collection<Integer> tradeIds,
+                               @Param("status") TradeStatus status,
+                               @Param("now") LocalDateTime now);
+
+    @Query("""
+    SELECT new com.fintra.stocktrading.service.settlement.SettlementPositionTotal(
+        o.account.accountId, o.equity.equityId, o.orderSide,
+        COUNT(t), SUM(t.tradeQuantity), SUM(t.price * t.tradeQuantity), SUM(COALESCE(t.commission, 0))
+    )
+    FROM Trade t
+    JOIN t.equityOrder o
+    JOIN EquityOrderMatch m ON m.matchId = t.matchId AND (m.buyOrder = o OR m.sellOrder = o)
+    WHERE m.matchTime BETWEEN :start AND :end
+      AND t.status <> :settled
+    GROUP BY o.account.accountId, o.equity.equityId, o.orderSide
+    """)
+    List<SettlementPositionTotal> sumUnsettledBySide(@Param("start") LocalDateTime start,
+                                                     @Param("end") LocalDateTime end,
+                                                     @Param("settled") TradeStatus settled);
+
     @Query("""
     SELECT t FROM Trade t 
     WHERE t.status = :status 
@@ -49,4 +79,15 @@ public interface TradeRepository extends JpaRepository<Trade, Integer> {
     order by t.transactionTime desc
     """)
     List<Trade> findLatestNonZeroTrades(@Param("equityId") Integer equityId);
+
+    @Query("""
+    SELECT new com.fintra.stocktrading.service.marketdata.MarketDayTotal(
+        o.equity.equityId, SUM(t.tradeQuantity), MAX(t.tradeId)
+    )
+    FROM Trade t
+    JOIN t.equityOrder o
+    WHERE t.transactionTime >= :start AND o.orderSide = :side
+    GROUP BY o.equity.equityId
+    """)
+    List<MarketDayTotal> sumDayTotals(@Param("start") LocalDateTime start, @Param("side") OrderSide side);
 }
@@ -2,6 +2,8 @@ package com.fintra.stocktrading.service;
 
 import com.fintra.stocktrading.model.dto.response.CashBalanceResponse;
 import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
 
 public interface CashBalanceService {
     /**
@@ -71,4 +73,19 @@ public interface CashBalanceService {
      * @param amount amount to move from blocked to free
      */
     void moveBlockedToFree(Integer accountId, BigDecimal amount);
+
+    /**
+     * Applies signed free and blocked deltas to many accounts with one statement per batch.
+     * An account's delta is applied only if neither of its balances would become negative.
+     *
+     * @param deltas deltas by account ID
+     * @return IDs of the accounts whose delta was applied
+     */
+    Set<Integer> applyDeltas(Map<Integer, BalanceDelta> deltas);
+
+    /**
+     * Signed change to an account's free and blocked balance.
+     */
+    record BalanceDelta(BigDecimal freeDelta, BigDecimal blockedDelta) {
+    }
 }
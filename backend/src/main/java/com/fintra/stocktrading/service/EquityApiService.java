@@ -3,13 +3,15 @@ package com.fintra.stocktrading.service;
 import com.fintra.stocktrading.model.dto.external.ExternalEquityInfoDto;
 import com.fintra.stocktrading.model.dto.external.ExternalPriceRecordDto;
 import com.fintra.stocktrading.model.dto.response.EquityPriceResponse;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
 public interface EquityApiService {
 
     /**
-     * Retrieves equity information from external API
+     * Retrieves equity information from external API. Served from a resident catalog that is
+     * refreshed in the background once older than {@code app.equity-catalog.ttl-seconds}.
      *
      * @return list of external equity info DTOs
      */
@@ -38,6 +40,9 @@ public interface EquityApiService {
     List<EquityPriceResponse> getAllEquities();
 
     /**
+     * Pages the priced equity listing from the prefix index rebuilt with each catalog refresh;
+     * no remote call is made. Asset code matches come first, then name-only matches.
+     *
      * @param page zero-based page index
      * @param size maximum number of items on a page
      * @param filter (optional) assetCode **OR** prefix filter on equityName
@@ -49,7 +54,8 @@ public interface EquityApiService {
     );
 
     /**
-     * Retrieves equity information for a specific asset code
+     * Retrieves equity information for a specific asset code by ticker or base code
+     * (with or without the .E suffix) from the resident catalog
      *
      * @param assetCode the asset code to search for
      * @return external equity info DTO or null if not found
@@ -79,4 +85,15 @@ public interface EquityApiService {
      * @return list of external price record DTOs for all equities in the date range
      */
     List<ExternalPriceRecordDto> getAllPriceHistoryByDateRange(String startDate, String endDate);
+
+    /**
+     * Streams all price records for all equities within a date range, parsed incrementally
+     * as the response arrives. Demand from the subscriber controls how far the download runs
+     * ahead, so the whole payload is never held in memory.
+     *
+     * @param startDate the start date in format "YYYY-MM-DD"
+     * @param endDate   the end date in format "YYYY-MM-DD"
+     * @return price records in response order; fails with ServiceUnavailableException on fetch errors
+     */
+    Flux<ExternalPriceRecordDto> streamPriceHistoryByDateRange(String startDate, String endDate);
 }
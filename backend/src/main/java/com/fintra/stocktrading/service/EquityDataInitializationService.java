@@ -22,4 +22,13 @@ public interface EquityDataInitializationService {
      * Clears existing price history and fetches fresh data.
      */
     void initializePriceHistory();
+
+    /**
+     * Incrementally synchronizes equity data without clearing it:
+     * 1. Merges equity definitions from external API on equity code
+     * 2. Fetches price history from the first date of the last 30 days that any equity is missing,
+     *    skipping dates a completed sync already fetched
+     * 3. Merges prices on (equity, data date) in chunks, each committed on its own
+     */
+    void syncEquityData();
 }
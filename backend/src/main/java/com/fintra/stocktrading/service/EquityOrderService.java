@@ -3,6 +3,7 @@ package com.fintra.stocktrading.service;
 import com.fintra.stocktrading.model.dto.request.EquityOrderRequest;
 import com.fintra.stocktrading.model.dto.request.EquityOrderUpdateRequest;
 import com.fintra.stocktrading.model.dto.response.EquityOrderResponse;
+import com.fintra.stocktrading.model.dto.response.OrderAckResponse;
 
 public interface EquityOrderService {
     /**
@@ -15,6 +16,18 @@ public interface EquityOrderService {
      */
     EquityOrderResponse createOrder(EquityOrderRequest requestDto);
 
+    /**
+     * Validates the order, reserves its cash or shares and saves it, then hands it to its
+     * matching lane without waiting for the match. Fills are reported on the account's
+     * execution report stream.
+     *
+     * @param requestDto the order request containing account, equity, side, quantity, price, and expiration info
+     * @return the acknowledgement with the order ID and its entry sequence number
+     * @throws com.fintra.stocktrading.exception.NotFoundException if account or equity is not found
+     * @throws com.fintra.stocktrading.exception.BadRequestException if funds or shares are insufficient
+     */
+    OrderAckResponse submitOrder(EquityOrderRequest requestDto);
+
     /**
      * Cancels the given order by its ID, if it is not already finalized.
      *
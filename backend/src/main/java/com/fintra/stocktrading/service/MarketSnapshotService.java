@@ -0,0 +1,33 @@
+package com.fintra.stocktrading.service;
+
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+import com.fintra.stocktrading.model.dto.response.MarketSnapshotResponse;
+
+import java.util.List;
+import java.util.Set;
+
+public interface MarketSnapshotService {
+
+    /**
+     * Retrieves the latest prices and session activity of every equity from memory.
+     *
+     * @param fields optional set of item fields to include; all fields when {@code null} or empty.
+     *               {@code equityId} is always included.
+     * @return MarketSnapshotResponse with one item per equity
+     * @throws com.fintra.stocktrading.exception.BadRequestException if a field name is unknown
+     */
+    MarketSnapshotResponse getSnapshot(Set<String> fields);
+
+    /**
+     * Applies committed trades to the last price and day volume of their equities.
+     *
+     * @param events trades whose persistence has committed
+     */
+    void recordTrades(List<TradeMatchedEvent> events);
+
+    /**
+     * Reloads equities, their latest price records and the current session's trade totals
+     * from the database.
+     */
+    void reload();
+}
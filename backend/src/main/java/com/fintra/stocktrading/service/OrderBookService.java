@@ -1,6 +1,7 @@
 package com.fintra.stocktrading.service;
 
 import com.fintra.stocktrading.model.dto.response.OrderBookResponse;
+import com.fintra.stocktrading.model.dto.response.TopOfBookResponse;
 
 public interface OrderBookService {
 
@@ -14,6 +15,25 @@ public interface OrderBookService {
      */
     OrderBookResponse getOrderBookByEquityId(Integer equityId);
 
+    /**
+     * Retrieves the best {@code levels} price levels per side for a specific equity.
+     *
+     * @param equityId the ID of the equity to get orderbook for
+     * @param levels maximum number of price levels per side, at least 1
+     * @return OrderBookResponse containing at most {@code levels} bids and asks
+     * @throws com.fintra.stocktrading.exception.NotFoundException if equity is not found
+     */
+    OrderBookResponse getOrderBookByEquityId(Integer equityId, int levels);
+
+    /**
+     * Retrieves the best bid and best offer for a specific equity.
+     *
+     * @param equityId the ID of the equity to get the top of book for
+     * @return TopOfBookResponse with the best level of each side and the spread
+     * @throws com.fintra.stocktrading.exception.NotFoundException if equity is not found
+     */
+    TopOfBookResponse getTopOfBook(Integer equityId);
+
     /**
      * Retrieves the orderbook for a specific equity excluding a specific order ID.
      * Used for removing an order from the orderbook display after it's processed.
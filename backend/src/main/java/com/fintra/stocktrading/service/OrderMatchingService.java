@@ -5,13 +5,12 @@ import com.fintra.stocktrading.model.entity.EquityOrder;
 public interface OrderMatchingService {
     
     /**
-     * Matches all open orders in the system according to the matching rules.
-     * This method is typically called periodically or after significant order book changes.
-     * Uses price-time priority algorithm to match BUY and SELL orders.
+     * Matches all open orders of a single equity in price-time priority.
+     * Intended to run on the matching lane owning the equity.
      *
-     * @throws com.fintra.stocktrading.exception.OrderMatchingException if matching fails
+     * @param equityId the equity whose open orders should be matched
      */
-    void matchAllOpenOrders();
+    void matchOpenOrdersForEquity(Integer equityId);
 
     /**
      * Attempts to match a single newly created order against existing open counter orders
@@ -0,0 +1,22 @@
+package com.fintra.stocktrading.service;
+
+import com.fintra.stocktrading.model.dto.response.PriceBackfillResponse;
+
+import java.time.LocalDate;
+
+public interface PriceBackfillService {
+
+    /**
+     * Splits [from, to] into date windows, records the ones not yet known and starts loading
+     * every window of the range that is not done yet in the background. Windows are fetched
+     * concurrently, rate limited, and merged into the price history as they stream in.
+     *
+     * @throws com.fintra.stocktrading.exception.ConflictException when a backfill is already running
+     */
+    PriceBackfillResponse startBackfill(LocalDate from, LocalDate to);
+
+    /**
+     * Returns the state of every recorded window and whether a run is in progress.
+     */
+    PriceBackfillResponse getProgress();
+}
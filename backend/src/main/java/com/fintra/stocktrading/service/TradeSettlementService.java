@@ -1,5 +1,7 @@
 package com.fintra.stocktrading.service;
 
+import com.fintra.stocktrading.model.dto.response.SettlementPreviewResponse;
+
 import java.time.LocalDate;
 
 public interface TradeSettlementService {
@@ -11,4 +13,13 @@ public interface TradeSettlementService {
      * @return number of trades that were actually settled
      */
     int settleTradesOnDate(LocalDate tradeDate);
+
+    /**
+     * Dry run of {@link #settleTradesOnDate}: computes the net cash and share movements per
+     * account that settlement would apply, from one grouped query, without writing anything.
+     *
+     * @param tradeDate the date of trades to preview
+     * @return per-account net movements
+     */
+    SettlementPreviewResponse previewSettlement(LocalDate tradeDate);
 }
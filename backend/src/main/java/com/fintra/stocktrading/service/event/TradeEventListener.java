@@ -1,33 +1,96 @@
 package com.fintra.stocktrading.service.event;
 
 import com.fintra.stocktrading.event.TradeMatchedEvent;
-import com.fintra.stocktrading.service.OrderMatchingService;
+import com.fintra.stocktrading.service.matching.MatchingLaneScheduler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class TradeEventListener {
 
-    private final OrderMatchingService orderMatchingService;
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(TradeEventListener.class);
+
+    private final MatchingLaneScheduler matchingLaneScheduler;
 
+    /**
+     * Drains a whole poll batch: the buy and sell order IDs of all events are de-duplicated per
+     * equity and each equity gets a single rematch sweep on its lane, with the lanes working in
+     * parallel. A burst of fills on the same orders therefore costs one rematch per order.
+     * <p>
+     * A record that could not be decoded ends the batch: the events before it are processed and
+     * the record is reported to the error handler, which sends it to the dead-letter topic and
+     * redelivers the rest of the batch.
+     */
     @KafkaListener(
             topics = "${app.kafka.trade-matched-topic:trade-matched-events}",
             containerFactory = "tradeMatchedEventKafkaListenerContainerFactory"
     )
-    public void listen(TradeMatchedEvent event) {
-        log.info("KAFKA: Trade matched event: {}", event);
-        tryMatch(event.getBuyOrderId(), "buy");
-        tryMatch(event.getSellOrderId(), "sell");
+    public void listen(List<ConsumerRecord<String, TradeMatchedEvent>> records) {
+        for (int i = 0; i < records.size(); i++) {
+            DeserializationException failure = SerializationUtils.getExceptionFromHeader(
+                    records.get(i), SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+            if (failure != null) {
+                process(records.subList(0, i));
+                throw new BatchListenerFailedException("Undecodable trade matched event", failure, i);
+            }
+        }
+        process(records);
+    }
+
+    private void process(List<ConsumerRecord<String, TradeMatchedEvent>> records) {
+        if (records.isEmpty()) return;
+        Map<Integer, Set<Integer>> ordersByEquity = new TreeMap<>();
+        for (ConsumerRecord<String, TradeMatchedEvent> record : records) {
+            TradeMatchedEvent event = record.value();
+            if (event == null) continue;
+            if (event.getEquityId() == null) {
+                tryMatch(event.getBuyOrderId(), "buy");
+                tryMatch(event.getSellOrderId(), "sell");
+                continue;
+            }
+            Set<Integer> orderIds = ordersByEquity.computeIfAbsent(event.getEquityId(), id -> new LinkedHashSet<>());
+            if (event.getBuyOrderId() != null) orderIds.add(event.getBuyOrderId());
+            if (event.getSellOrderId() != null) orderIds.add(event.getSellOrderId());
+        }
+
+        List<CompletableFuture<Integer>> sweeps = new ArrayList<>(ordersByEquity.size());
+        ordersByEquity.forEach((equityId, orderIds) ->
+                sweeps.add(matchingLaneScheduler.submitRematch(equityId, orderIds)));
+
+        int rematched = 0;
+        for (CompletableFuture<Integer> sweep : sweeps) {
+            try {
+                rematched += matchingLaneScheduler.await(sweep);
+            } catch (Exception ex) {
+                log.warn("Rematch sweep failed: {}", ex.getMessage());
+            }
+        }
+
+        log.info("KAFKA: {} trade matched events, {} equities swept, {} orders rematched",
+                records.size(), ordersByEquity.size(), rematched);
     }
 
     private void tryMatch(Integer orderId, String tag) {
         if (orderId == null) { log.debug("Skip {}: null id", tag); return; }
         try {
-            orderMatchingService.matchOrder(orderId);
+            matchingLaneScheduler.await(matchingLaneScheduler.submitMatch(orderId));
         } catch (Exception ex) {
             log.warn("Match skipped for {}OrderId={}: {}", tag, orderId, ex.getMessage());
         }
@@ -0,0 +1,237 @@
+package com.fintra.stocktrading.service.event;
+
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+import com.fintra.stocktrading.event.codec.BinaryTradeMatchedEventCodec;
+import com.fintra.stocktrading.model.entity.TradeEventOutbox;
+import com.fintra.stocktrading.repository.TradeEventOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Transactional outbox for {@link TradeMatchedEvent}. Events are written to
+ * {@code trade_event_outbox} in the transaction that inserts their trades, so an event exists
+ * exactly when its trades do. The relay drains the table oldest first in batches and deletes
+ * the rows the broker acknowledged.
+ * <p>
+ * A batch is sent in one go, each equity's events in outbox order, so the producer batches and
+ * pipelines them; being idempotent, it keeps them in order within a partition. Once the sends
+ * have settled, each equity's rows are deleted up to its first event that was not
+ * acknowledged. That event and everything behind it stay in the outbox and are resent on the
+ * next drain, in order, so an equity's events are never skipped or overtaken; later ones that
+ * did arrive are delivered again. No new send starts after {@code send-timeout-ms}, and sends
+ * already started are awaited for up to the producer's {@code delivery.timeout.ms}, after which
+ * the producer has settled them; a failure therefore means the event was not written.
+ * <p>
+ * Delivery is at-least-once: a crash between acknowledgement and delete resends those events.
+ */
+@Component
+@Slf4j
+public class TradeEventOutboxRelay {
+
+    private static final String INSERT_OUTBOX =
+            "INSERT INTO trade_event_outbox (equity_id, match_id, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    // Rows are always stored in the binary layout; the Kafka wire codec is applied on send.
+    private final BinaryTradeMatchedEventCodec codec = new BinaryTradeMatchedEventCodec();
+
+    private final TradeEventOutboxRepository outboxRepository;
+    private final TradeEventPublisher tradeEventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final long deliveryTimeoutMs;
+
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final ExecutorService relay = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "outbox-relay");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public TradeEventOutboxRelay(TradeEventOutboxRepository outboxRepository,
+                                 TradeEventPublisher tradeEventPublisher,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.kafka.outbox.batch-size:500}") int batchSize,
+                                 @Value("${app.kafka.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+                                 @Value("${app.kafka.outbox.delivery-timeout-ms:120000}") long deliveryTimeoutMs) {
+        this.outboxRepository = outboxRepository;
+        this.tradeEventPublisher = tradeEventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.deliveryTimeoutMs = deliveryTimeoutMs;
+    }
+
+    /**
+     * Adds events to the outbox. Must run inside the transaction that writes their trades.
+     */
+    public void append(List<TradeMatchedEvent> events) {
+        if (events.isEmpty()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX, events, batchSize, (ps, e) -> {
+            ps.setInt(1, e.getEquityId());
+            ps.setInt(2, e.getMatchId());
+            ps.setBytes(3, codec.encode(e));
+            ps.setTimestamp(4, now);
+        });
+    }
+
+    /**
+     * Requests a drain on the relay thread without waiting for the next poll. Calls made while
+     * one is already pending are folded into it.
+     */
+    public void wakeUp() {
+        if (!relay.isShutdown() && wakeUpPending.compareAndSet(false, true)) {
+            relay.execute(() -> {
+                wakeUpPending.set(false);
+                drain();
+            });
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        wakeUp();
+    }
+
+    @Scheduled(fixedDelayString = "${app.kafka.outbox.poll-interval-ms:500}")
+    public void drain() {
+        if (!drainLock.tryLock()) return;
+        try {
+            while (true) {
+                List<TradeEventOutbox> batch = outboxRepository.findOldest(PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) return;
+
+                int relayed = relay(batch);
+                if (relayed < batch.size() || batch.size() < batchSize) return;
+            }
+        } catch (RuntimeException e) {
+            log.error("[OUTBOX] Relay failed, will retry: {}", e.getMessage(), e);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relay.shutdown();
+        try {
+            relay.awaitTermination(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends one batch and deletes the rows the broker acknowledged.
+     *
+     * @return the number of rows relayed
+     */
+    private int relay(List<TradeEventOutbox> batch) {
+        Map<Integer, List<TradeEventOutbox>> byEquity = new LinkedHashMap<>();
+        for (TradeEventOutbox row : batch) {
+            byEquity.computeIfAbsent(row.getEquityId(), id -> new ArrayList<>()).add(row);
+        }
+
+        long sendDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<List<CompletableFuture<SendResult<String, TradeMatchedEvent>>>> sends = new ArrayList<>(byEquity.size());
+        for (List<TradeEventOutbox> rows : byEquity.values()) {
+            sends.add(sendAll(rows, sendDeadline));
+        }
+
+        try {
+            CompletableFuture.allOf(sends.stream().flatMap(List::stream).toArray(CompletableFuture[]::new))
+                    .get(sendTimeoutMs + deliveryTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.debug("[OUTBOX] Some events were not acknowledged: {}", e.getCause().toString());
+        } catch (TimeoutException e) {
+            log.warn("[OUTBOX] Sends still unsettled after {} ms", sendTimeoutMs + deliveryTimeoutMs);
+        }
+
+        // Sends failed or still unsettled here end their equity's prefix; the rest is resent next drain.
+        List<Long> relayed = new ArrayList<>(batch.size());
+        int heldBack = 0;
+        int equity = 0;
+        for (List<TradeEventOutbox> rows : byEquity.values()) {
+            int acknowledged = acknowledgedPrefix(rows, sends.get(equity++));
+            rows.subList(0, acknowledged).forEach(row -> relayed.add(row.getOutboxId()));
+            if (acknowledged < rows.size()) heldBack++;
+        }
+        if (!relayed.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteByOutboxIds(relayed));
+        }
+        if (relayed.size() < batch.size()) {
+            log.warn("[OUTBOX] Relayed {} of {} events, {} equities held back for retry",
+                    relayed.size(), batch.size(), heldBack);
+        } else {
+            log.debug("[OUTBOX] Relayed {} events", relayed.size());
+        }
+        return relayed.size();
+    }
+
+    /**
+     * Starts the sends of one equity's rows in order without waiting for acknowledgements,
+     * stopping at a send that cannot be started or once the send deadline has passed.
+     */
+    private List<CompletableFuture<SendResult<String, TradeMatchedEvent>>> sendAll(List<TradeEventOutbox> rows,
+                                                                                  long sendDeadline) {
+        List<CompletableFuture<SendResult<String, TradeMatchedEvent>>> sends = new ArrayList<>(rows.size());
+        for (TradeEventOutbox row : rows) {
+            if (System.nanoTime() - sendDeadline >= 0) break;
+            try {
+                sends.add(tradeEventPublisher.publishTradeMatchedEvent(codec.decode(row.getPayload())));
+            } catch (RuntimeException e) {
+                log.debug("[OUTBOX] Event for match {} could not be sent: {}", row.getMatchId(), e.toString());
+                break;
+            }
+        }
+        return sends;
+    }
+
+    // Number of leading rows whose send completed successfully.
+    private static int acknowledgedPrefix(List<TradeEventOutbox> rows,
+                                          List<CompletableFuture<SendResult<String, TradeMatchedEvent>>> sends) {
+        for (int i = 0; i < sends.size(); i++) {
+            CompletableFuture<SendResult<String, TradeMatchedEvent>> send = sends.get(i);
+            if (!send.isDone() || send.isCompletedExceptionally()) {
+                log.debug("[OUTBOX] Event for match {} not acknowledged, holding back its equity",
+                        rows.get(i).getMatchId());
+                return i;
+            }
+        }
+        return sends.size();
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -18,15 +20,20 @@ public class TradeEventPublisher {
     @Value("${app.kafka.trade-matched-topic:trade-matched-events}")
     private String tradeMatchedTopic;
 
-    public void publishTradeMatchedEvent(TradeMatchedEvent event) {
-        log.info("Sending TradeMatchedEvent to Kafka: {}", event);
+    /**
+     * Sends the event keyed by equity ID, so all events of one symbol land on the same
+     * partition in order. The returned future completes when the broker acknowledges it.
+     */
+    public CompletableFuture<SendResult<String, TradeMatchedEvent>> publishTradeMatchedEvent(TradeMatchedEvent event) {
+        log.debug("Sending TradeMatchedEvent to Kafka: {}", event);
 
-        kafkaTemplate.send(tradeMatchedTopic, event)
+        String key = event.getEquityId() != null ? event.getEquityId().toString() : null;
+        return kafkaTemplate.send(tradeMatchedTopic, key, event)
                 .whenComplete((SendResult<String, TradeMatchedEvent> result, Throwable ex) -> {
                     if (ex == null && result != null && result.getRecordMetadata() != null) {
                         var md = result.getRecordMetadata();
-                        log.info("Successfully sent to topic='{}' (partition={}, offset={})",
-                                tradeMatchedTopic, md.partition(), md.offset());
+                        log.debug("Successfully sent to topic='{}' (key={}, partition={}, offset={})",
+                                tradeMatchedTopic, key, md.partition(), md.offset());
                     } else {
                         log.error("Failed to send TradeMatchedEvent to Kafka", ex);
                     }
@@ -0,0 +1,32 @@
+package com.fintra.stocktrading.service.expiry;
+
+import com.fintra.stocktrading.model.enums.OrderSide;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Flat projection of an order due to expire, carrying just what is needed to release its
+ * blocked cash or shares without loading the order, account or equity entities.
+ */
+@Getter
+@AllArgsConstructor
+public class ExpiringOrder {
+
+    private final Integer orderId;
+    private final Integer accountId;
+    private final Integer equityId;
+    private final OrderSide side;
+    private final Integer remainingQuantity;
+    private final BigDecimal price;
+
+    public boolean isReleasable() {
+        return remainingQuantity != null && remainingQuantity > 0
+                && price != null && price.signum() > 0;
+    }
+
+    public BigDecimal blockedAmount() {
+        return price.multiply(BigDecimal.valueOf(remainingQuantity));
+    }
+}
@@ -0,0 +1,163 @@
+package com.fintra.stocktrading.service.external;
+
+import com.fintra.stocktrading.model.dto.external.ExternalEquityInfoDto;
+import com.fintra.stocktrading.model.dto.response.EquityPriceResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Resident copy of the external equity definitions, indexed by ticker and by base code (the
+ * ticker without its {@code .E} suffix) so a lookup is two hash probes instead of a download.
+ * Each refresh also rebuilds the priced listing and its {@link EquityPrefixIndex}; when the
+ * listing cannot be loaded the previous one is kept.
+ * <p>
+ * The first access loads synchronously. Afterwards an access past the TTL returns the current
+ * copy and starts a refresh on a background thread; concurrent loads are folded into one. A
+ * failed refresh keeps the old copy and is retried after {@code retryAfter}.
+ */
+@Slf4j
+public class EquityCatalog {
+
+    private final Supplier<List<ExternalEquityInfoDto>> loader;
+    private final Function<List<ExternalEquityInfoDto>, List<EquityPriceResponse>> listingLoader;
+    private final long ttlNanos;
+    private final long retryNanos;
+
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "equity-catalog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile Snapshot snapshot;
+    private volatile long nextRefreshNanos;
+
+    private record Snapshot(List<ExternalEquityInfoDto> all,
+                            Map<String, ExternalEquityInfoDto> byTicker,
+                            Map<String, ExternalEquityInfoDto> byBaseCode,
+                            EquityPrefixIndex listing) {
+    }
+
+    public EquityCatalog(Supplier<List<ExternalEquityInfoDto>> loader,
+                         Function<List<ExternalEquityInfoDto>, List<EquityPriceResponse>> listingLoader,
+                         Duration ttl, Duration retryAfter) {
+        this.loader = loader;
+        this.listingLoader = listingLoader;
+        this.ttlNanos = ttl.toNanos();
+        this.retryNanos = retryAfter.toNanos();
+    }
+
+    public List<ExternalEquityInfoDto> all() {
+        return current().all();
+    }
+
+    /**
+     * Finds a definition by exact ticker, falling back to the base code so that
+     * {@code GARAN}, {@code GARAN.E} and {@code garan.e} resolve to the same equity.
+     *
+     * @return the definition, or {@code null} when none matches
+     */
+    public ExternalEquityInfoDto find(String assetCode) {
+        Snapshot current = current();
+        String code = assetCode.trim().toUpperCase(Locale.ROOT);
+        ExternalEquityInfoDto byTicker = current.byTicker().get(code);
+        return byTicker != null ? byTicker : current.byBaseCode().get(baseCode(code));
+    }
+
+    public EquityPrefixIndex listing() {
+        return current().listing();
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            try {
+                return refresh().join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        if (System.nanoTime() - nextRefreshNanos >= 0) {
+            refresh();
+        }
+        return current;
+    }
+
+    private CompletableFuture<Snapshot> refresh() {
+        while (true) {
+            CompletableFuture<Snapshot> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, mine)) {
+                refresher.execute(() -> load(mine));
+                return mine;
+            }
+        }
+    }
+
+    private void load(CompletableFuture<Snapshot> result) {
+        try {
+            List<ExternalEquityInfoDto> definitions = loader.get();
+            Snapshot loaded = index(definitions, loadListing(definitions));
+            snapshot = loaded;
+            nextRefreshNanos = System.nanoTime() + ttlNanos;
+            inFlight.set(null);
+            result.complete(loaded);
+            log.debug("[CATALOG] Loaded {} equity definitions, {} listed",
+                    loaded.all().size(), loaded.listing().size());
+        } catch (RuntimeException e) {
+            nextRefreshNanos = System.nanoTime() + retryNanos;
+            inFlight.set(null);
+            result.completeExceptionally(e);
+            log.warn("[CATALOG] Equity definitions refresh failed, {}: {}",
+                    snapshot != null ? "keeping previous copy" : "no copy available", e.getMessage());
+        }
+    }
+
+    private EquityPrefixIndex loadListing(List<ExternalEquityInfoDto> definitions) {
+        try {
+            return EquityPrefixIndex.of(listingLoader.apply(definitions));
+        } catch (RuntimeException e) {
+            Snapshot previous = snapshot;
+            log.warn("[CATALOG] Equity listing refresh failed, {}: {}",
+                    previous != null ? "keeping previous listing" : "listing empty", e.getMessage());
+            return previous != null ? previous.listing() : EquityPrefixIndex.empty();
+        }
+    }
+
+    private static Snapshot index(List<ExternalEquityInfoDto> definitions, EquityPrefixIndex listing) {
+        Map<String, ExternalEquityInfoDto> byTicker = new HashMap<>(definitions.size() * 2);
+        Map<String, ExternalEquityInfoDto> byBaseCode = new HashMap<>(definitions.size() * 2);
+        for (ExternalEquityInfoDto definition : definitions) {
+            if (definition.getTicker() == null) continue;
+            String ticker = definition.getTicker().toUpperCase(Locale.ROOT);
+            byTicker.putIfAbsent(ticker, definition);
+            byBaseCode.putIfAbsent(baseCode(ticker), definition);
+        }
+        return new Snapshot(List.copyOf(definitions), byTicker, byBaseCode, listing);
+    }
+
+    private static String baseCode(String code) {
+        int dot = code.indexOf('.');
+        return dot >= 0 ? code.substring(0, dot) : code;
+    }
+}
@@ -0,0 +1,122 @@
+package com.fintra.stocktrading.service.external;
+
+import com.fintra.stocktrading.model.dto.response.EquityPriceResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable prefix index over the equity listing. Entries are kept sorted by asset code, and
+ * equity names are held in a second sorted array pointing back into them, so the matches for
+ * a prefix are one contiguous run in each array, found by binary search.
+ * <p>
+ * A filtered page lists asset code matches first, in code order, followed by equities that
+ * match only by name, in name order. Reading a page costs O(log n + page size), plus the
+ * name-only matches skipped to reach the page offset.
+ */
+public final class EquityPrefixIndex {
+
+    private static final EquityPrefixIndex EMPTY = new EquityPrefixIndex(List.of());
+
+    private final EquityPriceResponse[] entries;
+    private final String[] codeKeys;
+    private final String[] nameKeys;
+    private final int[] nameOrder;
+
+    private EquityPrefixIndex(List<EquityPriceResponse> listing) {
+        this.entries = listing.stream()
+                .sorted(Comparator.comparing(e -> key(e.getAssetCode())))
+                .toArray(EquityPriceResponse[]::new);
+        this.codeKeys = Arrays.stream(entries).map(e -> key(e.getAssetCode())).toArray(String[]::new);
+
+        Integer[] byName = new Integer[entries.length];
+        for (int i = 0; i < byName.length; i++) byName[i] = i;
+        Arrays.sort(byName, Comparator.comparing(i -> key(entries[i].getEquityName())));
+        this.nameOrder = Arrays.stream(byName).mapToInt(Integer::intValue).toArray();
+        this.nameKeys = Arrays.stream(nameOrder).mapToObj(i -> key(entries[i].getEquityName())).toArray(String[]::new);
+    }
+
+    public static EquityPrefixIndex of(List<EquityPriceResponse> listing) {
+        return listing.isEmpty() ? EMPTY : new EquityPrefixIndex(listing);
+    }
+
+    public static EquityPrefixIndex empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Returns one page of the equities whose asset code or name starts with {@code filter},
+     * ignoring case; all equities when the filter is blank.
+     */
+    public List<EquityPriceResponse> page(String filter, int page, int size) {
+        long from = (long) page * size;
+        if (filter == null || filter.isBlank()) {
+            return slice(0, entries.length, from, size);
+        }
+
+        String prefix = key(filter.trim());
+        int codeStart = lowerBound(codeKeys, prefix);
+        int codeEnd = upperBound(codeKeys, prefix, codeStart);
+        int codeMatches = codeEnd - codeStart;
+
+        List<EquityPriceResponse> result = new ArrayList<>(Math.min(size, entries.length));
+        if (from < codeMatches) {
+            result.addAll(slice(codeStart, codeEnd, from, size));
+        }
+
+        long skip = Math.max(0, from - codeMatches);
+        int nameStart = lowerBound(nameKeys, prefix);
+        int nameEnd = upperBound(nameKeys, prefix, nameStart);
+        for (int i = nameStart; i < nameEnd && result.size() < size; i++) {
+            int entry = nameOrder[i];
+            if (codeKeys[entry].startsWith(prefix)) continue;
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            result.add(entries[entry]);
+        }
+        return result;
+    }
+
+    private List<EquityPriceResponse> slice(int start, int end, long offset, int size) {
+        if (offset >= end - start) return List.of();
+        int from = start + (int) offset;
+        int to = (int) Math.min(end, (long) from + size);
+        return Arrays.asList(entries).subList(from, to);
+    }
+
+    private static int lowerBound(String[] keys, String prefix) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // First index at or after start whose key no longer starts with the prefix.
+    private static int upperBound(String[] keys, String prefix, int start) {
+        int lo = start;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].startsWith(prefix)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
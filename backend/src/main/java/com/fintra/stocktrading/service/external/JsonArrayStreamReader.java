@@ -0,0 +1,128 @@
+package com.fintra.stocktrading.service.external;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incrementally reads the elements of one nested JSON array, e.g. {@code result.data.HisseFiyat},
+ * from a response delivered in chunks. Bytes are pushed through Jackson's non-blocking parser and
+ * only the tokens of the element being read are buffered, so memory stays bounded by the largest
+ * element rather than the whole payload. Everything outside the target array is skipped.
+ * <p>
+ * Not thread-safe; one instance per response.
+ */
+public class JsonArrayStreamReader<T> {
+
+    private final ObjectMapper mapper;
+    private final List<String> path;
+    private final Class<T> type;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    // Field names of the enclosing containers, root first; "" for the root and array items.
+    private final List<String> containers = new ArrayList<>();
+    private String pendingField;
+    private int targetDepth = -1;
+    private TokenBuffer element;
+    private int elementDepth;
+
+    public JsonArrayStreamReader(ObjectMapper mapper, List<String> path, Class<T> type) {
+        this.mapper = mapper;
+        this.path = List.copyOf(path);
+        this.type = type;
+        try {
+            this.parser = mapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Consumes one chunk, releasing it, and returns the elements it completed.
+     */
+    public List<T> feed(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            feeder.feedInput(bytes, 0, bytes.length);
+            return drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * Signals the end of the response and returns any elements still pending.
+     */
+    public List<T> complete() {
+        try {
+            feeder.endOfInput();
+            List<T> last = drain();
+            parser.close();
+            return last;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<T> drain() throws IOException {
+        List<T> completed = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (element != null) {
+                element.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    elementDepth++;
+                } else if (token.isStructEnd() && --elementDepth == 0) {
+                    completed.add(mapper.readValue(element.asParser(mapper), type));
+                    element = null;
+                }
+                continue;
+            }
+
+            switch (token) {
+                case FIELD_NAME -> pendingField = parser.currentName();
+                case START_OBJECT, START_ARRAY -> {
+                    if (token == JsonToken.START_OBJECT && containers.size() == targetDepth) {
+                        element = new TokenBuffer(parser);
+                        element.forceUseOfBigDecimal(true);
+                        element.copyCurrentEvent(parser);
+                        elementDepth = 1;
+                    } else {
+                        containers.add(pendingField != null ? pendingField : "");
+                        if (token == JsonToken.START_ARRAY && targetDepth < 0 && atPath()) {
+                            targetDepth = containers.size();
+                        }
+                    }
+                    pendingField = null;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    if (containers.size() == targetDepth) {
+                        targetDepth = -1;
+                    }
+                    containers.remove(containers.size() - 1);
+                }
+                default -> pendingField = null;
+            }
+        }
+        return completed;
+    }
+
+    private boolean atPath() {
+        return containers.size() == path.size() + 1
+                && containers.subList(1, containers.size()).equals(path);
+    }
+}
@@ -10,10 +10,18 @@ import com.fintra.stocktrading.service.CashBalanceService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -21,11 +29,23 @@ public class CashBalanceServiceImpl implements CashBalanceService {
 
     private final CashBalanceRepository cashBalanceRepository;
     private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
     private static final Logger log = LoggerFactory.getLogger(CashBalanceServiceImpl.class);
 
     private static final String ERR_ACCOUNT_NOT_FOUND = "Account not found: ";
     private static final String ERR_CASHBALANCE_NOT_FOUND_FOR_ACCOUNT = "CashBalance not found for account: ";
 
+    // Three parameters per account plus the timestamp stays well under SQL Server's 2100 limit.
+    private static final int DELTAS_PER_STATEMENT = 600;
+    private static final String APPLY_DELTAS_HEAD =
+            "UPDATE cb SET free_balance = cb.free_balance + d.free_delta, " +
+                    "blocked_balance = cb.blocked_balance + d.blocked_delta, updated_at = ? " +
+                    "OUTPUT inserted.account_id FROM cash_balances cb JOIN (VALUES ";
+    private static final String APPLY_DELTAS_ROW = "(?, CAST(? AS DECIMAL(18, 4)), CAST(? AS DECIMAL(18, 4)))";
+    private static final String APPLY_DELTAS_TAIL =
+            ") AS d (account_id, free_delta, blocked_delta) ON cb.account_id = d.account_id " +
+                    "WHERE cb.free_balance + d.free_delta >= 0 AND cb.blocked_balance + d.blocked_delta >= 0";
+
     private Account getAccountOrThrow(Integer accountId) {
         return accountRepository.findById(accountId)
                 .orElseThrow(() -> new NotFoundException(ERR_ACCOUNT_NOT_FOUND + accountId));
@@ -36,6 +56,19 @@ public class CashBalanceServiceImpl implements CashBalanceService {
         return cashBalanceRepository.findByAccount(account)
                 .orElseThrow(() -> new NotFoundException(ERR_CASHBALANCE_NOT_FOUND_FOR_ACCOUNT + id));
     }
+
+    /**
+     * Explains a guarded update that touched no row: throws if the account or its balance is
+     * missing, otherwise returns and the caller reports insufficient funds.
+     */
+    private void requireBalanceExists(Integer accountId) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new NotFoundException(ERR_ACCOUNT_NOT_FOUND + accountId);
+        }
+        if (cashBalanceRepository.findByAccount_AccountId(accountId).isEmpty()) {
+            throw new NotFoundException(ERR_CASHBALANCE_NOT_FOUND_FOR_ACCOUNT + accountId);
+        }
+    }
     @Override
     public CashBalanceResponse getBalanceByAccountId(Integer accountId) {
         Account account = getAccountOrThrow(accountId);
@@ -49,152 +82,121 @@ public class CashBalanceServiceImpl implements CashBalanceService {
                 .build();
     }
 
+    /**
+     * Debits and credits with one statement; the debit is guarded by the source's free balance.
+     */
     @Override
     @Transactional
     public void transfer(Integer fromAccountId, Integer toAccountId, BigDecimal amount) {
-        Account fromAcc = accountRepository.findById(fromAccountId)
-                .orElseThrow(() -> new NotFoundException("From account not found: " + fromAccountId));
-        Account toAcc = accountRepository.findById(toAccountId)
-                .orElseThrow(() -> new NotFoundException("To account not found: " + toAccountId));
-
-        CashBalance fromBal = cashBalanceRepository.findByAccount(fromAcc)
-                .orElseThrow(() -> new NotFoundException("CashBalance not found for account: " + fromAccountId));
-        CashBalance toBal = cashBalanceRepository.findByAccount(toAcc)
-                .orElseThrow(() -> new NotFoundException("CashBalance not found for account: " + toAccountId));
+        if (fromAccountId.equals(toAccountId)) {
+            if (!hasEnoughBalance(fromAccountId, amount)) {
+                throw new IllegalArgumentException("Insufficient cash balance: " + fromAccountId);
+            }
+            return;
+        }
 
-        if (fromBal.getFreeBalance().compareTo(amount) < 0) {
+        int updated = cashBalanceRepository.transferFree(fromAccountId, toAccountId, amount, LocalDateTime.now());
+        if (updated != 2) {
+            requireBalanceExists(fromAccountId);
+            requireBalanceExists(toAccountId);
+            // The credit may have been applied alone; throwing rolls it back.
             throw new IllegalArgumentException("Insufficient cash balance: " + fromAccountId);
         }
-        fromBal.setFreeBalance(fromBal.getFreeBalance().subtract(amount));
-        toBal.setFreeBalance(toBal.getFreeBalance().add(amount));
-
-        cashBalanceRepository.save(fromBal);
-        cashBalanceRepository.save(toBal);
     }
 
     @Override
     @Transactional
     public void reduceBlockedBalance(Integer accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new NotFoundException("Account not found: " + accountId));
-
-        CashBalance balance = cashBalanceRepository.findByAccount(account)
-                .orElseThrow(() -> new NotFoundException("CashBalance not found for account: " + accountId));
-
-        if (balance.getBlockedBalance().compareTo(amount) < 0) {
+        if (cashBalanceRepository.reduceBlocked(accountId, amount, LocalDateTime.now()) == 0) {
+            requireBalanceExists(accountId);
             throw new IllegalArgumentException("Insufficient blocked balance: " + accountId);
         }
-
-        balance.setBlockedBalance(balance.getBlockedBalance().subtract(amount));
-        cashBalanceRepository.save(balance);
     }
 
     @Override
     @Transactional
     public void addFreeBalance(Integer accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new NotFoundException("Account not found: " + accountId));
-
-        CashBalance balance = cashBalanceRepository.findByAccount(account)
-                .orElseThrow(() -> new NotFoundException("CashBalance not found for account: " + accountId));
-
-        balance.setFreeBalance(balance.getFreeBalance().add(amount));
-        cashBalanceRepository.save(balance);
+        if (cashBalanceRepository.addFree(accountId, amount, LocalDateTime.now()) == 0) {
+            requireBalanceExists(accountId);
+        }
     }
 
     @Override
     @Transactional
     public void moveBlockedToFree(Integer accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new NotFoundException("Account not found: " + accountId));
-
-        CashBalance balance = cashBalanceRepository.findByAccount(account)
-                .orElseThrow(() -> new NotFoundException("CashBalance not found for account: " + accountId));
+        log.debug("moveBlockedToFree: accountId={}, requestedAmount={}", accountId, amount);
 
-        log.debug("moveBlockedToFree: accountId={}, requestedAmount={}, currentBlocked={}, currentFree={}", 
-                 accountId, amount, balance.getBlockedBalance(), balance.getFreeBalance());
-
-        if (balance.getBlockedBalance().compareTo(amount) < 0) {
-            log.error("Insufficient blocked balance: accountId={}, requestedAmount={}, availableBlocked={}", 
-                     accountId, amount, balance.getBlockedBalance());
-            throw new IllegalArgumentException("Insufficient blocked balance: requested=" + amount + 
-                                             ", available=" + balance.getBlockedBalance() + 
+        if (cashBalanceRepository.releaseBlocked(accountId, amount, LocalDateTime.now()) == 0) {
+            requireBalanceExists(accountId);
+            log.error("Insufficient blocked balance: accountId={}, requestedAmount={}", accountId, amount);
+            throw new IllegalArgumentException("Insufficient blocked balance: requested=" + amount +
                                              ", accountId=" + accountId);
         }
-
-        balance.setBlockedBalance(balance.getBlockedBalance().subtract(amount));
-        balance.setFreeBalance(balance.getFreeBalance().add(amount));
-        cashBalanceRepository.save(balance);
-        
-        log.debug("moveBlockedToFree completed: accountId={}, newBlocked={}, newFree={}", 
-                 accountId, balance.getBlockedBalance(), balance.getFreeBalance());
     }
 
     @Override
     @Transactional
     public void blockBalance(Integer accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new NotFoundException("Account not found: " + accountId));
-
-        CashBalance balance = cashBalanceRepository.findByAccount(account)
-                .orElseThrow(() -> new NotFoundException("CashBalance not found for account: " + accountId));
-
-        log.debug("blockBalance: accountId={}, requestedAmount={}, currentFree={}, currentBlocked={}", 
-                 accountId, amount, balance.getFreeBalance(), balance.getBlockedBalance());
+        log.debug("blockBalance: accountId={}, requestedAmount={}", accountId, amount);
 
-        if (balance.getFreeBalance().compareTo(amount) < 0) {
-            log.error("Insufficient free balance to block: accountId={}, requestedAmount={}, availableFree={}", 
-                     accountId, amount, balance.getFreeBalance());
-            throw new IllegalArgumentException("Insufficient free balance: requested=" + amount + 
-                                             ", available=" + balance.getFreeBalance() + 
+        if (cashBalanceRepository.blockFree(accountId, amount, LocalDateTime.now()) == 0) {
+            requireBalanceExists(accountId);
+            log.error("Insufficient free balance to block: accountId={}, requestedAmount={}", accountId, amount);
+            throw new IllegalArgumentException("Insufficient free balance: requested=" + amount +
                                              ", accountId=" + accountId);
         }
-
-        balance.setFreeBalance(balance.getFreeBalance().subtract(amount));
-        balance.setBlockedBalance(balance.getBlockedBalance().add(amount));
-        cashBalanceRepository.save(balance);
-        
-        log.debug("blockBalance completed: accountId={}, newFree={}, newBlocked={}", 
-                 accountId, balance.getFreeBalance(), balance.getBlockedBalance());
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean hasEnoughBalance(Integer accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new NotFoundException("Account not found: " + accountId));
-
-        CashBalance balance = cashBalanceRepository.findByAccount(account)
-                .orElseThrow(() -> new NotFoundException("CashBalance not found for account: " + accountId));
-
+        CashBalance balance = cashBalanceRepository.findByAccount_AccountId(accountId).orElse(null);
+        if (balance == null) {
+            requireBalanceExists(accountId);
+            throw new NotFoundException(ERR_CASHBALANCE_NOT_FOUND_FOR_ACCOUNT + accountId);
+        }
         return balance.getFreeBalance().compareTo(amount) >= 0;
     }
 
     @Override
     @Transactional
     public void unblockBalance(Integer accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new NotFoundException("Account not found: " + accountId));
+        log.debug("unblockBalance: accountId={}, requestedAmount={}", accountId, amount);
 
-        CashBalance balance = cashBalanceRepository.findByAccount(account)
-                .orElseThrow(() -> new NotFoundException("CashBalance not found for account: " + accountId));
-
-        log.debug("unblockBalance: accountId={}, requestedAmount={}, currentBlocked={}, currentFree={}", 
-                 accountId, amount, balance.getBlockedBalance(), balance.getFreeBalance());
-
-        if (balance.getBlockedBalance().compareTo(amount) < 0) {
-            log.error("Insufficient blocked balance to unblock: accountId={}, requestedAmount={}, availableBlocked={}", 
-                     accountId, amount, balance.getBlockedBalance());
-            throw new IllegalArgumentException("Insufficient blocked balance: requested=" + amount + 
-                                             ", available=" + balance.getBlockedBalance() + 
+        if (cashBalanceRepository.releaseBlocked(accountId, amount, LocalDateTime.now()) == 0) {
+            requireBalanceExists(accountId);
+            log.error("Insufficient blocked balance to unblock: accountId={}, requestedAmount={}", accountId, amount);
+            throw new IllegalArgumentException("Insufficient blocked balance: requested=" + amount +
                                              ", accountId=" + accountId);
         }
+    }
+
+    @Override
+    @Transactional
+    public Set<Integer> applyDeltas(Map<Integer, BalanceDelta> deltas) {
+        Set<Integer> applied = new HashSet<>(deltas.size() * 2);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<Integer, BalanceDelta>> entries = new ArrayList<>(deltas.entrySet());
+
+        for (int from = 0; from < entries.size(); from += DELTAS_PER_STATEMENT) {
+            List<Map.Entry<Integer, BalanceDelta>> batch =
+                    entries.subList(from, Math.min(from + DELTAS_PER_STATEMENT, entries.size()));
+
+            StringBuilder sql = new StringBuilder(APPLY_DELTAS_HEAD);
+            List<Object> args = new ArrayList<>(batch.size() * 3 + 1);
+            args.add(now);
+            for (int i = 0; i < batch.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(APPLY_DELTAS_ROW);
+                args.add(batch.get(i).getKey());
+                args.add(batch.get(i).getValue().freeDelta());
+                args.add(batch.get(i).getValue().blockedDelta());
+            }
+            sql.append(APPLY_DELTAS_TAIL);
+
+            applied.addAll(jdbcTemplate.queryForList(sql.toString(), Integer.class, args.toArray()));
+        }
 
-        balance.setBlockedBalance(balance.getBlockedBalance().subtract(amount));
-        balance.setFreeBalance(balance.getFreeBalance().add(amount));
-        cashBalanceRepository.save(balance);
-        
-        log.debug("unblockBalance completed: accountId={}, newBlocked={}, newFree={}", 
-                 accountId, balance.getBlockedBalance(), balance.getFreeBalance());
+        log.debug("applyDeltas: applied {} of {} account deltas", applied.size(), deltas.size());
+        return applied;
     }
 }
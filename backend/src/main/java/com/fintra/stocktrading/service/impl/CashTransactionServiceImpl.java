@@ -14,6 +14,7 @@ import com.fintra.stocktrading.repository.AccountRepository;
 import com.fintra.stocktrading.repository.CashBalanceRepository;
 import com.fintra.stocktrading.repository.CashTransactionRepository;
 import com.fintra.stocktrading.service.CashTransactionService;
+import com.fintra.stocktrading.service.risk.RiskLedger;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -28,10 +29,12 @@ public class CashTransactionServiceImpl implements CashTransactionService {
     private final AccountRepository accountRepository;
     private final CashBalanceRepository cashBalanceRepository;
     private final CashTransactionRepository cashTransactionRepository;
+    private final RiskLedger riskLedger;
 
     @Override
     @Transactional
     public CashTransactionResponse deposit(CashDepositRequest request) {
+        riskLedger.lockForUpdate(request.getAccountId());
         Account account = findAccountById(request.getAccountId());
         CashBalance cashBalance = findCashBalanceByAccount(account);
 
@@ -58,6 +61,7 @@ public class CashTransactionServiceImpl implements CashTransactionService {
     @Override
     @Transactional
     public CashTransactionResponse withdraw(CashWithdrawRequest request) {
+        riskLedger.lockForUpdate(request.getAccountId());
         Account account = findAccountById(request.getAccountId());
         CashBalance cashBalance = findCashBalanceByAccount(account);
 
@@ -88,6 +92,7 @@ public class CashTransactionServiceImpl implements CashTransactionService {
     @Override
     @Transactional
     public CashTransactionResponse transfer(CashTransferRequest request) {
+        riskLedger.lockForUpdate(request.getSenderAccountId(), request.getReceiverAccountId());
         Account sender = findAccountById(request.getSenderAccountId());
         Account receiver = findAccountById(request.getReceiverAccountId());
         CashBalance senderBalance = findCashBalanceByAccount(sender);
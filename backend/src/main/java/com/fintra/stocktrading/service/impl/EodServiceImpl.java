@@ -1,10 +1,11 @@
 package com.fintra.stocktrading.service.impl;
 
 import com.fintra.stocktrading.service.*;
+import com.fintra.stocktrading.service.matching.FillPersistenceStage;
+import com.fintra.stocktrading.service.risk.RiskLedger;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 
@@ -17,23 +18,32 @@ public class EodServiceImpl implements EodService {
     private final TradeSettlementService tradeSettlementService;
     private final EquityOrderExpireService orderExpireService;
     private final SystemDateService systemDateService;
+    private final FillPersistenceStage fillPersistenceStage;
+    private final RiskLedger riskLedger;
 
     @Override
-    @Transactional
     public void runEndOfDay() {
         LocalDate today = systemDateService.getTDate();
         log.info("Starting EOD process for date: {}", today);
 
         try {
+            // Expiry and settlement write balances directly; start them from a reconciled ledger.
+            int drifted = riskLedger.reconcile();
+            log.info("Risk ledger reconciled before EOD ({} accounts drifted)", drifted);
+
             log.info("Step 1: Expiring old orders for date {}", today);
             int expiredOrdersCount = orderExpireService.expireOldOrders(today);
             log.info("Step 1 COMPLETED: Expired {} orders", expiredOrdersCount);
 
+            fillPersistenceStage.flush();
+
             LocalDate tradeDateToSettle = businessDayService.getBusinessDayBefore(today, 2);
             log.info("Step 2: Running T+2 settlement for trades dated {}", tradeDateToSettle);
             int settledTradesCount = tradeSettlementService.settleTradesOnDate(tradeDateToSettle);
             log.info("Step 2 COMPLETED: Settled {} trades for date {}", settledTradesCount, tradeDateToSettle);
 
+            riskLedger.evictAll();
+
             log.info("Step 3: Advancing system date");
             LocalDate nextBusinessDay = businessDayService.getBusinessDayAfter(today, 1);
             LocalDate updated = systemDateService.updateTDate(nextBusinessDay);
@@ -44,7 +54,7 @@ public class EodServiceImpl implements EodService {
 
         } catch (Exception ex) {
             log.error("CRITICAL ERROR during EOD process for date {}: {}", today, ex.getMessage(), ex);
-            log.error("Transaction will be rolled back due to this error");
+            log.error("System date was not advanced; rerun EOD to resume from the failed step");
 
             throw new RuntimeException("EOD process failed for date " + today + ": " + ex.getMessage(), ex);
         }
@@ -1,8 +1,6 @@
 package com.fintra.stocktrading.service.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fintra.stocktrading.exception.ServiceUnavailableException;
 import com.fintra.stocktrading.mapper.EquityMapper;
@@ -10,22 +8,33 @@ import com.fintra.stocktrading.model.dto.external.ExternalEquityInfoDto;
 import com.fintra.stocktrading.model.dto.external.ExternalPriceRecordDto;
 import com.fintra.stocktrading.model.dto.response.EquityPriceResponse;
 import com.fintra.stocktrading.service.EquityApiService;
+import com.fintra.stocktrading.service.external.EquityCatalog;
+import com.fintra.stocktrading.service.external.JsonArrayStreamReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class EquityApiServiceImpl implements EquityApiService {
 
+    private static final List<String> EQUITY_INFO_PATH = List.of("result", "data", "HisseTanim");
+    private static final List<String> PRICE_PATH = List.of("result", "data", "HisseFiyat");
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
     @Value("${INFINA_API_INFO_URL}")
     private String infoUrl;
 
@@ -35,45 +44,44 @@ public class EquityApiServiceImpl implements EquityApiService {
     @Value("${INFINA_API_INFO_KEY}")
     private String apiKey;
 
-    private final WebClient webClient;
-    private final EquityMapper equityMapper;
-
-    @Override
-    public List<ExternalEquityInfoDto> getEquityInfoFromExternalApi() {
-        String url = infoUrl + "?security_type=Stock&api_key=" + apiKey;
+    @Value("${app.equity-catalog.ttl-seconds:3600}")
+    private long catalogTtlSeconds;
 
-        try {
-            log.debug("Fetching equity info from external API: {}", infoUrl + "?security_type=Stock&api_key=***");
+    @Value("${app.equity-catalog.retry-seconds:30}")
+    private long catalogRetrySeconds;
 
-            String json = webClient.get()
-                    .uri(url)
-                    .header("User-Agent", "curl/7.68.0")
-                    .header("Accept", "application/json")
-                    .header("Content-Type", "application/json")
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
+    private final WebClient webClient;
+    private final EquityMapper equityMapper;
 
-            ObjectMapper mapper = new ObjectMapper()
-                    .registerModule(new JavaTimeModule());
-            mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private EquityCatalog catalog;
 
-            JsonNode root = mapper.readTree(json);
-            JsonNode array = root.path("result").path("data").path("HisseTanim");
+    @PostConstruct
+    void initCatalog() {
+        catalog = new EquityCatalog(this::fetchEquityInfo,
+                definitions -> equityMapper.toEquityPriceResponses(definitions, getAllPricesFromApi()),
+                Duration.ofSeconds(catalogTtlSeconds), Duration.ofSeconds(catalogRetrySeconds));
+    }
 
-            if (!array.isArray()) {
-                log.warn("Expected array but got different structure from equity info API");
-                return Collections.emptyList();
-            }
+    @PreDestroy
+    void shutdownCatalog() {
+        catalog.shutdown();
+    }
 
-            ExternalEquityInfoDto[] dtos = mapper.treeToValue(array, ExternalEquityInfoDto[].class);
-            log.info("Successfully fetched {} equity info records from external API", dtos.length);
-            return List.of(dtos);
+    @Override
+    public List<ExternalEquityInfoDto> getEquityInfoFromExternalApi() {
+        return catalog.all();
+    }
 
-        } catch (Exception e) {
-            log.error("Error fetching equity info from URL: {}", infoUrl + "?security_type=Stock&api_key=***", e);
-            throw new ServiceUnavailableException("Failed to fetch equity info from external API: " + infoUrl + "?security_type=Stock&api_key=***", e);
-        }
+    private List<ExternalEquityInfoDto> fetchEquityInfo() {
+        String url = infoUrl + "?security_type=Stock&api_key=" + apiKey;
+        String sanitizedUrl = infoUrl + "?security_type=Stock&api_key=***";
+
+        log.debug("Fetching equity info from external API: {}", sanitizedUrl);
+        List<ExternalEquityInfoDto> dtos = streamArray(url, sanitizedUrl, EQUITY_INFO_PATH, ExternalEquityInfoDto.class)
+                .collectList()
+                .block();
+        log.info("Successfully fetched {} equity info records from external API", dtos.size());
+        return dtos;
     }
 
     @Override
@@ -112,47 +120,33 @@ public class EquityApiServiceImpl implements EquityApiService {
     }
 
     private List<ExternalPriceRecordDto> fetchPriceDataFromUrl(String url) {
-        try {
-            log.debug("Fetching price data from URL: {}", url.replace(apiKey, "***"));
-
-            String json = webClient.get()
-                    .uri(url)
-                    .header("User-Agent", "curl/7.68.0")
-                    .header("Accept", "application/json")
-                    .header("Content-Type", "application/json")
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            log.info("API Response received, length: {} characters", json != null ? json.length() : 0);
-            log.debug("API Response content: {}", json);
-
-            ObjectMapper mapper = new ObjectMapper()
-                    .registerModule(new JavaTimeModule());
-
-            JsonNode root = mapper.readTree(json);
-            JsonNode array = root.path("result").path("data").path("HisseFiyat");
-
-            log.info("JSON parsing - root exists: {}", !root.isMissingNode());
-            log.info("JSON parsing - result exists: {}", !root.path("result").isMissingNode());
-            log.info("JSON parsing - data exists: {}", !root.path("result").path("data").isMissingNode());
-            log.info("JSON parsing - HisseFiyat exists: {}", !array.isMissingNode());
-            log.info("JSON parsing - HisseFiyat is array: {}", array.isArray());
-            log.info("JSON parsing - HisseFiyat array size: {}", array.isArray() ? array.size() : 0);
-
-            if (!array.isArray()) {
-                log.warn("Expected array but got different structure from price data API");
-                return Collections.emptyList();
-            }
-
-            ExternalPriceRecordDto[] dtos = mapper.treeToValue(array, ExternalPriceRecordDto[].class);
-            log.info("Successfully parsed {} price records from API", dtos.length);
-            return List.of(dtos);
+        return streamArray(url, url.replace(apiKey, "***"), PRICE_PATH, ExternalPriceRecordDto.class)
+                .collectList()
+                .block();
+    }
 
-        } catch (Exception e) {
-            log.error("Error fetching price data from URL: {}", url.replace(apiKey, "***"), e);
-            throw new ServiceUnavailableException("Failed to fetch price data from external API: " + url.replace(apiKey, "***"), e);
-        }
+    /**
+     * Streams the elements of the array at {@code path} in the response body as they arrive.
+     * Chunks are requested on demand, so a slow subscriber throttles the download instead of
+     * the body being buffered.
+     */
+    private <T> Flux<T> streamArray(String url, String sanitizedUrl, List<String> path, Class<T> type) {
+        return Flux.defer(() -> {
+                    JsonArrayStreamReader<T> reader = new JsonArrayStreamReader<>(mapper, path, type);
+                    return webClient.get()
+                            .uri(url)
+                            .header("User-Agent", "curl/7.68.0")
+                            .header("Accept", "application/json")
+                            .header("Content-Type", "application/json")
+                            .retrieve()
+                            .bodyToFlux(DataBuffer.class)
+                            .concatMapIterable(reader::feed)
+                            .concatWith(Flux.defer(() -> Flux.fromIterable(reader.complete())));
+                })
+                .onErrorMap(e -> !(e instanceof ServiceUnavailableException), e -> {
+                    log.error("Error fetching data from URL: {}", sanitizedUrl, e);
+                    return new ServiceUnavailableException("Failed to fetch data from external API: " + sanitizedUrl, e);
+                });
     }
 
     @Override
@@ -164,36 +158,12 @@ public class EquityApiServiceImpl implements EquityApiService {
 
     @Override
     public List<EquityPriceResponse> getEquitiesForFrontend(int page, int size, String filter) {
-        List<EquityPriceResponse> all = getAllEquities();
-
-        List<EquityPriceResponse> filtered = all.stream()
-                .filter(e -> {
-                    if (filter == null || filter.isBlank()) return true;
-                    String term = filter.trim().toLowerCase();
-                    return e.getAssetCode().toLowerCase().startsWith(term)
-                            || e.getEquityName().toLowerCase().startsWith(term);
-                })
-                .collect(Collectors.toList());
-
-        int fromIndex = page * size;
-        if (fromIndex >= filtered.size()) return Collections.emptyList();
-        int toIndex = Math.min(fromIndex + size, filtered.size());
-        return filtered.subList(fromIndex, toIndex);
+        return catalog.listing().page(filter, page, size);
     }
 
     @Override
     public ExternalEquityInfoDto getEquityInfoByAssetCode(String assetCode) {
-        String code = assetCode.trim();
-        String requestedPrefix = code.contains(".") ? code.split("\\.")[0] : code;
-
-        return getEquityInfoFromExternalApi().stream()
-                .filter(e -> {
-                    String ticker = e.getTicker();
-                    String baseCode = ticker.contains(".") ? ticker.split("\\.")[0] : ticker;
-                    return ticker.equalsIgnoreCase(code) || baseCode.equalsIgnoreCase(requestedPrefix);
-                })
-                .findFirst()
-                .orElse(null);
+        return catalog.find(assetCode);
     }
 
     @Override
@@ -211,15 +181,8 @@ public class EquityApiServiceImpl implements EquityApiService {
 
     @Override
     public List<ExternalPriceRecordDto> getAllPriceHistoryByDateRange(String startDate, String endDate) {
-        String dateRangeParam = "[" + startDate + "," + endDate + "]";
-
-        String url = priceUrl + "?data_date=" + dateRangeParam + "&api_key=" + apiKey;
-
         try {
-            log.info("Fetching batch price history from external API: {}", priceUrl + "?data_date=" + dateRangeParam + "&api_key=***");
-            log.info("Date range parameter: {}", dateRangeParam);
-            log.info("Manual URL (sanitized): {}", priceUrl + "?data_date=" + dateRangeParam + "&api_key=***");
-            List<ExternalPriceRecordDto> result = fetchPriceDataFromUrl(url);
+            List<ExternalPriceRecordDto> result = streamPriceHistoryByDateRange(startDate, endDate).collectList().block();
             log.info("Batch API returned {} price records", result.size());
             return result;
         } catch (Exception e) {
@@ -227,4 +190,14 @@ public class EquityApiServiceImpl implements EquityApiService {
             return Collections.emptyList();
         }
     }
+
+    @Override
+    public Flux<ExternalPriceRecordDto> streamPriceHistoryByDateRange(String startDate, String endDate) {
+        String dateRangeParam = "[" + startDate + "," + endDate + "]";
+        String url = priceUrl + "?data_date=" + dateRangeParam + "&api_key=" + apiKey;
+        String sanitizedUrl = priceUrl + "?data_date=" + dateRangeParam + "&api_key=***";
+
+        log.info("Streaming batch price history from external API: {}", sanitizedUrl);
+        return streamArray(url, sanitizedUrl, PRICE_PATH, ExternalPriceRecordDto.class);
+    }
 }
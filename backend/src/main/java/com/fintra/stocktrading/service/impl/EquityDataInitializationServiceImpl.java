@@ -1,32 +1,66 @@
 package com.fintra.stocktrading.service.impl;
 
+import com.fintra.stocktrading.exception.ServiceUnavailableException;
 import com.fintra.stocktrading.model.dto.external.ExternalEquityInfoDto;
 import com.fintra.stocktrading.model.dto.external.ExternalPriceRecordDto;
 import com.fintra.stocktrading.model.entity.Equity;
 import com.fintra.stocktrading.model.entity.EquityPriceHistory;
+import com.fintra.stocktrading.model.entity.PriceSyncCheckpoint;
 import com.fintra.stocktrading.model.enums.EquityType;
 import com.fintra.stocktrading.repository.EquityPriceHistoryRepository;
 import com.fintra.stocktrading.repository.EquityRepository;
+import com.fintra.stocktrading.repository.PriceSyncCheckpointRepository;
 import com.fintra.stocktrading.service.EquityApiService;
 import com.fintra.stocktrading.service.EquityDataInitializationService;
+import com.fintra.stocktrading.service.pricehistory.EquityPriceDate;
+import com.fintra.stocktrading.service.pricehistory.PriceHistoryWriter;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EquityDataInitializationServiceImpl implements EquityDataInitializationService {
 
+    private static final String INSERT_PRICE_HISTORY =
+            "INSERT INTO equity_price_histories (equity_id, data_date, open_price, close_price, high_price, low_price, " +
+                    "record_time, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // SQL Server allows 2100 parameters per statement; rows are sized to stay below it.
+    private static final int EQUITIES_PER_MERGE = 250;
+    private static final String MERGE_EQUITIES_HEAD =
+            "MERGE equities WITH (HOLDLOCK) AS t USING (VALUES ";
+    private static final String MERGE_EQUITIES_ROW = "(?, ?, ?, ?, ?, ?, CAST(? AS BIT))";
+    private static final String MERGE_EQUITIES_TAIL =
+            ") AS s (equity_code, ticker, equity_name, market, country, index_info, participation) " +
+                    "ON t.equity_code = s.equity_code " +
+                    "WHEN MATCHED THEN UPDATE SET ticker = s.ticker, equity_name = s.equity_name, market = s.market, " +
+                    "country = s.country, index_info = s.index_info, participation = s.participation, updated_at = ? " +
+                    "WHEN NOT MATCHED THEN INSERT (equity_code, ticker, equity_name, market, country, index_info, " +
+                    "participation, equity_type, created_at, updated_at) VALUES (s.equity_code, s.ticker, s.equity_name, " +
+                    "s.market, s.country, s.index_info, s.participation, ?, ?, ?);";
+
     private final EquityRepository equityRepository;
     private final EquityPriceHistoryRepository priceHistoryRepository;
     private final EquityApiService equityApiService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PriceHistoryWriter priceHistoryWriter;
+    private final PriceSyncCheckpointRepository syncCheckpointRepository;
+
+    @Value("${app.equity-import.batch-size:1000}")
+    private int batchSize;
 
     @Override
     @Transactional
@@ -47,6 +81,155 @@ public class EquityDataInitializationServiceImpl implements EquityDataInitializa
         }
     }
 
+    /**
+     * Brings equities and their price history up to date without clearing anything. Definitions
+     * are merged on equity code; prices in the 30-day window are fetched from the first date not
+     * yet covered by a completed sync that some equity lacks, and merged on (equity_id, data_date).
+     * Each MERGE statement runs in its own transaction, so an interrupted sync keeps what it wrote
+     * and, having recorded no checkpoint, the next one fetches the same dates again.
+     */
+    @Override
+    public void syncEquityData() {
+        long t0 = System.currentTimeMillis();
+        int definitions = syncEquityDefinitions();
+        int prices = syncPriceHistory();
+        log.info("Equity data sync completed in {} ms: {} definitions, {} price records merged",
+                System.currentTimeMillis() - t0, definitions, prices);
+    }
+
+    private int syncEquityDefinitions() {
+        Map<String, Equity> uniqueEquities = new LinkedHashMap<>();
+        for (ExternalEquityInfoDto dto : equityApiService.getEquityInfoFromExternalApi()) {
+            if (isValidEquityInfo(dto)) {
+                Equity equity = convertToEquityEntity(dto);
+                uniqueEquities.putIfAbsent(equity.getEquityCode(), equity);
+            }
+        }
+
+        List<Equity> equities = new ArrayList<>(uniqueEquities.values());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < equities.size(); from += EQUITIES_PER_MERGE) {
+            List<Equity> chunk = equities.subList(from, Math.min(from + EQUITIES_PER_MERGE, equities.size()));
+
+            StringBuilder sql = new StringBuilder(MERGE_EQUITIES_HEAD);
+            List<Object> args = new ArrayList<>(chunk.size() * 7 + 4);
+            for (int i = 0; i < chunk.size(); i++) {
+                Equity e = chunk.get(i);
+                sql.append(i == 0 ? "" : ", ").append(MERGE_EQUITIES_ROW);
+                args.addAll(Arrays.asList(e.getEquityCode(), e.getTicker(), e.getEquityName(), e.getMarket(),
+                        e.getCountry(), e.getIndexInfo(), e.getParticipation()));
+            }
+            sql.append(MERGE_EQUITIES_TAIL);
+            args.addAll(List.of(now, EquityType.STOCK.name(), now, now));
+
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(sql.toString(), args.toArray()));
+        }
+        log.debug("Merged {} equity definitions", equities.size());
+        return equities.size();
+    }
+
+    private int syncPriceHistory() {
+        LocalDate endDate = LocalDate.now().minusDays(1);
+        LocalDate startDate = endDate.minusDays(30);
+
+        Map<String, Equity> equityLookupMap = priceHistoryWriter.equityLookup();
+        if (equityLookupMap.isEmpty()) {
+            log.warn("No equities to sync price history for");
+            return 0;
+        }
+
+        Map<Integer, Equity> equities = new HashMap<>();
+        equityLookupMap.values().forEach(e -> equities.putIfAbsent(e.getEquityId(), e));
+        PriceSyncCheckpoint checkpoint = syncCheckpointRepository.findTopByOrderByCheckedThroughDescCompletedAtDesc()
+                .orElse(null);
+        LocalDate fetchFrom = firstMissingPriceDate(equities.values(), startDate, endDate, checkpoint);
+        if (fetchFrom.isAfter(endDate)) {
+            log.info("Price history already up to date through {}", endDate);
+            return 0;
+        }
+
+        log.info("Syncing price history from {} to {}", fetchFrom, endDate);
+        Iterable<List<ExternalPriceRecordDto>> chunks = equityApiService
+                .streamPriceHistoryByDateRange(fetchFrom.format(DateTimeFormatter.ISO_LOCAL_DATE),
+                        endDate.format(DateTimeFormatter.ISO_LOCAL_DATE))
+                .buffer(PriceHistoryWriter.ROWS_PER_STATEMENT)
+                .toIterable(2);
+
+        int merged = 0;
+        int skipped = 0;
+        for (List<ExternalPriceRecordDto> chunk : chunks) {
+            PriceHistoryWriter.MergeResult result = priceHistoryWriter.merge(chunk, equityLookupMap);
+            merged += result.merged();
+            skipped += result.skipped();
+        }
+
+        if (skipped > 0) {
+            log.info("Skipped {} invalid or unmatched price records", skipped);
+        }
+        syncCheckpointRepository.save(PriceSyncCheckpoint.builder()
+                .checkedFrom(fetchFrom)
+                .checkedThrough(endDate)
+                .build());
+        return merged;
+    }
+
+    /**
+     * Earliest date in the window that still needs fetching. Trading days are the dates any
+     * equity has a bar for; an equity missing one of them needs a fetch from there, unless the
+     * last completed sync already covered that day, in which case the source had no bar for it
+     * (a suspension, say) and asking again would not help. Equities with no bars in the window
+     * need the whole window once when they were added within it and after the last sync, and are
+     * otherwise taken as inactive rather than refetching the window on every run.
+     */
+    private LocalDate firstMissingPriceDate(Collection<Equity> equities, LocalDate startDate, LocalDate endDate,
+                                            PriceSyncCheckpoint checkpoint) {
+        Map<Integer, Set<LocalDate>> storedByEquity = new HashMap<>();
+        TreeSet<LocalDate> tradingDays = new TreeSet<>();
+        for (EquityPriceDate stored : priceHistoryRepository.findPriceDatesInRange(startDate, endDate)) {
+            storedByEquity.computeIfAbsent(stored.getEquityId(), id -> new HashSet<>()).add(stored.getDataDate());
+            tradingDays.add(stored.getDataDate());
+        }
+        LocalDate checkedThrough = checkpoint != null && !checkpoint.getCheckedThrough().isBefore(startDate)
+                ? checkpoint.getCheckedThrough() : null;
+        if (tradingDays.isEmpty() && checkedThrough == null) {
+            return startDate;
+        }
+
+        LocalDate fetchFrom = tradingDays.isEmpty() ? checkedThrough.plusDays(1) : tradingDays.last().plusDays(1);
+        if (checkedThrough != null && !checkedThrough.isBefore(fetchFrom)) {
+            fetchFrom = checkedThrough.plusDays(1);
+        }
+        SortedSet<LocalDate> unchecked = checkedThrough != null ? tradingDays.tailSet(checkedThrough, false) : tradingDays;
+        int inactive = 0;
+        for (Equity equity : equities) {
+            Set<LocalDate> stored = storedByEquity.get(equity.getEquityId());
+            if (stored == null) {
+                if (addedSinceLastSync(equity, startDate, checkpoint)) {
+                    return startDate;
+                }
+                inactive++;
+                continue;
+            }
+            for (LocalDate day : unchecked.headSet(fetchFrom)) {
+                if (!stored.contains(day)) {
+                    fetchFrom = day;
+                    break;
+                }
+            }
+        }
+        if (inactive > 0) {
+            log.debug("{} equities have no price history since {}, not refetching for them", inactive, startDate);
+        }
+        return fetchFrom;
+    }
+
+    private static boolean addedSinceLastSync(Equity equity, LocalDate startDate, PriceSyncCheckpoint checkpoint) {
+        LocalDateTime createdAt = equity.getCreatedAt();
+        return createdAt != null
+                && !createdAt.toLocalDate().isBefore(startDate)
+                && (checkpoint == null || createdAt.isAfter(checkpoint.getCompletedAt()));
+    }
+
     @Override
     @Transactional
     public void initializeEquityDefinitions() {
@@ -110,56 +293,47 @@ public class EquityDataInitializationServiceImpl implements EquityDataInitializa
 
             log.info("Fetching price history from {} to {}", startDateStr, endDateStr);
 
-            // Fetch price history using batch API
-            List<ExternalPriceRecordDto> priceRecords = equityApiService.getAllPriceHistoryByDateRange(startDateStr, endDateStr);
-            log.info("Fetched {} price records from external API", priceRecords.size());
-
-            if (priceRecords.isEmpty()) {
-                log.warn("No price history received from external API");
-                return;
-            }
-
             // Pre-load all equities for efficient lookup
-            Map<String, Equity> equityLookupMap = buildEquityLookupMap();
+            Map<String, Equity> equityLookupMap = priceHistoryWriter.equityLookup();
 
-            // Group price records by asset code for efficient processing
-            Map<String, List<ExternalPriceRecordDto>> pricesByAssetCode = priceRecords.stream()
-                    .collect(Collectors.groupingBy(ExternalPriceRecordDto::getAssetCode));
+            // Records are parsed as they arrive and written in batches; at most two batches are in flight
+            Iterable<List<ExternalPriceRecordDto>> batches = equityApiService
+                    .streamPriceHistoryByDateRange(startDateStr, endDateStr)
+                    .buffer(batchSize)
+                    .toIterable(2);
 
-            // Convert to entities and save
-            List<EquityPriceHistory> priceHistories = new ArrayList<>();
-            int processedEquities = 0;
+            Set<Integer> processedEquities = new HashSet<>();
+            int savedRecords = 0;
             int skippedRecords = 0;
 
-            for (Map.Entry<String, List<ExternalPriceRecordDto>> entry : pricesByAssetCode.entrySet()) {
-                String assetCode = entry.getKey();
-                List<ExternalPriceRecordDto> records = entry.getValue();
-
-                Optional<Equity> equityOpt = findEquityByAssetCodeFromCache(assetCode, equityLookupMap);
-                if (equityOpt.isEmpty()) {
-                    log.debug("Skipping price data for unknown asset code: {} ({} records)",
-                            assetCode, records.size());
-                    skippedRecords += records.size();
-                    continue;
-                }
-
-                Equity equity = equityOpt.get();
-                for (ExternalPriceRecordDto record : records) {
-                    if (isValidPriceRecord(record)) {
-                        EquityPriceHistory priceHistory = convertToPriceHistoryEntity(equity, record);
-                        priceHistories.add(priceHistory);
-                    } else {
-                        skippedRecords++;
+            try {
+                for (List<ExternalPriceRecordDto> batch : batches) {
+                    List<EquityPriceHistory> priceHistories = new ArrayList<>(batch.size());
+                    for (ExternalPriceRecordDto record : batch) {
+                        Optional<Equity> equityOpt = PriceHistoryWriter.isValid(record)
+                                ? priceHistoryWriter.resolve(record.getAssetCode(), equityLookupMap)
+                                : Optional.empty();
+                        if (equityOpt.isEmpty()) {
+                            skippedRecords++;
+                            continue;
+                        }
+                        priceHistories.add(convertToPriceHistoryEntity(equityOpt.get(), record));
+                        processedEquities.add(equityOpt.get().getEquityId());
                     }
+                    insertPriceHistories(priceHistories);
+                    savedRecords += priceHistories.size();
+                    log.debug("Saved batch of {} price history records ({} so far)", priceHistories.size(), savedRecords);
                 }
-                processedEquities++;
+            } catch (ServiceUnavailableException e) {
+                log.error("Price history stream failed after {} records, keeping what was saved: {}",
+                        savedRecords, e.getMessage());
             }
 
-            // Batch save all price histories
-            if (!priceHistories.isEmpty()) {
-                priceHistoryRepository.saveAll(priceHistories);
+            if (savedRecords == 0) {
+                log.warn("No price history received from external API");
+            } else {
                 log.info("Successfully saved {} price history records for {} equities",
-                        priceHistories.size(), processedEquities);
+                        savedRecords, processedEquities.size());
             }
 
             if (skippedRecords > 0) {
@@ -172,6 +346,22 @@ public class EquityDataInitializationServiceImpl implements EquityDataInitializa
         }
     }
 
+    private void insertPriceHistories(List<EquityPriceHistory> priceHistories) {
+        if (priceHistories.isEmpty()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_PRICE_HISTORY, priceHistories, priceHistories.size(), (ps, p) -> {
+            ps.setInt(1, p.getEquity().getEquityId());
+            ps.setObject(2, p.getDataDate());
+            ps.setBigDecimal(3, p.getOpenPrice());
+            ps.setBigDecimal(4, p.getClosePrice());
+            ps.setBigDecimal(5, p.getHighPrice());
+            ps.setBigDecimal(6, p.getLowPrice());
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+            ps.setTimestamp(9, now);
+        });
+    }
+
     private void clearExistingData() {
         log.info("Clearing existing equity data...");
 
@@ -190,53 +380,6 @@ public class EquityDataInitializationServiceImpl implements EquityDataInitializa
         }
     }
 
-    private Map<String, Equity> buildEquityLookupMap() {
-        List<Equity> allEquities = equityRepository.findAll();
-        Map<String, Equity> lookupMap = new HashMap<>();
-
-        for (Equity equity : allEquities) {
-            // Add multiple lookup keys for flexible matching
-            lookupMap.put(equity.getTicker(), equity);
-            lookupMap.put(equity.getEquityCode(), equity);
-
-            // Handle .E suffix variations
-            if (equity.getTicker().endsWith(".E")) {
-                lookupMap.put(equity.getTicker().substring(0, equity.getTicker().length() - 2), equity);
-            } else {
-                lookupMap.put(equity.getTicker() + ".E", equity);
-            }
-
-            if (equity.getEquityCode().endsWith(".E")) {
-                lookupMap.put(equity.getEquityCode().substring(0, equity.getEquityCode().length() - 2), equity);
-            } else {
-                lookupMap.put(equity.getEquityCode() + ".E", equity);
-            }
-        }
-
-        return lookupMap;
-    }
-
-    private Optional<Equity> findEquityByAssetCodeFromCache(String assetCode, Map<String, Equity> lookupMap) {
-        Equity equity = lookupMap.get(assetCode);
-        if (equity != null) {
-            return Optional.of(equity);
-        }
-
-        equity = lookupMap.get(assetCode + ".E");
-        if (equity != null) {
-            return Optional.of(equity);
-        }
-
-        if (assetCode.endsWith(".E")) {
-            equity = lookupMap.get(assetCode.substring(0, assetCode.length() - 2));
-            if (equity != null) {
-                return Optional.of(equity);
-            }
-        }
-
-        return Optional.empty();
-    }
-
     private boolean isValidEquityInfo(ExternalEquityInfoDto dto) {
         return dto != null
                 && dto.getTicker() != null && !dto.getTicker().trim().isEmpty()
@@ -244,13 +387,6 @@ public class EquityDataInitializationServiceImpl implements EquityDataInitializa
                 && dto.getTicker().endsWith(".E");
     }
 
-    private boolean isValidPriceRecord(ExternalPriceRecordDto dto) {
-        return dto != null
-                && dto.getAssetCode() != null && !dto.getAssetCode().trim().isEmpty()
-                && dto.getDataDate() != null
-                && dto.getClosePrice() != null && dto.getClosePrice().compareTo(java.math.BigDecimal.ZERO) > 0;
-    }
-
     private Equity convertToEquityEntity(ExternalEquityInfoDto dto) {
         // Determine participation status based on index info
         boolean participation = dto.getIndex() != null
@@ -1,160 +1,202 @@
 package com.fintra.stocktrading.service.impl;
 
-import com.fintra.stocktrading.model.entity.EquityOrder;
-import com.fintra.stocktrading.model.entity.EquityStock;
 import com.fintra.stocktrading.model.enums.OrderSide;
 import com.fintra.stocktrading.model.enums.OrderStatus;
 import com.fintra.stocktrading.repository.EquityOrderRepository;
-import com.fintra.stocktrading.service.CashBalanceService;
 import com.fintra.stocktrading.service.EquityOrderExpireService;
-import com.fintra.stocktrading.service.EquityStockService;
-import jakarta.transaction.Transactional;
+import com.fintra.stocktrading.service.expiry.ExpiringOrder;
+import com.fintra.stocktrading.service.matching.OrderBookEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class EquityOrderExpireServiceImpl implements EquityOrderExpireService {
 
-    private final EquityOrderRepository orderRepository;
-    private final CashBalanceService cashBalanceService;
-    private final EquityStockService equityStockService;
+    private static final List<OrderStatus> EXPIRABLE_STATUSES =
+            List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
+
+    private static final String RELEASE_CASH =
+            "UPDATE cash_balances SET blocked_balance = blocked_balance - ?, free_balance = free_balance + ?, updated_at = ? " +
+                    "WHERE account_id = ? AND blocked_balance >= ?";
+    private static final String RELEASE_STOCK =
+            "UPDATE equity_stocks SET blocked_quantity = blocked_quantity - ?, free_quantity = free_quantity + ?, updated_at = ? " +
+                    "WHERE account_id = ? AND equity_id = ? AND blocked_quantity >= ?";
 
+    private final EquityOrderRepository orderRepository;
+    private final OrderBookEngine orderBookEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.expiry.page-size:1000}")
+    private int pageSize;
+
+    @Value("${app.expiry.page-attempts:3}")
+    private int pageAttempts;
+
+    /**
+     * Expires the day's open orders in keyset pages of {@code app.expiry.page-size}, each page
+     * in its own transaction: releases are summed per account (cash) and per account and equity
+     * (shares), applied as guarded batch UPDATEs, and the orders flipped to EXPIRED with one bulk
+     * UPDATE. Heap use is bounded by the page size. Orders whose release cannot be applied are
+     * logged and left open, as before.
+     * <p>
+     * A page in which an order changed status after it was read is rolled back and redone, up to
+     * {@code app.expiry.page-attempts} times; if it keeps changing, its orders are logged and left
+     * open and expiry continues with the next page.
+     */
     @Override
-    @Transactional
     public int expireOldOrders(LocalDate today) {
+        int expired = 0;
+        int skipped = 0;
+        int afterOrderId = 0;
+
+        while (true) {
+            PageResult page = expirePageWithRetry(today, afterOrderId);
+            if (page == null || page.scanned() == 0) break;
+
+            expired += page.expired();
+            skipped += page.skipped();
+            afterOrderId = page.lastOrderId();
+            if (page.scanned() < pageSize) break;
+        }
 
-        List<EquityOrder> pendingOrders = orderRepository.findByFinalStatus(OrderStatus.PENDING);
-        List<EquityOrder> partialOrders = orderRepository.findByFinalStatus(OrderStatus.PARTIALLY_FILLED);
-
-        List<EquityOrder> toExpire = pendingOrders.stream()
-                .filter(o -> o.getOrderDate().isEqual(today))
-                .filter(o -> o.getFinalStatus() != OrderStatus.EXPIRED)
-                .collect(Collectors.toList());
-
-        toExpire.addAll(partialOrders.stream()
-                .filter(o -> o.getOrderDate().isEqual(today))
-                .filter(o -> o.getFinalStatus() != OrderStatus.EXPIRED)
-                .collect(Collectors.toList()));
-
-        log.info("Found {} orders to expire for TODAY ({}): {}", toExpire.size(), today, 
-                toExpire.stream().map(o -> o.getOrderId()).collect(Collectors.toList()));
+        log.info("Expired {} orders for TODAY ({}), {} skipped", expired, today, skipped);
+        return expired;
+    }
 
-        int actuallyExpired = 0;
-        for (EquityOrder order : toExpire) {
+    private PageResult expirePageWithRetry(LocalDate today, int afterOrderId) {
+        for (int attempt = 1; ; attempt++) {
             try {
-                boolean wasExpired = expireOrder(order);
-                if (wasExpired) {
-                    actuallyExpired++;
+                return transactionTemplate.execute(status -> expirePage(today, afterOrderId));
+            } catch (PageChangedException e) {
+                if (attempt < pageAttempts) {
+                    log.warn("Orders after order {} changed during expiry (attempt {} of {}), redoing the page",
+                            afterOrderId, attempt, pageAttempts);
+                    continue;
                 }
-            } catch (Exception ex) {
-                log.error("Error expiring order {}: {}", order.getOrderId(), ex.getMessage(), ex);
+                log.error("Orders {} kept changing during expiry, left open after {} attempts",
+                        e.orderIds, pageAttempts);
+                return new PageResult(e.orderIds.size(), 0, e.orderIds.size(), e.orderIds.get(e.orderIds.size() - 1));
             }
         }
-
-        log.info("Successfully expired {} out of {} candidate orders for TODAY", actuallyExpired, toExpire.size());
-        return actuallyExpired;
     }
 
-    private boolean expireOrder(EquityOrder order) {
-        try {
-            if (order.getFinalStatus() == OrderStatus.EXPIRED) {
-                log.debug("Order {} already expired, skipping", order.getOrderId());
-                return false;
-            }
+    private PageResult expirePage(LocalDate today, int afterOrderId) {
+        List<ExpiringOrder> page = orderRepository.findExpiringOrders(
+                today, EXPIRABLE_STATUSES, afterOrderId, PageRequest.of(0, pageSize));
+        if (page.isEmpty()) {
+            return new PageResult(0, 0, 0, afterOrderId);
+        }
 
-            if (order.getFinalStatus() != OrderStatus.PENDING && 
-                order.getFinalStatus() != OrderStatus.PARTIALLY_FILLED) {
-                log.debug("Order {} cannot be expired, current status: {}", 
-                         order.getOrderId(), order.getFinalStatus());
-                return false;
+        Map<Integer, BigDecimal> cashByAccount = new TreeMap<>();
+        Map<Integer, Map<Integer, Integer>> sharesByAccount = new TreeMap<>();
+        List<ExpiringOrder> releasable = new ArrayList<>(page.size());
+        for (ExpiringOrder order : page) {
+            if (!order.isReleasable()) {
+                log.error("Order {} has invalid remaining quantity {} or price {}, cannot expire",
+                        order.getOrderId(), order.getRemainingQuantity(), order.getPrice());
+                continue;
             }
+            releasable.add(order);
+            if (order.getSide() == OrderSide.BUY) {
+                cashByAccount.merge(order.getAccountId(), order.blockedAmount(), BigDecimal::add);
+            } else {
+                sharesByAccount.computeIfAbsent(order.getAccountId(), id -> new TreeMap<>())
+                        .merge(order.getEquityId(), order.getRemainingQuantity(), Integer::sum);
+            }
+        }
 
-            if (order.getAccount() == null || order.getEquity() == null) {
-                log.error("Order {} has null account or equity, cannot expire", order.getOrderId());
-                throw new IllegalStateException("Order " + order.getOrderId() + " has null account or equity");
+        Timestamp ts = Timestamp.valueOf(LocalDateTime.now());
+        Set<Integer> failedCash = releaseCash(cashByAccount, ts);
+        Set<List<Integer>> failedShares = releaseShares(sharesByAccount, ts);
+
+        List<ExpiringOrder> toExpire = releasable.stream()
+                .filter(o -> o.getSide() == OrderSide.BUY
+                        ? !failedCash.contains(o.getAccountId())
+                        : !failedShares.contains(List.of(o.getAccountId(), o.getEquityId())))
+                .toList();
+
+        if (!toExpire.isEmpty()) {
+            int updated = orderRepository.expireOrders(
+                    toExpire.stream().map(ExpiringOrder::getOrderId).toList(),
+                    EXPIRABLE_STATUSES, OrderStatus.EXPIRED, LocalDateTime.now());
+            if (updated != toExpire.size()) {
+                // An order changed status after it was read; its release would be wrong, so redo the page.
+                throw new PageChangedException(page.stream().map(ExpiringOrder::getOrderId).toList());
             }
+            toExpire.forEach(o -> orderBookEngine.remove(o.getEquityId(), o.getOrderId()));
+        }
 
-            Integer accountId = order.getAccount().getAccountId();
-            Integer equityId = order.getEquity().getEquityId();
-            Integer remainingQuantity = order.getRemainingQuantity();
-            BigDecimal price = order.getPrice();
+        log.debug("Expired {} of {} orders after order {}", toExpire.size(), page.size(), afterOrderId);
+        return new PageResult(page.size(), toExpire.size(), page.size() - toExpire.size(),
+                page.get(page.size() - 1).getOrderId());
+    }
 
-            if (remainingQuantity == null || remainingQuantity <= 0) {
-                log.error("Order {} has invalid remaining quantity: {}", order.getOrderId(), remainingQuantity);
-                throw new IllegalStateException("Order " + order.getOrderId() + " has invalid remaining quantity: " + remainingQuantity);
+    private Set<Integer> releaseCash(Map<Integer, BigDecimal> cashByAccount, Timestamp ts) {
+        List<Object[]> rows = new ArrayList<>(cashByAccount.size());
+        cashByAccount.forEach((accountId, amount) ->
+                rows.add(new Object[]{amount, amount, ts, accountId, amount}));
+
+        Set<Integer> failed = new HashSet<>();
+        int[] counts = jdbcTemplate.batchUpdate(RELEASE_CASH, rows);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                Integer accountId = (Integer) rows.get(i)[3];
+                log.error("Insufficient blocked balance or missing CashBalance for account {}: requested={}",
+                        accountId, rows.get(i)[0]);
+                failed.add(accountId);
             }
+        }
+        return failed;
+    }
 
-            if (price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
-                log.error("Order {} has invalid price: {}", order.getOrderId(), price);
-                throw new IllegalStateException("Order " + order.getOrderId() + " has invalid price: " + price);
+    private Set<List<Integer>> releaseShares(Map<Integer, Map<Integer, Integer>> sharesByAccount, Timestamp ts) {
+        List<Object[]> rows = new ArrayList<>();
+        sharesByAccount.forEach((accountId, byEquity) -> byEquity.forEach((equityId, quantity) ->
+                rows.add(new Object[]{quantity, quantity, ts, accountId, equityId, quantity})));
+
+        Set<List<Integer>> failed = new HashSet<>();
+        int[] counts = jdbcTemplate.batchUpdate(RELEASE_STOCK, rows);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                Integer accountId = (Integer) rows.get(i)[3];
+                Integer equityId = (Integer) rows.get(i)[4];
+                log.error("Insufficient blocked quantity or missing stock for account {} equity {}: requested={}",
+                        accountId, equityId, rows.get(i)[0]);
+                failed.add(List.of(accountId, equityId));
             }
+        }
+        return failed;
+    }
 
-            log.debug("Expiring order {}: side={}, remainingQuantity={}, price={}", 
-                     order.getOrderId(), order.getOrderSide(), remainingQuantity, price);
-
-            if (order.getOrderSide() == OrderSide.BUY) {
-                BigDecimal blockedAmount = price.multiply(BigDecimal.valueOf(remainingQuantity));
-                
-                log.debug("Restoring {} blocked balance to free balance for account {}", 
-                         blockedAmount, accountId);
-                
-                try {
-                    cashBalanceService.moveBlockedToFree(accountId, blockedAmount);
-                } catch (Exception ex) {
-                    log.error("Failed to restore blocked balance for BUY order {}: {}", order.getOrderId(), ex.getMessage());
-                    throw new RuntimeException("Failed to restore blocked balance for order " + order.getOrderId(), ex);
-                }
-                
-            } else {
-                try {
-                    EquityStock stock = equityStockService
-                            .getEquityStockByAccountIdAndEquityId(accountId.longValue(), equityId)
-                            .orElseThrow(() -> new IllegalStateException(
-                                    "Seller stock not found for expired order: account=" + accountId + ", equity=" + equityId));
-
-                    if (stock.getBlockedQuantity() < remainingQuantity) {
-                        log.error("Insufficient blocked quantity for order {}: blocked={}, required={}", 
-                                 order.getOrderId(), stock.getBlockedQuantity(), remainingQuantity);
-                        throw new IllegalStateException("Insufficient blocked quantity for order " + order.getOrderId());
-                    }
-                    
-                    stock.setBlockedQuantity(stock.getBlockedQuantity() - remainingQuantity);
-                    stock.setFreeQuantity(stock.getFreeQuantity() + remainingQuantity);
-                    equityStockService.updateEquityStock(stock);
-                    
-                    log.debug("Restored {} blocked quantity to free quantity for account {} equity {}", 
-                             remainingQuantity, accountId, equityId);
-                             
-                } catch (Exception ex) {
-                    log.error("Failed to restore blocked quantity for SELL order {}: {}", order.getOrderId(), ex.getMessage());
-                    throw new RuntimeException("Failed to restore blocked quantity for order " + order.getOrderId(), ex);
-                }
-            }
+    private record PageResult(int scanned, int expired, int skipped, int lastOrderId) {
+    }
 
-            order.setFinalStatus(OrderStatus.EXPIRED);
-            order.setCombinedStatus(OrderStatus.EXPIRED);
-            
-            try {
-                orderRepository.save(order);
-            } catch (Exception ex) {
-                log.error("Failed to save expired order {}: {}", order.getOrderId(), ex.getMessage());
-                throw new RuntimeException("Failed to save expired order " + order.getOrderId(), ex);
-            }
+    // Rolls back a page whose orders changed status between the read and the bulk update.
+    private static class PageChangedException extends RuntimeException {
+        private final List<Integer> orderIds;
 
-            log.debug("Order {} marked as EXPIRED", order.getOrderId());
-            return true;
-            
-        } catch (Exception ex) {
-            log.error("Critical error expiring order {}: {}", order.getOrderId(), ex.getMessage(), ex);
-            throw ex;
+        PageChangedException(List<Integer> orderIds) {
+            super("Orders changed concurrently during expiry");
+            this.orderIds = orderIds;
         }
     }
 }
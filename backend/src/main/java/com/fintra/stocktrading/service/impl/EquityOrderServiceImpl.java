@@ -6,24 +6,30 @@ import com.fintra.stocktrading.mapper.EquityOrderMapper;
 import com.fintra.stocktrading.model.dto.request.EquityOrderRequest;
 import com.fintra.stocktrading.model.dto.request.EquityOrderUpdateRequest;
 import com.fintra.stocktrading.model.dto.response.EquityOrderResponse;
+import com.fintra.stocktrading.model.dto.response.OrderAckResponse;
 import com.fintra.stocktrading.model.entity.Account;
 import com.fintra.stocktrading.model.entity.Equity;
 import com.fintra.stocktrading.model.entity.EquityOrder;
-import com.fintra.stocktrading.model.entity.EquityStock;
 import com.fintra.stocktrading.model.enums.OrderSide;
 import com.fintra.stocktrading.model.enums.OrderStatus;
 import com.fintra.stocktrading.model.enums.OrderType;
 import com.fintra.stocktrading.repository.AccountRepository;
 import com.fintra.stocktrading.repository.EquityOrderRepository;
 import com.fintra.stocktrading.repository.EquityRepository;
-import com.fintra.stocktrading.service.CashBalanceService;
 import com.fintra.stocktrading.service.EquityOrderHistoryService;
 import com.fintra.stocktrading.service.EquityOrderService;
-import com.fintra.stocktrading.service.EquityStockService;
-import com.fintra.stocktrading.service.OrderMatchingService;
+import com.fintra.stocktrading.service.matching.MatchingLaneScheduler;
+import com.fintra.stocktrading.service.matching.OrderBookEngine;
+import com.fintra.stocktrading.service.matching.PriceTicks;
+import com.fintra.stocktrading.service.matching.TradingRulesCache;
+import com.fintra.stocktrading.service.matching.TradingRulesCache.TradingRules;
+import com.fintra.stocktrading.service.orderentry.ExecutionReportGateway;
+import com.fintra.stocktrading.service.orderentry.OrderEntrySequencer;
+import com.fintra.stocktrading.service.risk.RiskLedger;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.DayOfWeek;
@@ -32,9 +38,11 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class EquityOrderServiceImpl implements EquityOrderService {
 
     private final EquityOrderRepository equityOrderRepository;
@@ -42,9 +50,13 @@ public class EquityOrderServiceImpl implements EquityOrderService {
     private final EquityRepository equityRepository;
     private final EquityOrderMapper equityOrderMapper;
     private final EquityOrderHistoryService orderHistoryService;
-    private final OrderMatchingService orderMatchingService;
-    private final CashBalanceService cashBalanceService;
-    private final EquityStockService equityStockService;
+    private final MatchingLaneScheduler matchingLaneScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final RiskLedger riskLedger;
+    private final OrderBookEngine orderBookEngine;
+    private final TradingRulesCache tradingRulesCache;
+    private final OrderEntrySequencer orderEntrySequencer;
+    private final ExecutionReportGateway executionReportGateway;
 
     private static final String ERR_ORDER_NOT_FOUND   = "Order not found!";
     private static final String ERR_ACCOUNT_NOT_FOUND = "Account not found!";
@@ -79,28 +91,74 @@ public class EquityOrderServiceImpl implements EquityOrderService {
     }
 
     @Override
-    @Transactional
     public EquityOrderResponse createOrder(EquityOrderRequest requestDto) {
+        EquityOrder savedOrder = transactionTemplate.execute(status -> placeOrder(requestDto));
+
+        // Matching runs on the equity's lane once the order is committed and visible to it.
+        try {
+            matchingLaneScheduler.await(
+                    matchingLaneScheduler.submitMatch(savedOrder.getEquity().getEquityId(), savedOrder.getOrderId()));
+        } catch (RuntimeException ex) {
+            log.warn("Matching failed for orderId={}, order stays on book: {}", savedOrder.getOrderId(), ex.getMessage());
+        }
+
+        EquityOrderResponse response = equityOrderMapper.toDto(savedOrder);
+        equityOrderRepository.findFinalStatusByOrderId(savedOrder.getOrderId())
+                .ifPresent(response::setFinalStatus);
+        return response;
+    }
+
+    @Override
+    public OrderAckResponse submitOrder(EquityOrderRequest requestDto) {
+        EquityOrder savedOrder = transactionTemplate.execute(status -> placeOrder(requestDto));
+        Integer equityId = savedOrder.getEquity().getEquityId();
+        Integer orderId = savedOrder.getOrderId();
+
+        OrderAckResponse ack = OrderAckResponse.builder()
+                .orderId(orderId)
+                .accountId(savedOrder.getAccount().getAccountId())
+                .equityId(equityId)
+                .orderSide(savedOrder.getOrderSide())
+                .orderQuantity(savedOrder.getOrderQuantity())
+                .price(savedOrder.getPrice())
+                .orderType(savedOrder.getOrderType())
+                .status(OrderStatus.PENDING)
+                .acceptedAt(savedOrder.getEntryDate())
+                .build();
+
+        // The ack goes out before the hand-off, so no fill of this order can reach the stream ahead of it.
+        orderEntrySequencer.sequence(sequence -> {
+            ack.setSequence(sequence);
+            executionReportGateway.publishAck(ack);
+            matchingLaneScheduler.submitMatch(equityId, orderId).whenComplete((ignored, ex) -> {
+                if (ex != null) {
+                    log.warn("Matching failed for orderId={}, order stays on book: {}", orderId, ex.getMessage());
+                }
+            });
+        });
+        return ack;
+    }
+
+    private EquityOrder placeOrder(EquityOrderRequest requestDto) {
         Account account = accountRepository.findById(requestDto.getAccountId())
                 .orElseThrow(() -> new NotFoundException(ERR_ACCOUNT_NOT_FOUND));
 
         Equity equity = equityRepository.findById(requestDto.getEquityId())
                 .orElseThrow(() -> new NotFoundException(ERR_EQUITY_NOT_FOUND));
 
+        validatePriceRules(equity.getEquityId(), requestDto.getPrice());
+
         if (requestDto.getOrderSide() == OrderSide.BUY) {
             BigDecimal requiredAmount = requestDto.getPrice().multiply(BigDecimal.valueOf(requestDto.getOrderQuantity()));
-            if (!cashBalanceService.hasEnoughBalance(account.getAccountId(), requiredAmount)) {
+            if (!riskLedger.tryReserveCash(account.getAccountId(), requiredAmount)) {
                 throw new BadRequestException("Insufficient balance! Order rejected.");
             }
-            cashBalanceService.blockBalance(account.getAccountId(), requiredAmount);
         }
 
         if (requestDto.getOrderSide() == OrderSide.SELL) {
-            int availableLot = getUserPortfolioLot(account, equity);
-            if (availableLot < requestDto.getOrderQuantity()) {
+            if (!riskLedger.tryReserveShares(account.getAccountId(), equity.getEquityId(), requestDto.getOrderQuantity())) {
                 throw new BadRequestException("Insufficient number of shares! Order rejected.");
             }
-            equityStockService.blockStock(account.getAccountId(), equity.getEquityId(), requestDto.getOrderQuantity());
         }
 
         OrderType effectiveType = decideOrderType(requestDto.getOrderType());
@@ -116,20 +174,33 @@ public class EquityOrderServiceImpl implements EquityOrderService {
 
         EquityOrder savedOrder = equityOrderRepository.save(order);
 
-        orderMatchingService.matchOrder(savedOrder);
-
         orderHistoryService.recordHistory(
                 savedOrder,
                 null,
                 null,
                 LocalDateTime.now()
         );
-        return equityOrderMapper.toDto(savedOrder);
+        return savedOrder;
     }
 
     @Override
-    @Transactional
     public EquityOrderResponse cancelOrder(Integer orderId) {
+        return onLane(orderId, () -> applyCancel(orderId));
+    }
+
+    /**
+     * Runs a change to an existing order in its own transaction on the equity's matching lane
+     * and waits for it, so the order row, the resident book and the reservations keep the lane
+     * as their single writer.
+     */
+    private EquityOrderResponse onLane(Integer orderId, Supplier<EquityOrderResponse> change) {
+        Integer equityId = equityOrderRepository.findEquityIdByOrderId(orderId)
+                .orElseThrow(() -> new NotFoundException(ERR_ORDER_NOT_FOUND));
+        return matchingLaneScheduler.await(matchingLaneScheduler.submit(equityId,
+                () -> transactionTemplate.execute(status -> change.get())));
+    }
+
+    private EquityOrderResponse applyCancel(Integer orderId) {
         EquityOrder order = equityOrderRepository.findById(orderId)
                 .orElseThrow(() -> new NotFoundException(ERR_ORDER_NOT_FOUND));
 
@@ -144,14 +215,15 @@ public class EquityOrderServiceImpl implements EquityOrderService {
         order.setUpdatedAt(LocalDateTime.now());
 
         EquityOrder updatedOrder = equityOrderRepository.save(order);
+        orderBookEngine.remove(updatedOrder);
 
         if (order.getOrderSide() == OrderSide.BUY) {
             BigDecimal blockedAmount = order.getPrice().multiply(BigDecimal.valueOf(order.getOrderQuantity()));
-            cashBalanceService.unblockBalance(order.getAccount().getAccountId(), blockedAmount);
+            riskLedger.releaseCash(order.getAccount().getAccountId(), blockedAmount);
         }
 
         if (order.getOrderSide() == OrderSide.SELL) {
-            equityStockService.unblockStock(order.getAccount().getAccountId(), order.getEquity().getEquityId(), order.getOrderQuantity());
+            riskLedger.releaseShares(order.getAccount().getAccountId(), order.getEquity().getEquityId(), order.getOrderQuantity());
         }
 
         orderHistoryService.recordHistory(
@@ -170,16 +242,25 @@ public class EquityOrderServiceImpl implements EquityOrderService {
         return equityOrderMapper.toDto(order);
     }
 
-    private int getUserPortfolioLot(Account account, Equity equity) {
-        return account.getEquityStocks().stream()
-                .filter(stock -> stock.getEquity().getEquityId().equals(equity.getEquityId()))
-                .mapToInt(EquityStock::getFreeQuantity)
-                .sum();
+    private void validatePriceRules(Integer equityId, BigDecimal price) {
+        TradingRules rules = tradingRulesCache.rulesFor(equityId);
+        if (rules == null || price == null) return;
+
+        long priceTicks = PriceTicks.toTicks(price);
+        if (!rules.withinBand(priceTicks)) {
+            throw new BadRequestException("Price is outside the daily price band! Order rejected.");
+        }
+        if (!rules.onTick(priceTicks)) {
+            throw new BadRequestException("Price is not aligned to the tick size! Order rejected.");
+        }
     }
 
     @Override
-    @Transactional
     public EquityOrderResponse updateOrder(Integer orderId, EquityOrderUpdateRequest requestDto) {
+        return onLane(orderId, () -> applyUpdate(orderId, requestDto));
+    }
+
+    private EquityOrderResponse applyUpdate(Integer orderId, EquityOrderUpdateRequest requestDto) {
         EquityOrder order = equityOrderRepository.findById(orderId)
                 .orElseThrow(() -> new NotFoundException(ERR_ORDER_NOT_FOUND));
 
@@ -198,19 +279,15 @@ public class EquityOrderServiceImpl implements EquityOrderService {
 
         if (order.getOrderSide() == OrderSide.BUY) {
             BigDecimal requiredAmount = newPrice.multiply(BigDecimal.valueOf(newQuantity));
-            if (!cashBalanceService.hasEnoughBalance(accountId, requiredAmount)) {
+            BigDecimal blockedAmount = prevPrice.multiply(BigDecimal.valueOf(prevQuantity));
+            if (!riskLedger.tryReplaceCash(accountId, blockedAmount, requiredAmount)) {
                 throw new BadRequestException("Insufficient balance for updated order!");
             }
-            BigDecimal blockedAmount = prevPrice.multiply(BigDecimal.valueOf(prevQuantity));
-            cashBalanceService.unblockBalance(accountId, blockedAmount);
-            cashBalanceService.blockBalance(accountId, requiredAmount);
         }
         if (order.getOrderSide() == OrderSide.SELL) {
-            if (!equityStockService.hasEnoughStock(accountId, equityId, newQuantity)) {
+            if (!riskLedger.tryReplaceShares(accountId, equityId, prevQuantity, newQuantity)) {
                 throw new BadRequestException("Insufficient number of shares for updated order!");
             }
-            equityStockService.unblockStock(accountId, equityId, prevQuantity);
-            equityStockService.blockStock(accountId, equityId, newQuantity);
         }
 
         if (requestDto.getOrderType() != null) {
@@ -223,6 +300,7 @@ public class EquityOrderServiceImpl implements EquityOrderService {
         order.setUpdatedAt(LocalDateTime.now());
 
         EquityOrder updatedOrder = equityOrderRepository.save(order);
+        orderBookEngine.sync(updatedOrder);
 
         orderHistoryService.recordHistory(
                 updatedOrder,
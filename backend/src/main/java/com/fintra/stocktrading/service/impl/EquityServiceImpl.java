@@ -39,12 +39,16 @@ public class EquityServiceImpl implements EquityService {
         log.debug("Fetching all equities with latest prices from database");
 
         List<Equity> equities = equityRepository.findAll();
-        List<EquityPriceResponse> responses = new ArrayList<>();
+        Map<Integer, EquityPriceHistory> priceMap = priceHistoryRepository.findLatestPricePerEquity().stream()
+                .collect(Collectors.toMap(
+                    price -> price.getEquity().getEquityId(),
+                    Function.identity(),
+                    (first, second) -> first
+                ));
 
+        List<EquityPriceResponse> responses = new ArrayList<>(equities.size());
         for (Equity equity : equities) {
-            Optional<EquityPriceHistory> latestPrice = priceHistoryRepository.findLatestByEquity(equity);
-            EquityPriceResponse response = buildEquityPriceResponse(equity, latestPrice.orElse(null));
-            responses.add(response);
+            responses.add(buildEquityPriceResponse(equity, priceMap.get(equity.getEquityId())));
         }
 
         log.debug("Retrieved {} equities from database", responses.size());
@@ -9,6 +9,7 @@ import com.fintra.stocktrading.model.enums.TransferType;
 import com.fintra.stocktrading.repository.*;
 import com.fintra.stocktrading.service.EquityStockService;
 import com.fintra.stocktrading.service.EquityTransferService;
+import com.fintra.stocktrading.service.risk.RiskLedger;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,10 +30,12 @@ public class EquityTransferServiceImpl implements EquityTransferService {
     private final EquityRepository equityRepository;
     private final OtherInstitutionRepository otherInstitutionRepository;
     private final @Lazy EquityStockService equityStockService;
+    private final RiskLedger riskLedger;
 
     @Override
     @Transactional
     public EquityTransfer performTransferToPortfolio(PortfolioTransferRequest request) {
+        riskLedger.lockForUpdate(request.getFromAccountId(), request.getToAccountId());
         Account fromAccount = accountRepository.findById(request.getFromAccountId())
                 .orElseThrow(() -> new NotFoundException("The sender account does not exist."));
         Account toAccount = accountRepository.findById(request.getToAccountId())
@@ -126,6 +129,7 @@ public class EquityTransferServiceImpl implements EquityTransferService {
     @Override
     @Transactional
     public EquityTransfer performTransferToExternal(PortfolioExternalTransferRequest request) {
+        riskLedger.lockForUpdate(request.getFromAccountId());
         Account fromAccount = accountRepository.findById(request.getFromAccountId())
                 .orElseThrow(() -> new IllegalArgumentException("The sender account does not exist."));
         Equity equity = equityRepository.findById(request.getEquityId())
@@ -176,6 +180,7 @@ public class EquityTransferServiceImpl implements EquityTransferService {
     @Override
     @Transactional
     public EquityTransfer performTransferFromExternalToPortfolio(ExternalTransferToPortfolioRequest request) {
+        riskLedger.lockForUpdate(request.getToAccountId());
         Account toAccount = accountRepository.findById(request.getToAccountId())
                 .orElseThrow(() -> new IllegalArgumentException("The recipient account does not exist."));
         Equity equity = equityRepository.findById(request.getEquityId())
@@ -0,0 +1,189 @@
+package com.fintra.stocktrading.service.impl;
+
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+import com.fintra.stocktrading.exception.BadRequestException;
+import com.fintra.stocktrading.model.dto.response.MarketSnapshotItemResponse;
+import com.fintra.stocktrading.model.dto.response.MarketSnapshotResponse;
+import com.fintra.stocktrading.model.entity.Equity;
+import com.fintra.stocktrading.model.entity.EquityPriceHistory;
+import com.fintra.stocktrading.model.entity.Trade;
+import com.fintra.stocktrading.model.enums.OrderSide;
+import com.fintra.stocktrading.repository.EquityPriceHistoryRepository;
+import com.fintra.stocktrading.repository.EquityRepository;
+import com.fintra.stocktrading.repository.TradeRepository;
+import com.fintra.stocktrading.service.MarketSnapshotService;
+import com.fintra.stocktrading.service.marketdata.MarketDayTotal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the latest price record, last trade price and day volume of every equity in one
+ * resident map, loaded with three queries at startup and at session open and then moved
+ * forward by committed trades. The response is rebuilt only when the version has moved, so
+ * an unchanged market is served without touching the database or allocating.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MarketSnapshotServiceImpl implements MarketSnapshotService {
+
+    private static final Set<String> FIELDS = Set.of("equityId", "assetCode", "equityName", "dataDate",
+            "openPrice", "highPrice", "lowPrice", "closePrice", "lastPrice", "dayVolume", "lastTradeAt");
+
+    private final EquityRepository equityRepository;
+    private final EquityPriceHistoryRepository priceHistoryRepository;
+    private final TradeRepository tradeRepository;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Map<Integer, Quote> quotes = new ConcurrentHashMap<>();
+    private volatile MarketSnapshotResponse snapshot;
+
+    private record Quote(Equity equity, EquityPriceHistory price, BigDecimal lastPrice, long dayVolume,
+                         LocalDateTime lastTradeAt) {
+
+        Quote withTrade(BigDecimal tradePrice, int quantity, LocalDateTime at) {
+            boolean latest = lastTradeAt == null || at == null || !at.isBefore(lastTradeAt);
+            return new Quote(equity, price, latest ? tradePrice : lastPrice, dayVolume + quantity,
+                    latest ? at : lastTradeAt);
+        }
+    }
+
+    @Override
+    public MarketSnapshotResponse getSnapshot(Set<String> fields) {
+        MarketSnapshotResponse current = currentSnapshot();
+        if (fields == null || fields.isEmpty()) {
+            return current;
+        }
+
+        for (String field : fields) {
+            if (!FIELDS.contains(field)) {
+                throw new BadRequestException("Unknown snapshot field: " + field);
+            }
+        }
+        return MarketSnapshotResponse.builder()
+                .version(current.getVersion())
+                .equities(current.getEquities().stream().map(item -> project(item, fields)).toList())
+                .build();
+    }
+
+    @Override
+    public void recordTrades(List<TradeMatchedEvent> events) {
+        Map<Integer, Quote> current = quotes;
+        int applied = 0;
+        for (TradeMatchedEvent event : events) {
+            if (event.getEquityId() == null || event.getPrice() == null) continue;
+            Quote updated = current.computeIfPresent(event.getEquityId(),
+                    (id, quote) -> quote.withTrade(event.getPrice(), event.getQuantity(), event.getTimestamp()));
+            if (updated != null) applied++;
+        }
+        if (applied > 0) {
+            version.incrementAndGet();
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reload() {
+        Map<Integer, EquityPriceHistory> prices = priceHistoryRepository.findLatestPricePerEquity().stream()
+                .collect(Collectors.toMap(p -> p.getEquity().getEquityId(), Function.identity(), (a, b) -> a));
+
+        List<MarketDayTotal> dayTotals = tradeRepository.sumDayTotals(LocalDate.now().atStartOfDay(), OrderSide.BUY);
+        Map<Integer, Trade> lastTrades = tradeRepository.findAllById(
+                        dayTotals.stream().map(MarketDayTotal::getLastTradeId).toList()).stream()
+                .collect(Collectors.toMap(Trade::getTradeId, Function.identity()));
+        Map<Integer, MarketDayTotal> totalsByEquity = new HashMap<>();
+        dayTotals.forEach(t -> totalsByEquity.put(t.getEquityId(), t));
+
+        Map<Integer, Quote> loaded = new ConcurrentHashMap<>();
+        for (Equity equity : equityRepository.findAll()) {
+            MarketDayTotal total = totalsByEquity.get(equity.getEquityId());
+            Trade last = total != null ? lastTrades.get(total.getLastTradeId()) : null;
+            loaded.put(equity.getEquityId(), new Quote(
+                    equity,
+                    prices.get(equity.getEquityId()),
+                    last != null ? last.getPrice() : null,
+                    total != null ? total.getQuantity() : 0L,
+                    last != null ? last.getTransactionTime() : null
+            ));
+        }
+        quotes = loaded;
+        version.incrementAndGet();
+        log.info("[SNAPSHOT] Loaded market snapshot for {} equities ({} with prices, {} traded today)",
+                loaded.size(), prices.size(), dayTotals.size());
+    }
+
+    private MarketSnapshotResponse currentSnapshot() {
+        long v = version.get();
+        MarketSnapshotResponse cached = snapshot;
+        if (cached != null && cached.getVersion() == v) {
+            return cached;
+        }
+
+        List<MarketSnapshotItemResponse> items = quotes.values().stream()
+                .sorted(Comparator.comparing(q -> q.equity().getEquityCode(), Comparator.nullsLast(String::compareTo)))
+                .map(MarketSnapshotServiceImpl::toItem)
+                .toList();
+        MarketSnapshotResponse built = MarketSnapshotResponse.builder().version(v).equities(items).build();
+        snapshot = built;
+        return built;
+    }
+
+    private static MarketSnapshotItemResponse toItem(Quote quote) {
+        MarketSnapshotItemResponse.MarketSnapshotItemResponseBuilder builder = MarketSnapshotItemResponse.builder()
+                .equityId(quote.equity().getEquityId())
+                .assetCode(quote.equity().getEquityCode())
+                .equityName(quote.equity().getEquityName())
+                .lastPrice(quote.lastPrice())
+                .dayVolume(quote.dayVolume())
+                .lastTradeAt(quote.lastTradeAt());
+
+        EquityPriceHistory price = quote.price();
+        if (price != null) {
+            builder.dataDate(price.getDataDate())
+                   .openPrice(price.getOpenPrice())
+                   .highPrice(price.getHighPrice())
+                   .lowPrice(price.getLowPrice())
+                   .closePrice(price.getClosePrice());
+        }
+        return builder.build();
+    }
+
+    private static MarketSnapshotItemResponse project(MarketSnapshotItemResponse item, Set<String> fields) {
+        MarketSnapshotItemResponse.MarketSnapshotItemResponseBuilder builder = MarketSnapshotItemResponse.builder()
+                .equityId(item.getEquityId());
+        for (String field : fields) {
+            switch (field) {
+                case "assetCode" -> builder.assetCode(item.getAssetCode());
+                case "equityName" -> builder.equityName(item.getEquityName());
+                case "dataDate" -> builder.dataDate(item.getDataDate());
+                case "openPrice" -> builder.openPrice(item.getOpenPrice());
+                case "highPrice" -> builder.highPrice(item.getHighPrice());
+                case "lowPrice" -> builder.lowPrice(item.getLowPrice());
+                case "closePrice" -> builder.closePrice(item.getClosePrice());
+                case "lastPrice" -> builder.lastPrice(item.getLastPrice());
+                case "dayVolume" -> builder.dayVolume(item.getDayVolume());
+                case "lastTradeAt" -> builder.lastTradeAt(item.getLastTradeAt());
+                default -> { }
+            }
+        }
+        return builder.build();
+    }
+}
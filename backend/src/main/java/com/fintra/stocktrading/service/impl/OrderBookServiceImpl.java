@@ -3,109 +3,103 @@ package com.fintra.stocktrading.service.impl;
 import com.fintra.stocktrading.exception.NotFoundException;
 import com.fintra.stocktrading.mapper.OrderBookMapper;
 import com.fintra.stocktrading.model.dto.response.OrderBookResponse;
+import com.fintra.stocktrading.model.dto.response.TopOfBookResponse;
 import com.fintra.stocktrading.model.entity.Equity;
-import com.fintra.stocktrading.model.entity.EquityOrder;
-import com.fintra.stocktrading.model.enums.OrderSide;
-import com.fintra.stocktrading.model.enums.OrderStatus;
 import com.fintra.stocktrading.repository.EquityOrderMatchRepository;
-import com.fintra.stocktrading.repository.EquityOrderRepository;
 import com.fintra.stocktrading.repository.EquityRepository;
 import com.fintra.stocktrading.service.OrderBookService;
+import com.fintra.stocktrading.service.matching.OrderBook;
+import com.fintra.stocktrading.service.matching.OrderBookEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the order book screen from the resident display books of {@link OrderBookEngine}.
+ * The aggregated snapshot of each equity is cached and rebuilt only when the book version
+ * has moved, so repeated polls of an unchanged book cost neither a query nor an allocation.
+ * Truncated depth and top-of-book reads walk only the levels they return.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderBookServiceImpl implements OrderBookService {
 
-    private final EquityOrderRepository equityOrderRepository;
     private final EquityRepository equityRepository;
     private final OrderBookMapper orderBookMapper;
     private final EquityOrderMatchRepository equityOrderMatchRepository;
+    private final OrderBookEngine orderBookEngine;
 
-    private static final List<OrderStatus> ORDERBOOK_STATUSES = Arrays.asList(
-            OrderStatus.PENDING,
-            OrderStatus.PARTIALLY_FILLED,
-            OrderStatus.UPDATED
-    );
+    private final Map<Integer, String> equityCodes = new ConcurrentHashMap<>();
+    private final Map<Integer, OrderBookResponse> snapshots = new ConcurrentHashMap<>();
 
     @Override
-    @Transactional(readOnly = true)
     public OrderBookResponse getOrderBookByEquityId(Integer equityId) {
-        log.info("Getting orderbook for equity ID: {}", equityId);
+        String equityCode = equityCodeOf(equityId);
+        OrderBook book = orderBookEngine.displayBookFor(equityId);
 
-        Equity equity = equityRepository.findById(equityId)
-                .orElseThrow(() -> new NotFoundException("Equity not found with ID: " + equityId));
-
-        List<EquityOrder> buyOrders = equityOrderRepository.findOrderBookOrdersByEquityIdAndSide(
-                equityId, ORDERBOOK_STATUSES, OrderSide.BUY
-        );
+        OrderBookResponse cached = snapshots.get(equityId);
+        if (cached != null && cached.getVersion() == book.getVersion()) {
+            return cached;
+        }
 
-        List<EquityOrder> sellOrders = equityOrderRepository.findOrderBookOrdersByEquityIdAndSide(
-                equityId, ORDERBOOK_STATUSES, OrderSide.SELL
-        );
+        OrderBookResponse snapshot = orderBookMapper.toOrderBookResponse(equityId, equityCode, book.depth(List.of()));
+        snapshots.put(equityId, snapshot);
+        log.debug("Rebuilt orderbook snapshot for equity ID: {} at version {} ({} bid / {} ask levels)",
+                equityId, snapshot.getVersion(), snapshot.getBids().size(), snapshot.getAsks().size());
+        return snapshot;
+    }
 
-        log.info("Found {} buy orders and {} sell orders for equity ID: {}",
-                buyOrders.size(), sellOrders.size(), equityId);
+    @Override
+    public OrderBookResponse getOrderBookByEquityId(Integer equityId, int levels) {
+        String equityCode = equityCodeOf(equityId);
+        OrderBook book = orderBookEngine.displayBookFor(equityId);
+
+        OrderBookResponse cached = snapshots.get(equityId);
+        if (cached != null && cached.getVersion() == book.getVersion()
+                && cached.getBids().size() <= levels && cached.getAsks().size() <= levels) {
+            return cached;
+        }
+        return orderBookMapper.toOrderBookResponse(equityId, equityCode, book.depth(levels, List.of()));
+    }
 
-        return orderBookMapper.toOrderBookResponse(
-                equityId,
-                equity.getEquityCode(),
-                buyOrders,
-                sellOrders
-        );
+    @Override
+    public TopOfBookResponse getTopOfBook(Integer equityId) {
+        String equityCode = equityCodeOf(equityId);
+        return orderBookMapper.toTopOfBookResponse(equityId, equityCode, orderBookEngine.displayBookFor(equityId).top());
     }
 
     @Override
-    @Transactional(readOnly = true)
     public OrderBookResponse getOrderBookByEquityIdExcludingOrder(Integer equityId, Integer excludeOrderId) {
         log.info("Getting orderbook for equity ID: {} excluding order ID: {}", equityId, excludeOrderId);
 
-        Equity equity = equityRepository.findById(equityId)
-                .orElseThrow(() -> new NotFoundException("Equity not found with ID: " + equityId));
+        String equityCode = equityCodeOf(equityId);
 
         List<Integer> matchedOrderIds = equityOrderMatchRepository.findMatchedOrderIds(excludeOrderId);
 
         List<Integer> excludeOrderIds = new ArrayList<>(matchedOrderIds);
         excludeOrderIds.add(excludeOrderId);
-        
-        log.info("Excluding order ID: {} and its {} matched orders: {}", 
-                excludeOrderId, matchedOrderIds.size(), matchedOrderIds);
 
-        List<EquityOrder> buyOrders;
-        List<EquityOrder> sellOrders;
-
-        if (excludeOrderIds.size() == 1) {
-            buyOrders = equityOrderRepository.findOrderBookOrdersByEquityIdAndSideExcludingOrder(
-                    equityId, ORDERBOOK_STATUSES, OrderSide.BUY, excludeOrderId
-            );
-            sellOrders = equityOrderRepository.findOrderBookOrdersByEquityIdAndSideExcludingOrder(
-                    equityId, ORDERBOOK_STATUSES, OrderSide.SELL, excludeOrderId
-            );
-        } else {
-            buyOrders = equityOrderRepository.findOrderBookOrdersByEquityIdAndSideExcludingMultipleOrders(
-                    equityId, ORDERBOOK_STATUSES, OrderSide.BUY, excludeOrderIds
-            );
-            sellOrders = equityOrderRepository.findOrderBookOrdersByEquityIdAndSideExcludingMultipleOrders(
-                    equityId, ORDERBOOK_STATUSES, OrderSide.SELL, excludeOrderIds
-            );
-        }
+        log.info("Excluding order ID: {} and its {} matched orders: {}",
+                excludeOrderId, matchedOrderIds.size(), matchedOrderIds);
 
-        log.info("Found {} buy orders and {} sell orders for equity ID: {} (excluding {} orders total)",
-                buyOrders.size(), sellOrders.size(), equityId, excludeOrderIds.size());
+        OrderBook.Depth depth = orderBookEngine.displayBookFor(equityId).depth(excludeOrderIds);
+        return orderBookMapper.toOrderBookResponse(equityId, equityCode, depth);
+    }
 
-        return orderBookMapper.toOrderBookResponse(
-                equityId,
-                equity.getEquityCode(),
-                buyOrders,
-                sellOrders
-        );
+    private String equityCodeOf(Integer equityId) {
+        String code = equityCodes.get(equityId);
+        if (code != null) {
+            return code;
+        }
+        Equity equity = equityRepository.findById(equityId)
+                .orElseThrow(() -> new NotFoundException("Equity not found with ID: " + equityId));
+        equityCodes.put(equityId, equity.getEquityCode());
+        return equity.getEquityCode();
     }
 }
@@ -1,32 +1,32 @@
 package com.fintra.stocktrading.service.impl;
 
-import com.fintra.stocktrading.event.TradeMatchedEvent;
 import com.fintra.stocktrading.exception.NotFoundException;
 import com.fintra.stocktrading.model.entity.EquityOrder;
-import com.fintra.stocktrading.model.entity.EquityOrderMatch;
-import com.fintra.stocktrading.model.entity.Trade;
 import com.fintra.stocktrading.model.enums.OrderSide;
 import com.fintra.stocktrading.model.enums.OrderStatus;
 import com.fintra.stocktrading.model.enums.OrderType;
-import com.fintra.stocktrading.model.enums.TradeStatus;
-import com.fintra.stocktrading.repository.EquityOrderMatchRepository;
 import com.fintra.stocktrading.repository.EquityOrderRepository;
-import com.fintra.stocktrading.repository.TradeRepository;
 import com.fintra.stocktrading.service.*;
-import com.fintra.stocktrading.service.event.TradeEventPublisher;
+import com.fintra.stocktrading.service.matching.FillJournalEntry;
+import com.fintra.stocktrading.service.matching.FillPersistenceStage;
+import com.fintra.stocktrading.service.matching.MatchIdAllocator;
+import com.fintra.stocktrading.service.matching.OrderBookEngine;
+import com.fintra.stocktrading.service.matching.PriceTicks;
+import com.fintra.stocktrading.service.matching.TradingRulesCache;
+import com.fintra.stocktrading.service.matching.TradingRulesCache.TradingRules;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,12 +35,11 @@ import java.util.stream.Collectors;
 public class OrderMatchingServiceImpl implements OrderMatchingService {
 
     private final EquityOrderRepository orderRepository;
-    private final EquityOrderLogService equityOrderLogService;
-    private final TradeRepository tradeRepository;
-    private final TradeEventPublisher tradeEventPublisher;
     private final EquityStockService equityStockService;
-    private final EquityOrderHistoryService orderHistoryService;
-    private final EquityOrderMatchRepository orderMatchRepository;
+    private final FillPersistenceStage fillPersistenceStage;
+    private final MatchIdAllocator matchIdAllocator;
+    private final OrderBookEngine orderBookEngine;
+    private final TradingRulesCache tradingRulesCache;
 
     private static final ZoneId TR = ZoneId.of("Europe/Istanbul");
 
@@ -65,22 +64,22 @@ public class OrderMatchingServiceImpl implements OrderMatchingService {
     private void doMatchById(Integer newOrderId) {
         log.info("[MATCH] Started matchOrder for newOrderId={}", newOrderId);
 
-        EquityOrder newOrder = loadForUpdate(newOrderId);
+        EquityOrder newOrder = loadOrder(newOrderId);
 
         if (isExpiredDayOrder(newOrder)) {
             log.warn("[MATCH] Order expired (day order)");
             updateStatus(newOrder, OrderStatus.EXPIRED);
-            equityOrderLogService.logStatusChange(newOrder, OrderStatus.EXPIRED, null, "Day order expired");
+            logStatus(newOrder, OrderStatus.EXPIRED);
             orderRepository.save(newOrder);
+            orderBookEngine.remove(newOrder);
             return;
         }
 
         validateBandAndTick(newOrder);
 
-        List<EquityOrder> oppositeOrders = findOppositeOrders(newOrder);
-
         int remainingQty = computeRemainingQty(newOrder);
-        Integer matchId = (int) (System.currentTimeMillis() % Integer.MAX_VALUE);
+
+        List<EquityOrder> oppositeOrders = findOppositeOrders(newOrder, remainingQty);
 
         int filledTotal = 0;
         BigDecimal lastExecPrice = null;
@@ -92,23 +91,9 @@ public class OrderMatchingServiceImpl implements OrderMatchingService {
             if (availableOpp > 0) {
                 int matchQty = Math.min(remainingQty, availableOpp);
 
-                BigDecimal price = determineTradePrice(newOrder, opp);
-
-                Trade[] trades = createTrades(matchId, newOrder, opp, matchQty, price);
-                Trade tNew = trades[0];
-                Trade tOpp = trades[1];
-
-                recordMatch(matchId, newOrder, opp);
+                BigDecimal price = PriceTicks.toPrice(determineTradeTicks(newOrder, opp));
 
-                Trade buyTrade  = (newOrder.getOrderSide() == OrderSide.BUY) ? tNew : tOpp;
-                Trade sellTrade = (newOrder.getOrderSide() == OrderSide.BUY) ? tOpp : tNew;
-
-                TradeMatchedEvent event = buildEvent(newOrder, opp, matchQty, price);
-                event.setMatchId(matchId);
-                event.setBuyTradeId(buyTrade.getTradeId());
-                event.setSellTradeId(sellTrade.getTradeId());
-
-                publishAfterCommit(event);
+                recordFill(matchIdAllocator.nextMatchId(), newOrder, opp, matchQty, price);
 
                 int newOppRemaining = availableOpp - matchQty;
                 updateOppAfterMatch(opp, newOppRemaining);
@@ -124,18 +109,16 @@ public class OrderMatchingServiceImpl implements OrderMatchingService {
 
     @Override
     @Transactional
-    public void matchAllOpenOrders() {
-        var openStatuses = List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
-        for (var o : orderRepository.findByFinalStatusIn(openStatuses)) {
-            var rem = o.getRemainingQuantity();
-            if (rem != null && rem > 0) {
+    public void matchOpenOrdersForEquity(Integer equityId) {
+        for (var o : orderRepository.findOpenOrdersByEquityId(equityId, OrderBookEngine.MATCHABLE_STATUSES)) {
+            if (OrderBookEngine.MATCHABLE_STATUSES.contains(o.getFinalStatus()) && computeRemainingQty(o) > 0) {
                 doMatchById(o.getOrderId());
             }
         }
     }
 
-    private EquityOrder loadForUpdate(Integer id) {
-        return orderRepository.findByIdForUpdate(id)
+    private EquityOrder loadOrder(Integer id) {
+        return orderRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Order not found: " + id));
     }
 
@@ -145,24 +128,29 @@ public class OrderMatchingServiceImpl implements OrderMatchingService {
         return !LocalDate.now(TR).equals(orderDay);
     }
 
-    private List<EquityOrder> findOppositeOrders(EquityOrder taker) {
-        var open = List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
-
-        var list = orderRepository.findByFinalStatusIn(open).stream()
-                .filter(o -> o.getEquity().getEquityId().equals(taker.getEquity().getEquityId()))
-                .filter(o -> o.getOrderSide() != taker.getOrderSide())
-                .filter(o -> computeRemainingQty(o) > 0)
-                .filter(o -> priceOk(taker, o))
+    private List<EquityOrder> findOppositeOrders(EquityOrder taker, int quantity) {
+        List<Integer> ids = orderBookEngine.findCrossingOrderIds(taker, quantity);
+        if (ids.isEmpty()) return List.of();
+
+        Map<Integer, EquityOrder> byId = orderRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(EquityOrder::getOrderId, Function.identity()));
+        long takerLimit = limitTicks(taker);
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .filter(o -> {
+                    boolean ok = OrderBookEngine.MATCHABLE_STATUSES.contains(o.getFinalStatus())
+                            && o.getOrderSide() != taker.getOrderSide()
+                            && computeRemainingQty(o) > 0
+                            && priceOk(taker, takerLimit, o);
+                    if (!ok) {
+                        log.warn("[MATCH] Stale book entry orderId={}, resyncing", o.getOrderId());
+                        orderBookEngine.sync(o);
+                    }
+                    return ok;
+                })
                 .collect(Collectors.toList());
-
-        if (taker.getOrderSide() == OrderSide.BUY) {
-            list.sort(Comparator.comparing(EquityOrder::getPrice)
-                    .thenComparing(EquityOrder::getEntryDate));
-        } else {
-            list.sort(Comparator.comparing(EquityOrder::getPrice).reversed()
-                    .thenComparing(EquityOrder::getEntryDate));
-        }
-        return list;
     }
 
     private int computeRemainingQty(EquityOrder o) {
@@ -172,48 +160,28 @@ public class OrderMatchingServiceImpl implements OrderMatchingService {
         return ord != null ? ord : 0;
     }
 
-    private boolean priceOk(EquityOrder taker, EquityOrder maker) {
-        if (taker.getOrderType() == OrderType.MARKET) return true;
-        if (taker.getPrice() == null || maker.getPrice() == null) return false;
-        return (taker.getOrderSide() == OrderSide.BUY)
-                ? taker.getPrice().compareTo(maker.getPrice()) >= 0
-                : taker.getPrice().compareTo(maker.getPrice()) <= 0;
-    }
-
-    private BigDecimal determineTradePrice(EquityOrder taker, EquityOrder maker) {
+    private long limitTicks(EquityOrder taker) {
         if (taker.getOrderType() == OrderType.MARKET) {
-            return maker.getPrice();
-        }
-        if (taker.getOrderSide() == OrderSide.BUY) {
-            return taker.getPrice().min(maker.getPrice());
-        } else {
-            return taker.getPrice().max(maker.getPrice());
+            return taker.getOrderSide() == OrderSide.BUY ? PriceTicks.MARKET_BUY : PriceTicks.MARKET_SELL;
         }
+        return taker.getPrice() != null ? PriceTicks.toTicks(taker.getPrice()) : PriceTicks.MARKET_SELL;
     }
 
-    private Trade[] createTrades(Integer matchId, EquityOrder a, EquityOrder b, int qty, BigDecimal price) {
-        Trade ta = tradeRepository.save(Trade.builder()
-                .matchId(matchId)
-                .equityOrder(a)
-                .tradeQuantity(qty)
-                .price(price)
-                .commission(BigDecimal.ZERO)
-                .transactionTime(LocalDateTime.now())
-                .status(TradeStatus.MATCHED)
-                .build());
-
-        Trade tb = tradeRepository.save(Trade.builder()
-                .matchId(matchId)
-                .equityOrder(b)
-                .tradeQuantity(qty)
-                .price(price)
-                .commission(BigDecimal.ZERO)
-                .transactionTime(LocalDateTime.now())
-                .status(TradeStatus.MATCHED)
-                .build());
+    private boolean priceOk(EquityOrder taker, long takerLimit, EquityOrder maker) {
+        if (maker.getPrice() == null) return false;
+        if (taker.getOrderType() != OrderType.MARKET && taker.getPrice() == null) return false;
+        return PriceTicks.crosses(taker.getOrderSide() == OrderSide.BUY, takerLimit, PriceTicks.toTicks(maker.getPrice()));
+    }
 
-        tradeRepository.flush();
-        return new Trade[]{ta, tb};
+    private long determineTradeTicks(EquityOrder taker, EquityOrder maker) {
+        long makerTicks = PriceTicks.toTicks(maker.getPrice());
+        if (taker.getOrderType() == OrderType.MARKET) {
+            return makerTicks;
+        }
+        long takerTicks = PriceTicks.toTicks(taker.getPrice());
+        return (taker.getOrderSide() == OrderSide.BUY)
+                ? Math.min(takerTicks, makerTicks)
+                : Math.max(takerTicks, makerTicks);
     }
 
     @SuppressWarnings("unused")
@@ -248,57 +216,57 @@ public class OrderMatchingServiceImpl implements OrderMatchingService {
         }
     }
 
-    private TradeMatchedEvent buildEvent(EquityOrder newOrder, EquityOrder opp, int qty, BigDecimal price) {
-        var event = new TradeMatchedEvent();
-        if (newOrder.getOrderSide() == OrderSide.BUY) {
-            event.setBuyOrderId(newOrder.getOrderId());
-            event.setSellOrderId(opp.getOrderId());
-        } else {
-            event.setBuyOrderId(opp.getOrderId());
-            event.setSellOrderId(newOrder.getOrderId());
-        }
-        event.setQuantity(qty);
-        event.setPrice(price);
-        event.setTimestamp(LocalDateTime.now());
-        return event;
+    private void recordFill(Integer matchId, EquityOrder taker, EquityOrder maker, int qty, BigDecimal price) {
+        EquityOrder buy  = (taker.getOrderSide() == OrderSide.BUY) ? taker : maker;
+        EquityOrder sell = (taker.getOrderSide() == OrderSide.BUY) ? maker : taker;
+
+        fillPersistenceStage.record(FillJournalEntry.builder()
+                .kind(FillJournalEntry.Kind.FILL)
+                .equityId(taker.getEquity().getEquityId())
+                .matchId(matchId)
+                .buyOrderId(buy.getOrderId())
+                .sellOrderId(sell.getOrderId())
+                .buyAccountId(buy.getAccount().getAccountId())
+                .sellAccountId(sell.getAccount().getAccountId())
+                .quantity(qty)
+                .price(price)
+                .time(LocalDateTime.now())
+                .build());
     }
 
-    private void validateBandAndTick(EquityOrder order) {
-        if (order == null || order.getEquity() == null || order.getPrice() == null) return;
-        validateBand(order);
-        validateTick(order);
+    private void logStatus(EquityOrder order, OrderStatus status) {
+        fillPersistenceStage.record(FillJournalEntry.builder()
+                .kind(FillJournalEntry.Kind.STATUS_LOG)
+                .orderId(order.getOrderId())
+                .orderStatus(status)
+                .time(LocalDateTime.now())
+                .build());
     }
 
-    private void validateBand(EquityOrder order) {
-        try {
-            var m = order.getEquity().getClass().getMethod("getReferencePrice");
-            var ref = (BigDecimal) m.invoke(order.getEquity());
-            if (ref != null) {
-                var upper = ref.multiply(BigDecimal.valueOf(1.10));
-                var lower = ref.multiply(BigDecimal.valueOf(0.90));
-                if (order.getPrice().compareTo(lower) < 0 || order.getPrice().compareTo(upper) > 0) {
-                    throw new IllegalArgumentException("Price out of ±10% band");
-                }
-            }
-        } catch (NoSuchMethodException e) {
-            log.debug("Equity has no referencePrice; band check skipped");
-        } catch (ReflectiveOperationException e) {
-            log.warn("Cannot read referencePrice via reflection", e);
-        }
+    private void recordHistory(EquityOrder order) {
+        fillPersistenceStage.record(FillJournalEntry.builder()
+                .kind(FillJournalEntry.Kind.HISTORY)
+                .orderId(order.getOrderId())
+                .quantity(order.getOrderQuantity())
+                .price(order.getPrice())
+                .orderStatus(order.getFinalStatus())
+                .orderSide(order.getOrderSide())
+                .orderType(order.getOrderType())
+                .time(LocalDateTime.now().withNano(0))
+                .build());
     }
 
-    private void validateTick(EquityOrder order) {
-        try {
-            var m = order.getEquity().getClass().getMethod("getTickStep");
-            var tick = (BigDecimal) m.invoke(order.getEquity());
-            if (tick != null && tick.signum() > 0
-                    && order.getPrice().remainder(tick).compareTo(BigDecimal.ZERO) != 0) {
-                throw new IllegalArgumentException("Price not aligned to tick size");
-            }
-        } catch (NoSuchMethodException e) {
-            log.debug("Equity has no tickStep; tick check skipped");
-        } catch (ReflectiveOperationException e) {
-            log.warn("Cannot read tickStep via reflection", e);
+    private void validateBandAndTick(EquityOrder order) {
+        if (order == null || order.getEquity() == null || order.getPrice() == null) return;
+        TradingRules rules = tradingRulesCache.rulesFor(order.getEquity().getEquityId());
+        if (rules == null) return;
+
+        long priceTicks = PriceTicks.toTicks(order.getPrice());
+        if (!rules.withinBand(priceTicks)) {
+            throw new IllegalArgumentException("Price out of daily price band");
+        }
+        if (!rules.onTick(priceTicks)) {
+            throw new IllegalArgumentException("Price not aligned to tick size");
         }
     }
 
@@ -308,85 +276,62 @@ public class OrderMatchingServiceImpl implements OrderMatchingService {
         o.setUpdatedAt(LocalDateTime.now());
     }
 
-    private void publishAfterCommit(TradeMatchedEvent event) {
-        if (TransactionSynchronizationManager.isSynchronizationActive()) {
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override public void afterCommit() {
-                    log.info("[MATCH] Transaction committed, sending Kafka event");
-                    tradeEventPublisher.publishTradeMatchedEvent(event);
-                }
-            });
-        } else {
-            log.warn("[MATCH] No active transaction, publishing immediately");
-            tradeEventPublisher.publishTradeMatchedEvent(event);
-        }
-    }
-
     private void updateOppAfterMatch(EquityOrder opp, int newOppRemaining) {
         newOppRemaining = Math.max(0, newOppRemaining);
         opp.setRemainingQuantity(newOppRemaining);
 
+        OrderStatus prevStatus = opp.getFinalStatus();
         OrderStatus status = (newOppRemaining == 0) ? OrderStatus.FILLED : OrderStatus.PARTIALLY_FILLED;
         updateStatus(opp, status);
 
-        equityOrderLogService.logStatusChange(
-                opp, status, null,
-                (newOppRemaining == 0) ? "Order fully matched/filled" : "Order partially matched"
-        );
-        orderRepository.saveAndFlush(opp);
-        orderHistoryService.recordHistory(
-                opp,
-                null,
-                null,
-                LocalDateTime.now()
-        );
+        logStatus(opp, status);
+        orderRepository.save(opp);
+        orderBookEngine.reduce(opp, newOppRemaining);
+        if (status != prevStatus) {
+            recordHistory(opp);
+        }
 
         log.debug("[MATCH] Opp {} -> rem={}, status={}", opp.getOrderId(), newOppRemaining, status);
     }
 
     private void finalizeNewOrderAfterLoop(EquityOrder newOrder, int remainingQty,
                                            int filledTotal, BigDecimal lastExecPrice) {
+        OrderStatus prevStatus = newOrder.getFinalStatus();
+        OrderType prevType = newOrder.getOrderType();
+        BigDecimal prevPrice = newOrder.getPrice();
+
         newOrder.setRemainingQuantity(remainingQty);
 
         if (remainingQty == 0) {
             updateStatus(newOrder, OrderStatus.FILLED);
-            equityOrderLogService.logStatusChange(newOrder, OrderStatus.FILLED, null, "Order fully matched/filled");
+            logStatus(newOrder, OrderStatus.FILLED);
         } else if (newOrder.getOrderType() == OrderType.MARKET) {
             if (filledTotal > 0 && lastExecPrice != null) {
                 newOrder.setOrderType(OrderType.DAY);
                 newOrder.setPrice(lastExecPrice);
                 updateStatus(newOrder, OrderStatus.PARTIALLY_FILLED);
-                equityOrderLogService.logStatusChange(newOrder, OrderStatus.PARTIALLY_FILLED, null,
-                        "MTL: remainder resting at last executed price");
+                logStatus(newOrder, OrderStatus.PARTIALLY_FILLED);
             } else {
                 updateStatus(newOrder, OrderStatus.PENDING);
-                equityOrderLogService.logStatusChange(newOrder, OrderStatus.PENDING, null,
-                        "Market order pending: awaiting opposite liquidity");
+                logStatus(newOrder, OrderStatus.PENDING);
             }
         } else {
             if (filledTotal > 0) {
             updateStatus(newOrder, OrderStatus.PARTIALLY_FILLED);
-            equityOrderLogService.logStatusChange(newOrder, OrderStatus.PARTIALLY_FILLED, null, "Order partially matched");
+            logStatus(newOrder, OrderStatus.PARTIALLY_FILLED);
             } else {
             updateStatus(newOrder, OrderStatus.PENDING);
-            equityOrderLogService.logStatusChange(newOrder, OrderStatus.PENDING, null, "No match; resting on book");
+            logStatus(newOrder, OrderStatus.PENDING);
         }
         }
 
         orderRepository.save(newOrder);
-        orderHistoryService.recordHistory(newOrder, null, null, LocalDateTime.now());
-    }
-
-    private void recordMatch(Integer matchId, EquityOrder taker, EquityOrder maker) {
-        EquityOrder buy  = (taker.getOrderSide() == OrderSide.BUY) ? taker : maker;
-        EquityOrder sell = (taker.getOrderSide() == OrderSide.BUY) ? maker : taker;
-
-        orderMatchRepository.save(
-                EquityOrderMatch.builder()
-                        .matchId(matchId)
-                        .buyOrder(buy)
-                        .sellOrder(sell)
-                        .build()
-        );
+        orderBookEngine.sync(newOrder);
+        boolean changed = newOrder.getFinalStatus() != prevStatus
+                || newOrder.getOrderType() != prevType
+                || !Objects.equals(newOrder.getPrice(), prevPrice);
+        if (changed) {
+            recordHistory(newOrder);
+        }
     }
 }
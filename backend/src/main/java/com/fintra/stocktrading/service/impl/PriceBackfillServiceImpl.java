@@ -0,0 +1,270 @@
+package com.fintra.stocktrading.service.impl;
+
+import com.fintra.stocktrading.exception.BadRequestException;
+import com.fintra.stocktrading.exception.ConflictException;
+import com.fintra.stocktrading.model.dto.external.ExternalPriceRecordDto;
+import com.fintra.stocktrading.model.dto.response.PriceBackfillResponse;
+import com.fintra.stocktrading.model.dto.response.PriceBackfillWindowResponse;
+import com.fintra.stocktrading.model.entity.Equity;
+import com.fintra.stocktrading.model.entity.PriceBackfillWindow;
+import com.fintra.stocktrading.model.enums.BackfillStatus;
+import com.fintra.stocktrading.repository.PriceBackfillWindowRepository;
+import com.fintra.stocktrading.service.EquityApiService;
+import com.fintra.stocktrading.service.PriceBackfillService;
+import com.fintra.stocktrading.service.pricehistory.PriceHistoryWriter;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads price history over long ranges. The range is split into windows aligned on
+ * {@code window-days} boundaries, each recorded in {@code price_backfill_windows} so a run
+ * interrupted by a failure or a restart resumes with the windows that are not done.
+ * <p>
+ * Windows are requested at most {@code rate-per-second} times a second with at most
+ * {@code concurrency} responses streaming at once. Their records are merged in chunks on a
+ * single writer thread, which pulls from the streams, so memory stays bounded by a few chunks
+ * per open window whatever the range.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceBackfillServiceImpl implements PriceBackfillService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final PriceBackfillWindowRepository windowRepository;
+    private final EquityApiService equityApiService;
+    private final PriceHistoryWriter priceHistoryWriter;
+
+    @Value("${app.price-backfill.window-days:30}")
+    private int windowDays;
+
+    @Value("${app.price-backfill.concurrency:4}")
+    private int concurrency;
+
+    @Value("${app.price-backfill.rate-per-second:2}")
+    private double ratePerSecond;
+
+    @Value("${app.price-backfill.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "price-backfill");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // One item pulled by the writer: a chunk of records, or the end of a window.
+    private record WindowChunk(PriceBackfillWindow window, List<ExternalPriceRecordDto> records,
+                               boolean last, Throwable error) {
+    }
+
+    @Override
+    public PriceBackfillResponse startBackfill(LocalDate from, LocalDate to) {
+        LocalDate latest = LocalDate.now().minusDays(1);
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new BadRequestException("Backfill start date must not be after its end date");
+        }
+        if (to.isAfter(latest)) {
+            throw new BadRequestException("Backfill can only cover dates up to " + latest);
+        }
+
+        List<PriceBackfillWindow> windows = planWindows(from, to).stream()
+                .filter(w -> w.getStatus() != BackfillStatus.DONE)
+                .toList();
+        if (windows.isEmpty()) {
+            log.info("[BACKFILL] Price history from {} to {} is already loaded", from, to);
+        } else {
+            start(windows);
+        }
+        return getProgress();
+    }
+
+    @Override
+    public PriceBackfillResponse getProgress() {
+        List<PriceBackfillWindow> windows = windowRepository.findAllByOrderByWindowStart();
+        Map<BackfillStatus, Integer> byStatus = new HashMap<>();
+        long records = 0;
+        for (PriceBackfillWindow window : windows) {
+            byStatus.merge(window.getStatus(), 1, Integer::sum);
+            records += window.getRecordCount();
+        }
+
+        return PriceBackfillResponse.builder()
+                .running(running.get())
+                .totalWindows(windows.size())
+                .doneWindows(byStatus.getOrDefault(BackfillStatus.DONE, 0))
+                .failedWindows(byStatus.getOrDefault(BackfillStatus.FAILED, 0))
+                .pendingWindows(byStatus.getOrDefault(BackfillStatus.PENDING, 0))
+                .recordCount(records)
+                .windows(windows.stream().map(PriceBackfillServiceImpl::toResponse).toList())
+                .build();
+    }
+
+    /**
+     * Picks up windows left pending by a run the previous process did not finish. Failed
+     * windows wait for the next explicit run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        if (!resumeOnStartup) return;
+        List<PriceBackfillWindow> pending = windowRepository.findByStatusOrderByWindowStart(BackfillStatus.PENDING);
+        if (!pending.isEmpty() && !running.get()) {
+            log.info("[BACKFILL] Resuming {} pending price history windows", pending.size());
+            start(pending);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void start(List<PriceBackfillWindow> windows) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("A price history backfill is already running");
+        }
+        try {
+            runner.execute(() -> {
+                try {
+                    run(windows);
+                } catch (RuntimeException e) {
+                    log.error("[BACKFILL] Price history backfill aborted: {}", e.getMessage(), e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private List<PriceBackfillWindow> planWindows(LocalDate from, LocalDate to) {
+        Set<List<LocalDate>> known = new HashSet<>();
+        List<PriceBackfillWindow> windows = new ArrayList<>(windowRepository.findWithinRange(from, to));
+        windows.forEach(w -> known.add(List.of(w.getWindowStart(), w.getWindowEnd())));
+
+        List<PriceBackfillWindow> missing = new ArrayList<>();
+        LocalDate start = from;
+        while (!start.isAfter(to)) {
+            // Interior boundaries fall on multiples of window-days since the epoch, so
+            // overlapping requests reuse the same windows.
+            long bucketEnd = Math.floorDiv(start.toEpochDay(), windowDays) * windowDays + windowDays - 1;
+            LocalDate end = LocalDate.ofEpochDay(Math.min(bucketEnd, to.toEpochDay()));
+            if (!known.contains(List.of(start, end))) {
+                missing.add(PriceBackfillWindow.builder().windowStart(start).windowEnd(end).build());
+            }
+            start = end.plusDays(1);
+        }
+
+        if (!missing.isEmpty()) {
+            windows.addAll(windowRepository.saveAll(missing));
+            log.info("[BACKFILL] Recorded {} new windows for {} to {}", missing.size(), from, to);
+        }
+        return windows;
+    }
+
+    private void run(List<PriceBackfillWindow> windows) {
+        long t0 = System.currentTimeMillis();
+        log.info("[BACKFILL] Loading {} windows, concurrency {}, {} requests/s",
+                windows.size(), concurrency, ratePerSecond);
+
+        Map<String, Equity> equityLookupMap = priceHistoryWriter.equityLookup();
+        Map<Integer, Integer> merged = new HashMap<>();
+        Set<Integer> writeFailed = new HashSet<>();
+        int done = 0;
+        int failed = 0;
+
+        for (WindowChunk chunk : fetchAll(windows)) {
+            PriceBackfillWindow window = chunk.window();
+            Integer id = window.getWindowId();
+            if (chunk.error() != null || (chunk.last() && writeFailed.remove(id))) {
+                String error = chunk.error() != null ? chunk.error().getMessage() : "Price history write failed";
+                finish(window, BackfillStatus.FAILED, merged.remove(id), error);
+                failed++;
+            } else if (chunk.last()) {
+                finish(window, BackfillStatus.DONE, merged.remove(id), null);
+                done++;
+            } else if (!writeFailed.contains(id)) {
+                try {
+                    PriceHistoryWriter.MergeResult result = priceHistoryWriter.merge(chunk.records(), equityLookupMap);
+                    merged.merge(id, result.merged(), Integer::sum);
+                } catch (RuntimeException e) {
+                    log.warn("[BACKFILL] Writing window {} to {} failed: {}",
+                            window.getWindowStart(), window.getWindowEnd(), e.getMessage());
+                    writeFailed.add(id);
+                }
+            }
+        }
+
+        log.info("[BACKFILL] Finished in {} ms: {} windows done, {} failed",
+                System.currentTimeMillis() - t0, done, failed);
+    }
+
+    private Iterable<WindowChunk> fetchAll(List<PriceBackfillWindow> windows) {
+        Flux<PriceBackfillWindow> paced = ratePerSecond > 0
+                ? Flux.fromIterable(windows).delayElements(Duration.ofNanos((long) (1_000_000_000L / ratePerSecond)))
+                : Flux.fromIterable(windows);
+
+        return paced
+                .flatMap(this::fetchWindow, concurrency, 2)
+                .toIterable(concurrency * 2);
+    }
+
+    private Flux<WindowChunk> fetchWindow(PriceBackfillWindow window) {
+        return equityApiService
+                .streamPriceHistoryByDateRange(window.getWindowStart().format(DateTimeFormatter.ISO_LOCAL_DATE),
+                        window.getWindowEnd().format(DateTimeFormatter.ISO_LOCAL_DATE))
+                .buffer(PriceHistoryWriter.ROWS_PER_STATEMENT)
+                .map(records -> new WindowChunk(window, records, false, null))
+                .concatWith(Mono.fromSupplier(() -> new WindowChunk(window, List.of(), true, null)))
+                .onErrorResume(e -> {
+                    log.warn("[BACKFILL] Fetching window {} to {} failed: {}",
+                            window.getWindowStart(), window.getWindowEnd(), e.getMessage());
+                    return Mono.just(new WindowChunk(window, List.of(), true, e));
+                });
+    }
+
+    private void finish(PriceBackfillWindow window, BackfillStatus status, Integer recordCount, String error) {
+        window.setStatus(status);
+        window.setRecordCount(recordCount != null ? recordCount : 0);
+        window.setAttempts(window.getAttempts() + 1);
+        window.setLastError(error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        windowRepository.save(window);
+    }
+
+    private static PriceBackfillWindowResponse toResponse(PriceBackfillWindow window) {
+        return PriceBackfillWindowResponse.builder()
+                .windowStart(window.getWindowStart())
+                .windowEnd(window.getWindowEnd())
+                .status(window.getStatus())
+                .recordCount(window.getRecordCount())
+                .attempts(window.getAttempts())
+                .lastError(window.getLastError())
+                .updatedAt(window.getUpdatedAt())
+                .build();
+    }
+}
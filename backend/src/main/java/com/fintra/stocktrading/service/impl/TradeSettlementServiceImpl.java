@@ -1,260 +1,311 @@
 package com.fintra.stocktrading.service.impl;
 
-import com.fintra.stocktrading.model.entity.*;
+import com.fintra.stocktrading.model.dto.response.SettlementAccountPreviewResponse;
+import com.fintra.stocktrading.model.dto.response.SettlementPositionPreviewResponse;
+import com.fintra.stocktrading.model.dto.response.SettlementPreviewResponse;
+import com.fintra.stocktrading.model.entity.SettlementCheckpoint;
+import com.fintra.stocktrading.model.enums.OrderSide;
+import com.fintra.stocktrading.model.enums.SettlementPhase;
 import com.fintra.stocktrading.model.enums.TradeStatus;
 import com.fintra.stocktrading.repository.EquityOrderMatchRepository;
+import com.fintra.stocktrading.repository.SettlementCheckpointRepository;
 import com.fintra.stocktrading.repository.TradeRepository;
-import com.fintra.stocktrading.service.BusinessDayService;
 import com.fintra.stocktrading.service.CashBalanceService;
-import com.fintra.stocktrading.service.EquityStockService;
-import com.fintra.stocktrading.service.EquityDistributionService;
+import com.fintra.stocktrading.service.CashBalanceService.BalanceDelta;
 import com.fintra.stocktrading.service.TradeSettlementService;
+import com.fintra.stocktrading.service.settlement.SettlementLeg;
+import com.fintra.stocktrading.service.settlement.SettlementNetting;
+import com.fintra.stocktrading.service.settlement.SettlementNetting.CashDelta;
+import com.fintra.stocktrading.service.settlement.SettlementNetting.PositionDelta;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TradeSettlementServiceImpl implements TradeSettlementService {
 
+    private static final String RELEASE_SOLD_STOCK =
+            "UPDATE equity_stocks SET blocked_quantity = blocked_quantity - ?, updated_at = ? " +
+                    "WHERE account_id = ? AND equity_id = ? AND blocked_quantity >= ?";
+    private static final String ADD_BOUGHT_STOCK =
+            "UPDATE equity_stocks SET " +
+                    "avg_cost = ROUND((COALESCE(avg_cost, 0) * (free_quantity + blocked_quantity) + ?) " +
+                    "/ (free_quantity + blocked_quantity + ?), 4), " +
+                    "free_quantity = free_quantity + ?, updated_at = ? " +
+                    "WHERE account_id = ? AND equity_id = ?";
+    private static final String INSERT_STOCK =
+            "INSERT INTO equity_stocks (account_id, equity_id, free_quantity, blocked_quantity, avg_cost, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, 0, ?, ?, ?)";
+    private static final String INSERT_DISTRIBUTION =
+            "INSERT INTO equity_distributions (order_id, account_id, equity_id, side, distribution_quantity, price, " +
+                    "transaction_time, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private final EquityOrderMatchRepository matchRepo;
     private final TradeRepository tradeRepo;
+    private final SettlementCheckpointRepository checkpointRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
     private final CashBalanceService cashBalanceService;
-    private final EquityStockService equityStockService;
-    private final EquityDistributionService equityDistributionService;
-    private final BusinessDayService businessDayService;
 
+    @Value("${app.settlement.account-chunk-size:500}")
+    private int accountChunkSize;
+
+    @Value("${app.settlement.match-chunk-size:500}")
+    private int matchChunkSize;
+
+    @Value("${app.settlement.parallelism:4}")
+    private int parallelism;
+
+    /**
+     * Settles the day in two restartable phases. Positions: the day is netted per account and
+     * per (account, equity) and applied in parallel account chunks, each in its own transaction
+     * and checkpointed. Trades: matches are marked SETTLED and their distributions written in
+     * parallel match chunks. A rerun skips checkpointed position chunks and already settled trades.
+     */
     @Override
-    @Transactional
     public int settleTradesOnDate(LocalDate tradeDate) {
         LocalDateTime startOfDay = tradeDate.atStartOfDay();
         LocalDateTime endOfDay   = tradeDate.atTime(LocalTime.MAX);
 
-        List<EquityOrderMatch> matches = matchRepo.findByMatchTimeBetween(startOfDay, endOfDay);
-        if (matches.isEmpty()) {
+        List<SettlementLeg> legs = matchRepo.findUnsettledLegs(startOfDay, endOfDay, TradeStatus.SETTLED);
+        if (legs.isEmpty()) {
             log.info("No matches to settle for date: {}", tradeDate);
             return 0;
         }
 
-        log.info("Starting T+2 settlement for {} matches on date: {}", matches.size(), tradeDate);
-
-        int actuallySettled = 0;
-        for (EquityOrderMatch match : matches) {
-            try {
-                boolean wasSettled = settleMatch(match);
-                if (wasSettled) {
-                    actuallySettled++;
-                }
-            } catch (Exception ex) {
-                log.error("Error settling match {}: {}", match.getMatchRecordId(), ex.getMessage(), ex);
-            }
+        List<SettlementLeg> inconsistent = legs.stream().filter(l -> !l.isConsistent()).toList();
+        if (!inconsistent.isEmpty()) {
+            inconsistent.stream().limit(20).forEach(l ->
+                    log.error("Match {} has inconsistent trade data: buy(qty={}, price={}) vs sell(qty={}, price={})",
+                            l.getMatchId(), l.getBuyQuantity(), l.getBuyPrice(), l.getSellQuantity(), l.getSellPrice()));
+            throw new IllegalStateException(inconsistent.size() + " matches on " + tradeDate + " have inconsistent trade data");
         }
 
-        log.info("T+2 settlement completed: {} out of {} matches actually settled on {}", 
-                actuallySettled, matches.size(), tradeDate);
-        return actuallySettled;
-    }
+        log.info("Starting T+2 settlement for {} matches on date: {}", legs.size(), tradeDate);
 
-    private boolean settleMatch(EquityOrderMatch match) {
-        Integer matchId = match.getMatchId();
-        
-        try {
-            EquityOrder buyOrder  = match.getBuyOrder();
-            EquityOrder sellOrder = match.getSellOrder();
+        if (checkpointRepo.existsByTradeDateAndPhase(tradeDate, SettlementPhase.POSITIONS_COMPLETE)) {
+            log.info("Positions for {} already applied, resuming trade finalisation", tradeDate);
+        } else {
+            applyPositions(tradeDate, SettlementNetting.of(legs));
+        }
 
-            if (buyOrder == null || sellOrder == null) {
-                log.error("Match {} has null buy or sell order", matchId);
-                throw new IllegalStateException("Match " + matchId + " has null buy or sell order");
-            }
+        int settled = finaliseTrades(legs);
+        transactionTemplate.executeWithoutResult(status -> checkpointRepo.deleteByTradeDate(tradeDate));
 
-            if (buyOrder.getAccount() == null || sellOrder.getAccount() == null) {
-                log.error("Match {} has orders with null accounts", matchId);
-                throw new IllegalStateException("Match " + matchId + " has orders with null accounts");
-            }
+        log.info("T+2 settlement completed: {} matches settled on {}", settled, tradeDate);
+        return settled;
+    }
 
-            if (buyOrder.getEquity() == null || sellOrder.getEquity() == null) {
-                log.error("Match {} has orders with null equities", matchId);
-                throw new IllegalStateException("Match " + matchId + " has orders with null equities");
-            }
+    @Override
+    @Transactional(readOnly = true)
+    public SettlementPreviewResponse previewSettlement(LocalDate tradeDate) {
+        LocalDateTime startOfDay = tradeDate.atStartOfDay();
+        LocalDateTime endOfDay   = tradeDate.atTime(LocalTime.MAX);
 
-            Integer buyerId  = buyOrder.getAccount().getAccountId();
-            Integer sellerId = sellOrder.getAccount().getAccountId();
-            Integer equityId = buyOrder.getEquity().getEquityId();
+        SettlementNetting netting = new SettlementNetting();
+        tradeRepo.sumUnsettledBySide(startOfDay, endOfDay, TradeStatus.SETTLED).forEach(netting::add);
+
+        BigDecimal netFree = BigDecimal.ZERO;
+        BigDecimal netBlocked = BigDecimal.ZERO;
+        List<SettlementAccountPreviewResponse> accounts = new ArrayList<>(netting.getCash().size());
+        for (Map.Entry<Integer, CashDelta> e : netting.getCash().entrySet()) {
+            CashDelta cash = e.getValue();
+            netFree = netFree.add(cash.getFreeDelta());
+            netBlocked = netBlocked.add(cash.getBlockedDelta());
+
+            List<SettlementPositionPreviewResponse> positions = netting.positionsOf(e.getKey()).entrySet().stream()
+                    .map(p -> SettlementPositionPreviewResponse.builder()
+                            .equityId(p.getKey())
+                            .boughtQuantity(p.getValue().getBoughtQuantity())
+                            .boughtValue(p.getValue().getBoughtValue())
+                            .soldQuantity(p.getValue().getSoldQuantity())
+                            .build())
+                    .toList();
+
+            accounts.add(SettlementAccountPreviewResponse.builder()
+                    .accountId(e.getKey())
+                    .freeCashDelta(cash.getFreeDelta())
+                    .blockedCashDelta(cash.getBlockedDelta())
+                    .positions(positions)
+                    .build());
+        }
 
-            Trade buyTrade = tradeRepo.findByMatchIdAndEquityOrder(matchId, buyOrder)
-                    .orElseThrow(() -> new IllegalStateException("Buy trade not found for match " + matchId));
+        log.info("Settlement preview for {}: {} matches across {} accounts",
+                tradeDate, netting.getLegCount(), accounts.size());
+
+        return SettlementPreviewResponse.builder()
+                .tradeDate(tradeDate)
+                .matchCount(netting.getLegCount())
+                .accountCount(accounts.size())
+                .netFreeCash(netFree)
+                .netBlockedCash(netBlocked)
+                .accounts(accounts)
+                .build();
+    }
 
-            Trade sellTrade = tradeRepo.findByMatchIdAndEquityOrder(matchId, sellOrder)
-                    .orElseThrow(() -> new IllegalStateException("Sell trade not found for match " + matchId));
+    private void applyPositions(LocalDate tradeDate, SettlementNetting netting) {
+        List<List<Integer>> chunks = netting.accountChunks(accountChunkSize);
+        Set<Integer> completed = checkpointRepo.findCompletedChunks(tradeDate, SettlementPhase.POSITIONS);
+        log.info("Applying net positions for {} accounts in {} chunks ({} already done)",
+                netting.getCash().size(), chunks.size(), completed.size());
+
+        int failed = runInParallel(chunks.size(), chunkNo -> {
+            if (completed.contains(chunkNo)) return;
+            transactionTemplate.executeWithoutResult(status -> {
+                applyAccountChunk(netting, chunks.get(chunkNo));
+                checkpointRepo.save(SettlementCheckpoint.builder()
+                        .tradeDate(tradeDate)
+                        .phase(SettlementPhase.POSITIONS)
+                        .chunkNo(chunkNo)
+                        .build());
+            });
+        });
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " settlement chunks failed for " + tradeDate
+                    + "; completed chunks are checkpointed and will be skipped on rerun");
+        }
 
-            if (buyTrade.getStatus() == TradeStatus.SETTLED && sellTrade.getStatus() == TradeStatus.SETTLED) {
-                log.debug("Match {} already settled, skipping", matchId);
-                return false;
-            }
+        transactionTemplate.executeWithoutResult(status -> checkpointRepo.save(SettlementCheckpoint.builder()
+                .tradeDate(tradeDate)
+                .phase(SettlementPhase.POSITIONS_COMPLETE)
+                .chunkNo(0)
+                .build()));
+    }
 
-            if (buyTrade.getStatus() == TradeStatus.SETTLED || sellTrade.getStatus() == TradeStatus.SETTLED) {
-                log.warn("Partial settlement detected for match {}: buyTrade={}, sellTrade={}", 
-                        matchId, buyTrade.getStatus(), sellTrade.getStatus());
-                return false;
+    private void applyAccountChunk(SettlementNetting netting, List<Integer> accountIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        Map<Integer, BalanceDelta> cashDeltas = new LinkedHashMap<>(accountIds.size() * 2);
+        List<Object[]> soldRows = new ArrayList<>();
+        List<Object[]> boughtRows = new ArrayList<>();
+        for (Integer accountId : accountIds) {
+            CashDelta cash = netting.getCash().get(accountId);
+            cashDeltas.put(accountId, new BalanceDelta(cash.getFreeDelta(), cash.getBlockedDelta()));
+
+            for (Map.Entry<Integer, PositionDelta> e : netting.positionsOf(accountId).entrySet()) {
+                PositionDelta position = e.getValue();
+                if (position.getSoldQuantity() > 0) {
+                    soldRows.add(new Object[]{position.getSoldQuantity(), now,
+                            accountId, e.getKey(), position.getSoldQuantity()});
+                }
+                if (position.getBoughtQuantity() > 0) {
+                    boughtRows.add(new Object[]{position.getBoughtValue(), position.getBoughtQuantity(),
+                            position.getBoughtQuantity(), now, accountId, e.getKey()});
+                }
             }
+        }
 
-            int quantity = buyTrade.getTradeQuantity();
-            BigDecimal price = buyTrade.getPrice();
-            
-            if (quantity <= 0) {
-                log.error("Match {} has invalid trade quantity: {}", matchId, quantity);
-                throw new IllegalStateException("Match " + matchId + " has invalid trade quantity: " + quantity);
+        Set<Integer> applied = cashBalanceService.applyDeltas(cashDeltas);
+        for (Integer accountId : accountIds) {
+            if (!applied.contains(accountId)) {
+                throw new IllegalArgumentException("Insufficient cash balance or missing CashBalance for account: "
+                        + accountId);
             }
-            
-            if (price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
-                log.error("Match {} has invalid price: {}", matchId, price);
-                throw new IllegalStateException("Match " + matchId + " has invalid price: " + price);
-            }
-            
-            if (quantity != sellTrade.getTradeQuantity() || !price.equals(sellTrade.getPrice())) {
-                log.error("Match {} has inconsistent trade data: buy(qty={}, price={}) vs sell(qty={}, price={})", 
-                         matchId, quantity, price, sellTrade.getTradeQuantity(), sellTrade.getPrice());
-                throw new IllegalStateException("Match " + matchId + " has inconsistent trade data");
-            }
-
-            BigDecimal buyCommission = buyTrade.getCommission() != null ? buyTrade.getCommission() : BigDecimal.ZERO;
-            BigDecimal sellCommission = sellTrade.getCommission() != null ? sellTrade.getCommission() : BigDecimal.ZERO;
-            BigDecimal totalAmount = price.multiply(BigDecimal.valueOf(quantity));
-
-            log.debug("Settling match {}: quantity={}, price={}, buyCommission={}, sellCommission={}", 
-                    matchId, quantity, price, buyCommission, sellCommission);
+        }
 
-            try {
-                cashBalanceService.transfer(buyerId, sellerId, totalAmount);
-            } catch (Exception ex) {
-                log.error("Failed to transfer cash for match {}: {}", matchId, ex.getMessage());
-                throw new RuntimeException("Cash transfer failed for match " + matchId, ex);
+        int[] soldCounts = jdbcTemplate.batchUpdate(RELEASE_SOLD_STOCK, soldRows);
+        for (int i = 0; i < soldCounts.length; i++) {
+            if (soldCounts[i] == 0) {
+                throw new IllegalStateException("Seller stock not found or not blocked: account="
+                        + soldRows.get(i)[2] + ", equity=" + soldRows.get(i)[3]);
             }
+        }
 
-            try {
-                settleBuyerSide(buyerId, equityId, quantity, price, buyCommission, totalAmount);
-            } catch (Exception ex) {
-                log.error("Failed to settle buyer side for match {}: {}", matchId, ex.getMessage());
-                throw new RuntimeException("Buyer settlement failed for match " + matchId, ex);
+        int[] boughtCounts = jdbcTemplate.batchUpdate(ADD_BOUGHT_STOCK, boughtRows);
+        List<Object[]> newStocks = new ArrayList<>();
+        for (int i = 0; i < boughtCounts.length; i++) {
+            if (boughtCounts[i] == 0) {
+                Object[] row = boughtRows.get(i);
+                BigDecimal value = (BigDecimal) row[0];
+                int quantity = (Integer) row[1];
+                newStocks.add(new Object[]{row[4], row[5], quantity,
+                        value.divide(BigDecimal.valueOf(quantity), 4, RoundingMode.HALF_UP), now, now});
             }
+        }
+        jdbcTemplate.batchUpdate(INSERT_STOCK, newStocks);
 
-            try {
-                settleSellerSide(sellerId, equityId, quantity, totalAmount.subtract(sellCommission));
-            } catch (Exception ex) {
-                log.error("Failed to settle seller side for match {}: {}", matchId, ex.getMessage());
-                throw new RuntimeException("Seller settlement failed for match " + matchId, ex);
-            }
+        log.debug("Applied settlement chunk: {} accounts, {} sells, {} buys ({} new positions)",
+                accountIds.size(), soldRows.size(), boughtRows.size(), newStocks.size());
+    }
 
-            try {
-                buyTrade.setStatus(TradeStatus.SETTLED);
-                sellTrade.setStatus(TradeStatus.SETTLED);
-                tradeRepo.saveAll(List.of(buyTrade, sellTrade));
-            } catch (Exception ex) {
-                log.error("Failed to save settled trades for match {}: {}", matchId, ex.getMessage());
-                throw new RuntimeException("Failed to save settled trades for match " + matchId, ex);
-            }
+    private int finaliseTrades(List<SettlementLeg> legs) {
+        List<List<SettlementLeg>> chunks = new ArrayList<>();
+        for (int i = 0; i < legs.size(); i += matchChunkSize) {
+            chunks.add(legs.subList(i, Math.min(i + matchChunkSize, legs.size())));
+        }
 
-            try {
-                createEquityDistributions(buyOrder, sellOrder, quantity, price);
-            } catch (Exception ex) {
-                log.error("Failed to create equity distributions for match {}: {}", matchId, ex.getMessage());
-                throw new RuntimeException("Failed to create equity distributions for match " + matchId, ex);
+        int failed = runInParallel(chunks.size(), chunkNo -> transactionTemplate.executeWithoutResult(status -> {
+            List<SettlementLeg> chunk = chunks.get(chunkNo);
+            LocalDateTime now = LocalDateTime.now();
+
+            List<Integer> tradeIds = new ArrayList<>(chunk.size() * 2);
+            List<Object[]> distributions = new ArrayList<>(chunk.size() * 2);
+            Timestamp ts = Timestamp.valueOf(now);
+            for (SettlementLeg leg : chunk) {
+                tradeIds.add(leg.getBuyTradeId());
+                tradeIds.add(leg.getSellTradeId());
+                distributions.add(new Object[]{leg.getBuyOrderId(), leg.getBuyerAccountId(), leg.getEquityId(),
+                        OrderSide.BUY.name(), leg.getBuyQuantity(), leg.getBuyPrice(), ts, ts, ts});
+                distributions.add(new Object[]{leg.getSellOrderId(), leg.getSellerAccountId(), leg.getEquityId(),
+                        OrderSide.SELL.name(), leg.getSellQuantity(), leg.getSellPrice(), ts, ts, ts});
             }
 
-            log.debug("Successfully settled match {}", matchId);
-            return true;
-            
-        } catch (Exception ex) {
-            log.error("Critical error settling match {}: {}", matchId, ex.getMessage(), ex);
-            throw ex;
+            tradeRepo.updateStatusByTradeIds(tradeIds, TradeStatus.SETTLED, now);
+            jdbcTemplate.batchUpdate(INSERT_DISTRIBUTION, distributions);
+        }));
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " trade finalisation chunks failed; rerun settlement to resume");
         }
+        return legs.size();
     }
 
-    private void settleBuyerSide(Integer buyerId, Integer equityId, int quantity,
-                                 BigDecimal price, BigDecimal commission, BigDecimal totalAmount) {
-
-        cashBalanceService.reduceBlockedBalance(buyerId, totalAmount.add(commission));
-
-        EquityStock buyerStock = equityStockService
-                .getEquityStockByAccountIdAndEquityId(buyerId.longValue(), equityId)
-                .orElse(null);
-
-        if (buyerStock == null) {
-            BigDecimal avgCostPerShare = price.add(commission.divide(BigDecimal.valueOf(quantity), 4, RoundingMode.HALF_UP));
-            buyerStock = EquityStock.builder()
-                    .account(Account.builder().accountId(buyerId).build())
-                    .equity(Equity.builder().equityId(equityId).build())
-                    .freeQuantity(quantity)
-                    .blockedQuantity(0)
-                    .avgCost(avgCostPerShare)
-                    .build();
-        } else {
-            updateAvgCostAndQuantity(buyerStock, quantity, price, commission);
+    /**
+     * Runs {@code taskCount} independent tasks on a bounded pool and returns how many failed.
+     */
+    private int runInParallel(int taskCount, IntConsumer task) {
+        List<Future<?>> futures = new ArrayList<>(taskCount);
+        try (ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism))) {
+            for (int i = 0; i < taskCount; i++) {
+                int chunkNo = i;
+                futures.add(pool.submit(() -> task.accept(chunkNo)));
+            }
         }
 
-        equityStockService.saveEquityStock(buyerStock);
-        log.debug("Updated buyer {} equity position: quantity={}, avgCost={}",
-                buyerId, buyerStock.getFreeQuantity(), buyerStock.getAvgCost());
-    }
-
-    private void settleSellerSide(Integer sellerId, Integer equityId, int quantity, BigDecimal netAmount) {
-
-        EquityStock sellerStock = equityStockService
-                .getEquityStockByAccountIdAndEquityId(sellerId.longValue(), equityId)
-                .orElseThrow(() -> new IllegalStateException(
-                        "Seller stock not found: account=" + sellerId + ", equity=" + equityId));
-
-        sellerStock.setBlockedQuantity(sellerStock.getBlockedQuantity() - quantity);
-        equityStockService.updateEquityStock(sellerStock);
-
-        cashBalanceService.addFreeBalance(sellerId, netAmount);
-
-        log.debug("Updated seller {} equity position: blocked quantity reduced by {}, cash increased by {}",
-                sellerId, quantity, netAmount);
-    }
-
-    private void updateAvgCostAndQuantity(EquityStock stock, int newQuantity,
-                                          BigDecimal newPrice, BigDecimal commission) {
-
-        int currentQuantity = stock.getFreeQuantity() + stock.getBlockedQuantity();
-        BigDecimal currentAvgCost = stock.getAvgCost();
-
-
-        BigDecimal currentTotalValue = currentAvgCost.multiply(BigDecimal.valueOf(currentQuantity));
-        BigDecimal newPurchaseValue = newPrice.multiply(BigDecimal.valueOf(newQuantity)).add(commission);
-        BigDecimal newTotalQuantity = BigDecimal.valueOf(currentQuantity + newQuantity);
-
-        BigDecimal newAvgCost = currentTotalValue.add(newPurchaseValue)
-                .divide(newTotalQuantity, 4, RoundingMode.HALF_UP);
-
-        stock.setAvgCost(newAvgCost);
-        stock.setFreeQuantity(stock.getFreeQuantity() + newQuantity);
-
-        log.debug("AvgCost calculation: current={}@{}, new={}@{}, result={}@{}",
-                currentQuantity, currentAvgCost, newQuantity, newPrice,
-                currentQuantity + newQuantity, newAvgCost);
-    }
-
-    private void createEquityDistributions(EquityOrder buyOrder, EquityOrder sellOrder,
-                                           int quantity, BigDecimal price) {
-        try {
-            equityDistributionService.createDistribution(buyOrder, quantity, price, "BUY");
-
-            equityDistributionService.createDistribution(sellOrder, quantity, price, "SELL");
-
-            log.debug("Created EquityDistribution records for buy order {} and sell order {}",
-                    buyOrder.getOrderId(), sellOrder.getOrderId());
-        } catch (Exception ex) {
-            log.error("Error creating EquityDistribution records: {}", ex.getMessage(), ex);
+        int failed = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException ex) {
+                failed++;
+                log.error("Settlement chunk {} failed: {}", i, ex.getCause().getMessage(), ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Settlement interrupted", ex);
+            }
         }
+        return failed;
     }
 }
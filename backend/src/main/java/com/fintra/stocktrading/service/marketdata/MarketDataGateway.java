@@ -0,0 +1,196 @@
+package com.fintra.stocktrading.service.marketdata;
+
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+import com.fintra.stocktrading.mapper.OrderBookMapper;
+import com.fintra.stocktrading.model.dto.response.DepthUpdateResponse;
+import com.fintra.stocktrading.model.dto.response.OrderBookItemResponse;
+import com.fintra.stocktrading.model.dto.response.TradePrintResponse;
+import com.fintra.stocktrading.service.matching.OrderBook;
+import com.fintra.stocktrading.service.matching.OrderBookEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes order book depth and trade prints per equity to streaming subscribers.
+ * <p>
+ * Depth is published from the resident display books on a fixed tick: an equity whose book
+ * version moved since the last tick gets one delta, computed once and fanned out to every
+ * subscriber, so bursts of order activity collapse into one update per tick. A subscriber that
+ * cannot keep up only ever holds the latest update; when that update does not continue from the
+ * version it last received, it is sent the full depth instead. Trade prints are buffered per
+ * subscriber up to {@code app.market-data.trade-buffer-size}, oldest dropped first.
+ */
+@Component
+@Slf4j
+public class MarketDataGateway {
+
+    private static final Sinks.EmitFailureHandler RETRY_ON_CONTENTION =
+            Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(50));
+
+    private final OrderBookEngine orderBookEngine;
+    private final OrderBookMapper orderBookMapper;
+    private final int tradeBufferSize;
+    private final Duration heartbeat;
+
+    private final Map<Integer, EquityChannel> channels = new ConcurrentHashMap<>();
+
+    public MarketDataGateway(OrderBookEngine orderBookEngine,
+                             OrderBookMapper orderBookMapper,
+                             @Value("${app.market-data.trade-buffer-size:256}") int tradeBufferSize,
+                             @Value("${app.market-data.heartbeat-seconds:15}") long heartbeatSeconds) {
+        this.orderBookEngine = orderBookEngine;
+        this.orderBookMapper = orderBookMapper;
+        this.tradeBufferSize = tradeBufferSize;
+        this.heartbeat = Duration.ofSeconds(heartbeatSeconds);
+    }
+
+    /**
+     * Opens a stream for one equity: a {@code snapshot} event with the full depth, then
+     * {@code depth} deltas (or a fresh {@code snapshot} after conflation) and {@code trade} prints.
+     */
+    public Flux<ServerSentEvent<Object>> stream(Integer equityId) {
+        EquityChannel channel = channels.computeIfAbsent(equityId, EquityChannel::new);
+        OrderBook.Depth initial = channel.baseline();
+        long[] delivered = {initial.version()};
+
+        Flux<ServerSentEvent<Object>> depth = channel.depth.asFlux()
+                .onBackpressureLatest()
+                .map(update -> {
+                    boolean contiguous = update.fromVersion() == delivered[0];
+                    delivered[0] = update.depth().version();
+                    return contiguous
+                            ? event("depth", update.depth().version(), update.delta())
+                            : snapshotEvent(equityId, update.depth());
+                });
+
+        Flux<ServerSentEvent<Object>> trades = channel.trades.asFlux()
+                .onBackpressureBuffer(tradeBufferSize,
+                        dropped -> log.debug("[MD] Dropped trade print {} for slow subscriber", dropped.getMatchId()),
+                        BufferOverflowStrategy.DROP_OLDEST)
+                .map(print -> event("trade", null, print));
+
+        Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(heartbeat)
+                .map(i -> ServerSentEvent.<Object>builder().comment("heartbeat").build());
+
+        return Flux.concat(Flux.just(snapshotEvent(equityId, initial)), Flux.merge(depth, trades, heartbeats))
+                .doOnSubscribe(s -> log.debug("[MD] Subscriber joined equity {}", equityId))
+                .doFinally(signal -> log.debug("[MD] Subscriber left equity {} ({})", equityId, signal));
+    }
+
+    public void publishTrade(TradeMatchedEvent event) {
+        EquityChannel channel = event.getEquityId() != null ? channels.get(event.getEquityId()) : null;
+        if (channel == null || channel.trades.currentSubscriberCount() == 0) return;
+
+        channel.trades.emitNext(TradePrintResponse.builder()
+                .equityId(event.getEquityId())
+                .matchId(event.getMatchId())
+                .price(event.getPrice())
+                .quantity(event.getQuantity())
+                .timestamp(event.getTimestamp())
+                .build(), RETRY_ON_CONTENTION);
+    }
+
+    @Scheduled(fixedDelayString = "${app.market-data.publish-interval-ms:100}")
+    public void publishDepth() {
+        for (EquityChannel channel : channels.values()) {
+            if (channel.depth.currentSubscriberCount() == 0) continue;
+            try {
+                channel.publishIfChanged();
+            } catch (RuntimeException e) {
+                log.warn("[MD] Depth publish failed for equity {}: {}", channel.equityId, e.getMessage());
+            }
+        }
+    }
+
+    private ServerSentEvent<Object> snapshotEvent(Integer equityId, OrderBook.Depth depth) {
+        return event("snapshot", depth.version(), DepthUpdateResponse.builder()
+                .equityId(equityId)
+                .version(depth.version())
+                .bids(levels(depth.bids()))
+                .asks(levels(depth.asks()))
+                .build());
+    }
+
+    private static ServerSentEvent<Object> event(String name, Long version, Object data) {
+        ServerSentEvent.Builder<Object> builder = ServerSentEvent.builder(data).event(name);
+        if (version != null) {
+            builder.id(String.valueOf(version));
+        }
+        return builder.build();
+    }
+
+    private List<OrderBookItemResponse> levels(List<OrderBook.Level> levels) {
+        return levels.stream().map(orderBookMapper::toOrderBookItemResponse).toList();
+    }
+
+    /**
+     * Levels of {@code current} that differ from {@code previous}, plus zero-quantity entries
+     * for levels that disappeared.
+     */
+    private List<OrderBookItemResponse> diff(List<OrderBook.Level> previous, List<OrderBook.Level> current) {
+        Map<Long, OrderBook.Level> before = new HashMap<>(previous.size() * 2);
+        previous.forEach(l -> before.put(l.priceTicks(), l));
+
+        List<OrderBookItemResponse> changes = new ArrayList<>();
+        for (OrderBook.Level level : current) {
+            OrderBook.Level old = before.remove(level.priceTicks());
+            if (!level.equals(old)) {
+                changes.add(orderBookMapper.toOrderBookItemResponse(level));
+            }
+        }
+        before.values().forEach(gone -> changes.add(
+                orderBookMapper.toOrderBookItemResponse(new OrderBook.Level(gone.priceTicks(), 0, 0))));
+        return changes;
+    }
+
+    private record DepthUpdate(long fromVersion, OrderBook.Depth depth, DepthUpdateResponse delta) {
+    }
+
+    private class EquityChannel {
+        private final Integer equityId;
+        private final Sinks.Many<DepthUpdate> depth = Sinks.many().multicast().directBestEffort();
+        private final Sinks.Many<TradePrintResponse> trades = Sinks.many().multicast().directBestEffort();
+        private OrderBook.Depth published;
+
+        EquityChannel(Integer equityId) {
+            this.equityId = equityId;
+        }
+
+        synchronized OrderBook.Depth baseline() {
+            if (published == null) {
+                published = orderBookEngine.displayBookFor(equityId).depth(List.of());
+            }
+            return published;
+        }
+
+        synchronized void publishIfChanged() {
+            OrderBook book = orderBookEngine.displayBookFor(equityId);
+            OrderBook.Depth previous = baseline();
+            if (book.getVersion() == previous.version()) return;
+
+            OrderBook.Depth current = book.depth(List.of());
+            published = current;
+            DepthUpdateResponse delta = DepthUpdateResponse.builder()
+                    .equityId(equityId)
+                    .fromVersion(previous.version())
+                    .version(current.version())
+                    .bids(diff(previous.bids(), current.bids()))
+                    .asks(diff(previous.asks(), current.asks()))
+                    .build();
+            depth.emitNext(new DepthUpdate(previous.version(), current, delta), RETRY_ON_CONTENTION);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.fintra.stocktrading.service.marketdata;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One row of the grouped intraday query: an equity's traded quantity since session start
+ * and the id of its latest trade, counted on the buy side so each match is seen once.
+ */
+@Getter
+@AllArgsConstructor
+public class MarketDayTotal {
+
+    private final Integer equityId;
+    private final Long quantity;
+    private final Integer lastTradeId;
+}
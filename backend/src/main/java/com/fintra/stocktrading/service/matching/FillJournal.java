@@ -0,0 +1,226 @@
+package com.fintra.stocktrading.service.matching;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Local append-only journal (one JSON entry per line, fsync'd on every append) that keeps
+ * matched fills durable between the matching commit and the write-behind database flush.
+ * Committed, flushed and aborted sequences are recorded as marker lines, as is the composition
+ * of each batch before it is written; once nothing is in flight the file is truncated.
+ */
+@Component
+@Slf4j
+public class FillJournal {
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    private FileChannel channel;
+    private long nextSequence = 1;
+
+    public FillJournal(ObjectMapper objectMapper,
+                       @Value("${app.matching.journal.path:./data/journal/fills.journal}") String path) {
+        this.objectMapper = objectMapper;
+        this.path = Path.of(path);
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        channel.position(channel.size());
+        log.info("[JOURNAL] Fill journal opened at {}", path.toAbsolutePath());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Assigns sequences to the entries and makes them durable before returning.
+     */
+    public synchronized void append(List<FillJournalEntry> entries) {
+        for (FillJournalEntry entry : entries) {
+            entry.setSequence(nextSequence++);
+            inFlight.add(entry.getSequence());
+        }
+        try {
+            write(entries);
+        } catch (UncheckedIOException e) {
+            entries.forEach(entry -> inFlight.remove(entry.getSequence()));
+            throw e;
+        }
+    }
+
+    /**
+     * Appends entries whose transaction has already committed, with their commit marker, in a
+     * single write.
+     */
+    public synchronized void appendCommitted(List<FillJournalEntry> entries) {
+        for (FillJournalEntry entry : entries) {
+            entry.setSequence(nextSequence++);
+            inFlight.add(entry.getSequence());
+        }
+        List<FillJournalEntry> lines = new ArrayList<>(entries);
+        lines.add(marker(FillJournalEntry.Kind.COMMITTED, entries));
+        try {
+            write(lines);
+        } catch (UncheckedIOException e) {
+            entries.forEach(entry -> inFlight.remove(entry.getSequence()));
+            throw e;
+        }
+    }
+
+    /**
+     * Records that the transaction which appended the entries has committed. The entries stay
+     * in flight until they are flushed.
+     */
+    public synchronized void markCommitted(List<FillJournalEntry> entries) {
+        if (entries.isEmpty()) return;
+        write(List.of(marker(FillJournalEntry.Kind.COMMITTED, entries)));
+    }
+
+    public synchronized void markAborted(List<FillJournalEntry> entries) {
+        mark(FillJournalEntry.Kind.ABORTED, entries);
+    }
+
+    public synchronized void markFlushed(List<FillJournalEntry> entries) {
+        mark(FillJournalEntry.Kind.FLUSHED, entries);
+    }
+
+    /**
+     * Records, durably, that the entries are about to be written as one batch. The entries stay
+     * in flight; recovery uses the marker to tell which of them a committed batch covered.
+     */
+    public synchronized void markBatch(String batchId, List<FillJournalEntry> entries) {
+        if (entries.isEmpty()) return;
+        FillJournalEntry marker = marker(FillJournalEntry.Kind.BATCH, entries);
+        marker.setBatchId(batchId);
+        write(List.of(marker));
+    }
+
+    /**
+     * Entries appended but neither flushed nor aborted, in sequence order, the batches that
+     * were started for them, by batch id, and the sequences among them whose transaction is
+     * known to have committed.
+     */
+    public record Recovery(List<FillJournalEntry> entries, Map<String, List<Long>> batches, Set<Long> committed) {
+    }
+
+    /**
+     * Reads back every data entry that was appended but neither flushed nor aborted,
+     * in sequence order, and marks them in flight again.
+     */
+    public synchronized Recovery recover() throws IOException {
+        Map<Long, FillJournalEntry> pending = new LinkedHashMap<>();
+        Map<String, List<Long>> batches = new LinkedHashMap<>();
+        Set<Long> committed = new HashSet<>();
+        Set<Long> settled = new HashSet<>();
+        long maxSequence = 0;
+
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) continue;
+            FillJournalEntry entry;
+            try {
+                entry = objectMapper.readValue(line, FillJournalEntry.class);
+            } catch (IOException e) {
+                log.warn("[JOURNAL] Skipping unreadable journal line (torn write?): {}", e.getMessage());
+                continue;
+            }
+            if (entry.isData()) {
+                pending.put(entry.getSequence(), entry);
+                maxSequence = Math.max(maxSequence, entry.getSequence());
+            } else if (entry.getKind() == FillJournalEntry.Kind.BATCH) {
+                batches.put(entry.getBatchId(), entry.getSequences());
+            } else if (entry.getKind() == FillJournalEntry.Kind.COMMITTED) {
+                if (entry.getSequences() != null) committed.addAll(entry.getSequences());
+            } else if (entry.getSequences() != null) {
+                settled.addAll(entry.getSequences());
+            }
+        }
+
+        List<FillJournalEntry> recovered = new ArrayList<>();
+        for (FillJournalEntry entry : pending.values()) {
+            if (!settled.contains(entry.getSequence())) {
+                recovered.add(entry);
+                inFlight.add(entry.getSequence());
+            }
+        }
+        nextSequence = Math.max(nextSequence, maxSequence + 1);
+        if (compactIfIdle()) {
+            return new Recovery(recovered, Map.of(), Set.of());
+        }
+        batches.values().removeIf(sequences -> sequences.stream().allMatch(settled::contains));
+        committed.removeAll(settled);
+        return new Recovery(recovered, batches, committed);
+    }
+
+    private void mark(FillJournalEntry.Kind kind, List<FillJournalEntry> entries) {
+        if (entries.isEmpty()) return;
+        List<Long> sequences = entries.stream().map(FillJournalEntry::getSequence).toList();
+        sequences.forEach(inFlight::remove);
+        if (!compactIfIdle()) {
+            write(List.of(marker(kind, entries)));
+        }
+    }
+
+    private static FillJournalEntry marker(FillJournalEntry.Kind kind, List<FillJournalEntry> entries) {
+        return FillJournalEntry.builder().kind(kind)
+                .sequences(entries.stream().map(FillJournalEntry::getSequence).toList()).build();
+    }
+
+    private boolean compactIfIdle() {
+        if (!inFlight.isEmpty()) return false;
+        try {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot truncate fill journal " + path, e);
+        }
+    }
+
+    private void write(List<FillJournalEntry> entries) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (FillJournalEntry entry : entries) {
+                sb.append(objectMapper.writeValueAsString(entry)).append('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write fill journal " + path, e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.fintra.stocktrading.service.matching;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fintra.stocktrading.model.enums.OrderSide;
+import com.fintra.stocktrading.model.enums.OrderStatus;
+import com.fintra.stocktrading.model.enums.OrderType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One line of the fill journal. Data entries describe a row the write-behind stage
+ * must insert; marker entries record which data sequences were aborted or flushed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FillJournalEntry {
+
+    public enum Kind {
+        /** A fill: one match record plus a buy and a sell trade. */
+        FILL,
+        /** An {@code EquityOrderLog} status row. */
+        STATUS_LOG,
+        /** An {@code EquityOrderHistory} snapshot row. */
+        HISTORY,
+        /** Marker: the listed sequences belonged to a rolled back transaction. */
+        ABORTED,
+        /** Marker: the transaction that recorded the listed sequences has committed. */
+        COMMITTED,
+        /** Marker: the listed sequences are durable in the database. */
+        FLUSHED,
+        /** Marker: the listed sequences are being written together as batch {@code batchId}. */
+        BATCH
+    }
+
+    private long sequence;
+    private Kind kind;
+
+    private Integer equityId;
+    private Integer matchId;
+    private Integer buyOrderId;
+    private Integer sellOrderId;
+    private Integer buyAccountId;
+    private Integer sellAccountId;
+
+    private Integer orderId;
+    private OrderStatus orderStatus;
+    private OrderSide orderSide;
+    private OrderType orderType;
+
+    private Integer quantity;
+    private BigDecimal price;
+    private LocalDateTime time;
+
+    // Matching transaction that recorded a data entry; see FillCommit.
+    private String commitId;
+
+    private List<Long> sequences;
+    private String batchId;
+
+    @JsonIgnore
+    public boolean isData() {
+        return kind == Kind.FILL || kind == Kind.STATUS_LOG || kind == Kind.HISTORY;
+    }
+}
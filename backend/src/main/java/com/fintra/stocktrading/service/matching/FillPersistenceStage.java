@@ -0,0 +1,412 @@
+package com.fintra.stocktrading.service.matching;
+
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+import com.fintra.stocktrading.model.enums.TradeStatus;
+import com.fintra.stocktrading.service.event.TradeEventOutboxRelay;
+import com.fintra.stocktrading.service.MarketSnapshotService;
+import com.fintra.stocktrading.service.marketdata.MarketDataGateway;
+import com.fintra.stocktrading.service.orderentry.ExecutionReportGateway;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind persistence for everything a fill produces: the match record, both trades,
+ * order status logs and order history snapshots. Matching only records entries; they are
+ * journaled durably before the matching transaction commits, queued once it has committed,
+ * and inserted here in JDBC batches when the queue reaches the batch size or on a timer.
+ * <p>
+ * The matching transaction also inserts its commit id into {@code fill_commits}, and a commit
+ * marker is journaled once it has committed. Recovery replays only entries whose transaction
+ * committed by either record, so fills of a match that rolled back with the crash are dropped.
+ * Trade events are written to the outbox in the batch transaction that inserts their trades
+ * and relayed to Kafka by {@link TradeEventOutboxRelay}.
+ * <p>
+ * Each batch is journaled under an id before it is written, and the id is inserted into
+ * {@code fill_flush_batches} in the batch transaction. Recovery drops every entry of a batch
+ * whose id is there, so a crash between the commit and the flushed marker replays nothing twice.
+ */
+@Component
+@Slf4j
+public class FillPersistenceStage {
+
+    private static final String INSERT_TRADE =
+            "INSERT INTO trades (match_id, order_id, trade_quantity, price, commission, trade_status, " +
+                    "transaction_time, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_MATCH =
+            "INSERT INTO equity_order_matches (match_id, buy_order_id, sell_order_id, match_time, " +
+                    "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_LOG =
+            "INSERT INTO equity_order_logs (order_id, order_status, transaction_time, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_BATCH =
+            "INSERT INTO fill_flush_batches (batch_id, flushed_at) VALUES (?, ?)";
+    private static final String BATCH_EXISTS =
+            "SELECT COUNT(*) FROM fill_flush_batches WHERE batch_id = ?";
+    private static final String DELETE_BATCHES_BEFORE =
+            "DELETE FROM fill_flush_batches WHERE flushed_at < ?";
+    private static final String INSERT_COMMIT =
+            "INSERT INTO fill_commits (commit_id, committed_at) VALUES (?, ?)";
+    private static final String COMMIT_EXISTS =
+            "SELECT COUNT(*) FROM fill_commits WHERE commit_id = ?";
+    private static final String DELETE_COMMITS_BEFORE =
+            "DELETE FROM fill_commits WHERE committed_at < ?";
+    private static final String SELECT_TRADE_IDS_HEAD =
+            "SELECT trade_id, match_id, order_id FROM trades WHERE match_id IN (";
+    // SQL Server allows 2100 parameters per statement.
+    private static final int MATCH_IDS_PER_SELECT = 2000;
+    private static final String INSERT_HISTORY =
+            "INSERT INTO equity_order_histories (order_id, old_order_quantity, order_status, order_side, " +
+                    "order_type, old_price, transaction_time, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final FillJournal journal;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TradeEventOutboxRelay outboxRelay;
+    private final MarketDataGateway marketDataGateway;
+    private final MarketSnapshotService marketSnapshotService;
+    private final ExecutionReportGateway executionReportGateway;
+    private final int batchSize;
+    private final long batchRetentionHours;
+
+    private volatile boolean recovered;
+    private final Deque<FillJournalEntry> queue = new ArrayDeque<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "fill-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public FillPersistenceStage(FillJournal journal,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                TradeEventOutboxRelay outboxRelay,
+                                MarketDataGateway marketDataGateway,
+                                MarketSnapshotService marketSnapshotService,
+                                ExecutionReportGateway executionReportGateway,
+                                @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:200}") int batchSize,
+                                @Value("${app.matching.persistence.batch-retention-hours:24}") long batchRetentionHours) {
+        this.journal = journal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.outboxRelay = outboxRelay;
+        this.marketDataGateway = marketDataGateway;
+        this.marketSnapshotService = marketSnapshotService;
+        this.executionReportGateway = executionReportGateway;
+        this.batchSize = batchSize;
+        this.batchRetentionHours = batchRetentionHours;
+    }
+
+    /**
+     * Records an entry as part of the current transaction. Outside a transaction the entry
+     * is journaled and queued immediately.
+     */
+    public void record(FillJournalEntry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<FillJournalEntry> single = List.of(entry);
+            journal.appendCommitted(single);
+            enqueue(single);
+            return;
+        }
+        pendingForTransaction().add(entry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.matching.persistence.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<FillJournalEntry> batch = drain();
+            while (!batch.isEmpty()) {
+                if (!writeBatch(batch)) {
+                    return;
+                }
+                batch = drain();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() throws IOException {
+        FillJournal.Recovery recovery = journal.recover();
+        try {
+            if (recovery.entries().isEmpty()) return;
+
+            Set<Long> committed = new HashSet<>();
+            recovery.batches().forEach((batchId, sequences) -> {
+                Integer found = jdbcTemplate.queryForObject(BATCH_EXISTS, Integer.class, batchId);
+                if (found != null && found > 0) {
+                    committed.addAll(sequences);
+                }
+            });
+
+            Map<String, Boolean> commitOutcomes = new HashMap<>();
+            List<FillJournalEntry> replay = new ArrayList<>();
+            List<FillJournalEntry> alreadyWritten = new ArrayList<>();
+            List<FillJournalEntry> rolledBack = new ArrayList<>();
+            for (FillJournalEntry entry : recovery.entries()) {
+                if (committed.contains(entry.getSequence())) {
+                    alreadyWritten.add(entry);
+                } else if (recovery.committed().contains(entry.getSequence())
+                        || commitOutcomes.computeIfAbsent(entry.getCommitId(), this::transactionCommitted)) {
+                    replay.add(entry);
+                } else {
+                    rolledBack.add(entry);
+                }
+            }
+            journal.markFlushed(alreadyWritten);
+            journal.markAborted(rolledBack);
+
+            log.warn("[PERSIST] Replaying {} journaled entries ({} already in database, {} from rolled back matches)",
+                    replay.size(), alreadyWritten.size(), rolledBack.size());
+            enqueue(replay);
+            flush();
+        } finally {
+            recovered = true;
+        }
+    }
+
+    // Entries journaled before commit ids existed carry none and are replayed as before.
+    private boolean transactionCommitted(String commitId) {
+        if (commitId == null) return true;
+        Integer found = jdbcTemplate.queryForObject(COMMIT_EXISTS, Integer.class, commitId);
+        return found != null && found > 0;
+    }
+
+    /**
+     * Forgets committed batch and commit ids once they are too old to be named by the journal.
+     * Waits for recovery, which may still need ids written before a long outage.
+     */
+    @Scheduled(fixedDelayString = "${app.matching.persistence.batch-cleanup-interval-ms:3600000}")
+    public void purgeFlushedBatches() {
+        if (!recovered) return;
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(batchRetentionHours));
+        int purged = jdbcTemplate.update(DELETE_BATCHES_BEFORE, cutoff)
+                + jdbcTemplate.update(DELETE_COMMITS_BEFORE, cutoff);
+        if (purged > 0) {
+            log.debug("[PERSIST] Purged {} flushed batch and commit ids", purged);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<FillJournalEntry> pendingForTransaction() {
+        List<FillJournalEntry> pending = (List<FillJournalEntry>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) return pending;
+
+        List<FillJournalEntry> created = new ArrayList<>();
+        String commitId = UUID.randomUUID().toString();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean journaled;
+
+            @Override public void beforeCommit(boolean readOnly) {
+                if (!created.isEmpty()) {
+                    created.forEach(entry -> entry.setCommitId(commitId));
+                    journal.append(created);
+                    journaled = true;
+                    jdbcTemplate.update(INSERT_COMMIT, commitId, Timestamp.valueOf(LocalDateTime.now()));
+                }
+            }
+
+            @Override public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(FillPersistenceStage.this);
+                if (!journaled) return;
+                if (status == STATUS_COMMITTED) {
+                    try {
+                        journal.markCommitted(created);
+                    } catch (RuntimeException e) {
+                        log.error("[PERSIST] Commit {} not marked in journal, recovery will check the database: {}",
+                                commitId, e.getMessage());
+                    }
+                    enqueue(created);
+                } else if (status == STATUS_ROLLED_BACK) {
+                    journal.markAborted(created);
+                } else {
+                    log.error("[PERSIST] Commit outcome unknown, {} entries left for recovery to resolve", created.size());
+                }
+            }
+        });
+        return created;
+    }
+
+    private void enqueue(List<FillJournalEntry> entries) {
+        if (entries.isEmpty()) return;
+        int size;
+        synchronized (queue) {
+            queue.addAll(entries);
+            size = queue.size();
+        }
+        if (size >= batchSize && !writer.isShutdown()) {
+            writer.execute(this::flush);
+        }
+    }
+
+    private List<FillJournalEntry> drain() {
+        List<FillJournalEntry> batch = new ArrayList<>(batchSize);
+        synchronized (queue) {
+            while (batch.size() < batchSize && !queue.isEmpty()) {
+                batch.add(queue.pollFirst());
+            }
+        }
+        return batch;
+    }
+
+    private boolean writeBatch(List<FillJournalEntry> batch) {
+        String batchId = UUID.randomUUID().toString();
+        List<TradeMatchedEvent> events;
+        try {
+            journal.markBatch(batchId, batch);
+            events = transactionTemplate.execute(status -> insert(batchId, batch));
+        } catch (RuntimeException e) {
+            synchronized (queue) {
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    queue.addFirst(batch.get(i));
+                }
+            }
+            log.error("[PERSIST] Flush of {} entries failed, will retry: {}", batch.size(), e.getMessage(), e);
+            return false;
+        }
+
+        // The batch has committed: never queue it again, recovery skips it by its id.
+        try {
+            journal.markFlushed(batch);
+        } catch (RuntimeException e) {
+            log.error("[PERSIST] Batch {} committed but could not be marked flushed: {}", batchId, e.getMessage());
+        }
+        if (events != null && !events.isEmpty()) {
+            outboxRelay.wakeUp();
+            events.forEach(marketDataGateway::publishTrade);
+            marketSnapshotService.recordTrades(events);
+            executionReportGateway.publishFills(batch);
+        }
+        log.debug("[PERSIST] Flushed {} entries", batch.size());
+        return true;
+    }
+
+    private List<TradeMatchedEvent> insert(String batchId, List<FillJournalEntry> batch) {
+        List<FillJournalEntry> fills = new ArrayList<>();
+        List<FillJournalEntry> logs = new ArrayList<>();
+        List<FillJournalEntry> histories = new ArrayList<>();
+        for (FillJournalEntry entry : batch) {
+            switch (entry.getKind()) {
+                case FILL -> fills.add(entry);
+                case STATUS_LOG -> logs.add(entry);
+                case HISTORY -> histories.add(entry);
+                default -> { }
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(INSERT_BATCH, batchId, now);
+
+        // Two trade rows per fill, buy then sell.
+        List<Object[]> tradeRows = new ArrayList<>(fills.size() * 2);
+        for (FillJournalEntry f : fills) {
+            tradeRows.add(tradeRow(f, f.getBuyOrderId(), now));
+            tradeRows.add(tradeRow(f, f.getSellOrderId(), now));
+        }
+        jdbcTemplate.batchUpdate(INSERT_TRADE, tradeRows, batchSize, (ps, row) -> setAll(ps, row));
+        jdbcTemplate.batchUpdate(INSERT_MATCH, fills, batchSize, (ps, f) -> setAll(ps, new Object[]{
+                f.getMatchId(), f.getBuyOrderId(), f.getSellOrderId(), Timestamp.valueOf(f.getTime()), now, now}));
+        jdbcTemplate.batchUpdate(INSERT_LOG, logs, batchSize, (ps, l) -> setAll(ps, new Object[]{
+                l.getOrderId(), l.getOrderStatus().name(), Timestamp.valueOf(l.getTime()), now, now}));
+        jdbcTemplate.batchUpdate(INSERT_HISTORY, histories, batchSize, (ps, h) -> setAll(ps, new Object[]{
+                h.getOrderId(), h.getQuantity(), h.getOrderStatus().name(), h.getOrderSide().name(),
+                h.getOrderType().name(), h.getPrice(), Timestamp.valueOf(h.getTime()), now, now}));
+
+        if (fills.isEmpty()) return List.of();
+        List<TradeMatchedEvent> events = buildEvents(fills, tradeIds(fills));
+        outboxRelay.append(events);
+        return events;
+    }
+
+    /**
+     * Reads back the ids of this batch's trades, keyed by (match id, order id). Match ids are
+     * unique per fill, so rows inserted concurrently by anyone else cannot be picked up.
+     */
+    private Map<List<Integer>, Integer> tradeIds(List<FillJournalEntry> fills) {
+        Map<List<Integer>, Integer> ids = new HashMap<>(fills.size() * 4);
+        for (int from = 0; from < fills.size(); from += MATCH_IDS_PER_SELECT) {
+            List<FillJournalEntry> chunk = fills.subList(from, Math.min(from + MATCH_IDS_PER_SELECT, fills.size()));
+            String sql = SELECT_TRADE_IDS_HEAD + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                ids.put(List.of(rs.getInt("match_id"), rs.getInt("order_id")), rs.getInt("trade_id"));
+            }, chunk.stream().map(FillJournalEntry::getMatchId).toArray());
+        }
+        return ids;
+    }
+
+    private List<TradeMatchedEvent> buildEvents(List<FillJournalEntry> fills, Map<List<Integer>, Integer> tradeIds) {
+        List<TradeMatchedEvent> events = new ArrayList<>(fills.size());
+        for (FillJournalEntry f : fills) {
+            TradeMatchedEvent event = new TradeMatchedEvent();
+            event.setMatchId(f.getMatchId());
+            event.setEquityId(f.getEquityId());
+            event.setBuyOrderId(f.getBuyOrderId());
+            event.setSellOrderId(f.getSellOrderId());
+            event.setQuantity(f.getQuantity());
+            event.setPrice(f.getPrice());
+            event.setTimestamp(f.getTime());
+            event.setBuyTradeId(tradeIds.get(List.of(f.getMatchId(), f.getBuyOrderId())));
+            event.setSellTradeId(tradeIds.get(List.of(f.getMatchId(), f.getSellOrderId())));
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static Object[] tradeRow(FillJournalEntry f, Integer orderId, Timestamp now) {
+        return new Object[]{f.getMatchId(), orderId, f.getQuantity(), f.getPrice(), BigDecimal.ZERO,
+                TradeStatus.MATCHED.name(), Timestamp.valueOf(f.getTime()), now, now};
+    }
+
+    private static void setAll(PreparedStatement ps, Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            ps.setObject(i + 1, values[i]);
+        }
+    }
+}
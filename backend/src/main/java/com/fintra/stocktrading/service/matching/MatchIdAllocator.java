@@ -0,0 +1,110 @@
+package com.fintra.stocktrading.service.matching;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out collision-free match IDs, one per fill. IDs come from the {@code match_id_seq}
+ * database sequence, whose increment is the block size: each {@code NEXT VALUE FOR} reserves
+ * a whole block, which is then served from memory by the calling thread. Every equity is
+ * matched on a single lane thread and blocks are reserved in increasing order, so the IDs
+ * one equity sees are strictly increasing.
+ * <p>
+ * IDs are unique but neither ordered nor contiguous across equities: lanes consume their own
+ * blocks at their own pace, so an equity's IDs skip every value handed to other lanes, and a
+ * block left unused at shutdown is never issued. A gap in match IDs is therefore not a lost
+ * fill or event.
+ * <p>
+ * Match ids written before the sequence existed were {@code currentTimeMillis % Integer.MAX_VALUE}.
+ * The sequence starts, or is restarted, at the first block boundary above the largest match id
+ * already stored, so new ids never meet a legacy one.
+ */
+@Component
+@Slf4j
+public class MatchIdAllocator {
+
+    private static final String SEQUENCE = "match_id_seq";
+    private static final String MAX_EXISTING_MATCH_ID =
+            "SELECT MAX(CAST(match_id AS BIGINT)) FROM (" +
+                    "SELECT match_id FROM trades UNION ALL SELECT match_id FROM equity_order_matches) m";
+    private static final String NEXT_SEQUENCE_START =
+            "SELECT CAST(COALESCE(CAST(last_used_value AS BIGINT) + CAST(increment AS BIGINT), " +
+                    "CAST(start_value AS BIGINT)) AS BIGINT) FROM sys.sequences WHERE name = '" + SEQUENCE + "'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int configuredBlockSize;
+    private final ThreadLocal<long[]> range = ThreadLocal.withInitial(() -> new long[]{0, 0});
+
+    private int blockSize;
+
+    public MatchIdAllocator(JdbcTemplate jdbcTemplate,
+                            @Value("${app.matching.id-block-size:1000}") int configuredBlockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.configuredBlockSize = configuredBlockSize;
+    }
+
+    @PostConstruct
+    public void ensureSequence() {
+        long maxExisting = maxExistingMatchId();
+        jdbcTemplate.execute(
+                "IF NOT EXISTS (SELECT 1 FROM sys.sequences WHERE name = '" + SEQUENCE + "') " +
+                        "CREATE SEQUENCE dbo." + SEQUENCE + " AS INT " +
+                        bounds("START", firstFreeBlock(maxExisting, configuredBlockSize)) +
+                        " INCREMENT BY " + configuredBlockSize);
+        Integer increment = jdbcTemplate.queryForObject(
+                "SELECT CAST(increment AS INT) FROM sys.sequences WHERE name = '" + SEQUENCE + "'", Integer.class);
+        blockSize = increment != null && increment > 0 ? increment : configuredBlockSize;
+        if (blockSize != configuredBlockSize) {
+            log.warn("[IDS] {} was created with increment {}, ignoring configured block size {}",
+                    SEQUENCE, blockSize, configuredBlockSize);
+        }
+
+        // A sequence created at START WITH 1, or in the negative range, by an earlier version.
+        long start = firstFreeBlock(maxExisting, blockSize);
+        Long nextStart = jdbcTemplate.queryForObject(NEXT_SEQUENCE_START, Long.class);
+        if (nextStart != null && nextStart < start) {
+            jdbcTemplate.execute("ALTER SEQUENCE dbo." + SEQUENCE + " " + bounds("RESTART", start));
+            log.warn("[IDS] {} would have issued {} below stored match ids up to {}, restarted it at {}",
+                    SEQUENCE, nextStart, maxExisting, start);
+        }
+    }
+
+    // Blocks start at 1 + k * blockSize; the first one lying wholly above maxExisting.
+    private static long firstFreeBlock(long maxExisting, int blockSize) {
+        long start = maxExisting < 1 ? 1 : ((maxExisting - 1) / blockSize + 1) * blockSize + 1;
+        if (start > (long) Integer.MAX_VALUE - blockSize + 1) {
+            throw new IllegalStateException("No room for " + SEQUENCE + " above stored match ids up to "
+                    + maxExisting + "; renumber legacy match ids before starting");
+        }
+        return start;
+    }
+
+    private long maxExistingMatchId() {
+        Integer tables = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM sys.tables WHERE name IN ('trades', 'equity_order_matches')", Integer.class);
+        if (tables == null || tables < 2) return -1;
+        Long max = jdbcTemplate.queryForObject(MAX_EXISTING_MATCH_ID, Long.class);
+        return max != null ? max : -1;
+    }
+
+    private static String bounds(String keyword, long start) {
+        return keyword + " WITH " + start + " MINVALUE 1 MAXVALUE " + Integer.MAX_VALUE;
+    }
+
+    public int nextMatchId() {
+        long[] r = range.get();
+        if (r[0] >= r[1]) {
+            Integer first = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR dbo." + SEQUENCE, Integer.class);
+            if (first == null) {
+                throw new IllegalStateException("Sequence " + SEQUENCE + " returned no value");
+            }
+            r[0] = first;
+            r[1] = (long) first + blockSize;
+            log.debug("[IDS] Reserved match ids [{}, {}) for {}", r[0], r[1], Thread.currentThread().getName());
+        }
+        return Math.toIntExact(r[0]++);
+    }
+}
@@ -0,0 +1,155 @@
+package com.fintra.stocktrading.service.matching;
+
+import com.fintra.stocktrading.exception.NotFoundException;
+import com.fintra.stocktrading.repository.EquityOrderRepository;
+import com.fintra.stocktrading.service.OrderMatchingService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Routes every matching request for an equity to one single-writer lane
+ * ({@code equityId mod N}), as well as cancels and amendments of its orders. Work for
+ * the same symbol never runs concurrently, so the matching path does not need row locks
+ * on the taker order.
+ * <p>
+ * Callers must submit only committed orders and must never block on a lane
+ * from inside another lane.
+ */
+@Component
+@Slf4j
+public class MatchingLaneScheduler {
+
+    private final OrderMatchingService orderMatchingService;
+    private final EquityOrderRepository orderRepository;
+    private final OrderBookEngine orderBookEngine;
+    private final ExecutorService[] lanes;
+
+    public MatchingLaneScheduler(OrderMatchingService orderMatchingService,
+                                 EquityOrderRepository orderRepository,
+                                 OrderBookEngine orderBookEngine,
+                                 @Value("${app.matching.lanes:4}") int laneCount) {
+        if (laneCount <= 0) {
+            throw new IllegalArgumentException("app.matching.lanes must be positive");
+        }
+        this.orderMatchingService = orderMatchingService;
+        this.orderRepository = orderRepository;
+        this.orderBookEngine = orderBookEngine;
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = "match-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        log.info("[LANES] Started {} matching lanes", laneCount);
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public int laneOf(Integer equityId) {
+        return Math.floorMod(equityId, lanes.length);
+    }
+
+    public <T> CompletableFuture<T> submit(Integer equityId, Supplier<T> task) {
+        if (equityId == null) {
+            throw new IllegalArgumentException("equityId is null");
+        }
+        return CompletableFuture.supplyAsync(task, lanes[laneOf(equityId)]);
+    }
+
+    public CompletableFuture<Void> submit(Integer equityId, Runnable task) {
+        if (equityId == null) {
+            throw new IllegalArgumentException("equityId is null");
+        }
+        return CompletableFuture.runAsync(task, lanes[laneOf(equityId)]);
+    }
+
+    public CompletableFuture<Void> submitMatch(Integer equityId, Integer orderId) {
+        return submit(equityId, () -> orderMatchingService.matchOrder(orderId));
+    }
+
+    public CompletableFuture<Void> submitMatch(Integer orderId) {
+        Integer equityId = orderRepository.findEquityIdByOrderId(orderId)
+                .orElseThrow(() -> new NotFoundException("Order not found with ID: " + orderId));
+        return submitMatch(equityId, orderId);
+    }
+
+    /**
+     * Runs one rematch sweep on the equity's lane over distinct order IDs. Orders that are
+     * no longer resting in the book (filled, cancelled, expired) are skipped without touching
+     * the database, and a failing order does not stop the rest of the sweep.
+     *
+     * @return number of orders actually rematched
+     */
+    public CompletableFuture<Integer> submitRematch(Integer equityId, Collection<Integer> orderIds) {
+        return submit(equityId, () -> {
+            OrderBook book = orderBookEngine.bookFor(equityId);
+            int rematched = 0;
+            for (Integer orderId : orderIds) {
+                if (!book.contains(orderId)) continue;
+                try {
+                    orderMatchingService.matchOrder(orderId);
+                    rematched++;
+                } catch (RuntimeException ex) {
+                    log.warn("[LANES] Rematch skipped for orderId={}: {}", orderId, ex.getMessage());
+                }
+            }
+            return rematched;
+        });
+    }
+
+    public CompletableFuture<Void> submitFullSweep() {
+        List<Integer> equityIds = orderRepository.findEquityIdsWithOpenOrders(OrderBookEngine.MATCHABLE_STATUSES);
+        log.info("[LANES] Full sweep over {} equities", equityIds.size());
+        CompletableFuture<?>[] futures = equityIds.stream()
+                .map(equityId -> submit(equityId, () -> orderMatchingService.matchOpenOrdersForEquity(equityId)))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * Blocks until the lane task completes, rethrowing its original runtime exception.
+     */
+    public <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            try {
+                if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                    lane.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                lane.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
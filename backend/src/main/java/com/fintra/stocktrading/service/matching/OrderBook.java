@@ -0,0 +1,205 @@
+package com.fintra.stocktrading.service.matching;
+
+import com.fintra.stocktrading.model.enums.OrderSide;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resident limit order book of a single equity. Bids are kept highest price first,
+ * asks lowest price first, and every price level is a FIFO queue, so walking a side
+ * in iteration order is price-time priority.
+ * <p>
+ * Every mutation stamps the book with a version drawn from one global sequence, so within one
+ * process a version is never reused, even when a book is dropped and reloaded. The sequence
+ * restarts with the process, so HTTP ETags pair it with the start time.
+ */
+public class OrderBook {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /** Aggregated view of one price level. */
+    public record Level(long priceTicks, long quantity, int orderCount) {
+    }
+
+    /** Consistent, price-level-aggregated copy of both sides at {@code version}. */
+    public record Depth(long version, List<Level> bids, List<Level> asks) {
+    }
+
+    /** Best bid and best ask at {@code version}; a side is {@code null} when empty. */
+    public record Top(long version, Level bestBid, Level bestAsk) {
+    }
+
+    @Getter
+    private final Integer equityId;
+    private final NavigableMap<Long, PriceLevel> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Long, PriceLevel> asks = new TreeMap<>();
+    private final Map<Integer, RestingOrder> index = new HashMap<>();
+    @Getter
+    private volatile long version = VERSIONS.incrementAndGet();
+
+    public OrderBook(Integer equityId) {
+        this.equityId = equityId;
+    }
+
+    public synchronized void upsert(RestingOrder order) {
+        RestingOrder existing = index.get(order.getOrderId());
+        if (existing != null
+                && existing.getOrderSide() == order.getOrderSide()
+                && existing.getPriceTicks() == order.getPriceTicks()) {
+            updateQuantity(existing, order.getRemainingQuantity());
+            return;
+        }
+        if (existing != null) {
+            detach(existing);
+        }
+        if (order.getRemainingQuantity() <= 0) {
+            return;
+        }
+        sideOf(order.getOrderSide())
+                .computeIfAbsent(order.getPriceTicks(), PriceLevel::new)
+                .add(order);
+        index.put(order.getOrderId(), order);
+        bumpVersion();
+    }
+
+    public synchronized void reduce(Integer orderId, int remainingQuantity) {
+        RestingOrder existing = index.get(orderId);
+        if (existing != null) {
+            updateQuantity(existing, remainingQuantity);
+        }
+    }
+
+    public synchronized void remove(Integer orderId) {
+        RestingOrder existing = index.get(orderId);
+        if (existing != null) {
+            detach(existing);
+        }
+    }
+
+    public synchronized boolean contains(Integer orderId) {
+        return index.containsKey(orderId);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Snapshots both sides aggregated per price level, leaving out the given orders.
+     */
+    public synchronized Depth depth(Collection<Integer> excludedOrderIds) {
+        return depth(Integer.MAX_VALUE, excludedOrderIds);
+    }
+
+    /**
+     * Snapshots at most {@code maxLevels} levels per side. Levels carry running totals, so
+     * the cost is proportional to the levels returned, not to the orders resting in them.
+     */
+    public synchronized Depth depth(int maxLevels, Collection<Integer> excludedOrderIds) {
+        return new Depth(version, levels(bids, maxLevels, excludedOrderIds), levels(asks, maxLevels, excludedOrderIds));
+    }
+
+    public synchronized Top top() {
+        return new Top(version, level(bids.firstEntry()), level(asks.firstEntry()));
+    }
+
+    /**
+     * Walks the side opposite to the taker in price-time priority and returns the
+     * resting orders it would cross, stopping once {@code quantity} is covered.
+     *
+     * @param takerSide  side of the incoming order
+     * @param limitTicks taker limit in {@link PriceTicks}, or {@link PriceTicks#MARKET_BUY} /
+     *                   {@link PriceTicks#MARKET_SELL} for a market order
+     * @param quantity   quantity the taker still wants to fill
+     */
+    public synchronized List<Integer> collectCrossing(OrderSide takerSide, long limitTicks, int quantity) {
+        List<Integer> result = new ArrayList<>();
+        if (quantity <= 0) {
+            return result;
+        }
+        NavigableMap<Long, PriceLevel> opposite = takerSide == OrderSide.BUY ? asks : bids;
+        boolean buyTaker = takerSide == OrderSide.BUY;
+        long covered = 0;
+        for (PriceLevel level : opposite.values()) {
+            if (!PriceTicks.crosses(buyTaker, limitTicks, level.getPriceTicks())) {
+                break;
+            }
+            for (RestingOrder maker : level.queue()) {
+                result.add(maker.getOrderId());
+                covered += maker.getRemainingQuantity();
+                if (covered >= quantity) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Level level(Map.Entry<Long, PriceLevel> entry) {
+        if (entry == null) return null;
+        PriceLevel level = entry.getValue();
+        return new Level(level.getPriceTicks(), level.getTotalQuantity(), level.getOrderCount());
+    }
+
+    private List<Level> levels(NavigableMap<Long, PriceLevel> side, int maxLevels, Collection<Integer> excludedOrderIds) {
+        List<Level> result = new ArrayList<>(Math.min(side.size(), maxLevels));
+        for (PriceLevel level : side.values()) {
+            if (result.size() >= maxLevels) break;
+            long quantity = level.getTotalQuantity();
+            int count = level.getOrderCount();
+            for (Integer orderId : excludedOrderIds) {
+                RestingOrder excluded = level.getOrders().get(orderId);
+                if (excluded != null) {
+                    quantity -= excluded.getRemainingQuantity();
+                    count--;
+                }
+            }
+            if (count > 0) {
+                result.add(new Level(level.getPriceTicks(), quantity, count));
+            }
+        }
+        return result;
+    }
+
+    private void updateQuantity(RestingOrder order, int remainingQuantity) {
+        if (remainingQuantity <= 0) {
+            detach(order);
+            return;
+        }
+        PriceLevel level = sideOf(order.getOrderSide()).get(order.getPriceTicks());
+        if (level != null && order.getRemainingQuantity() != remainingQuantity) {
+            level.updateQuantity(order, remainingQuantity);
+            bumpVersion();
+        }
+    }
+
+    private void detach(RestingOrder order) {
+        index.remove(order.getOrderId());
+        NavigableMap<Long, PriceLevel> side = sideOf(order.getOrderSide());
+        PriceLevel level = side.get(order.getPriceTicks());
+        if (level != null) {
+            level.remove(order);
+            if (level.isEmpty()) {
+                side.remove(order.getPriceTicks());
+            }
+        }
+        bumpVersion();
+    }
+
+    private void bumpVersion() {
+        version = VERSIONS.incrementAndGet();
+    }
+
+    private NavigableMap<Long, PriceLevel> sideOf(OrderSide side) {
+        return side == OrderSide.BUY ? bids : asks;
+    }
+}
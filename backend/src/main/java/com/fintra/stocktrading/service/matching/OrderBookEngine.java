@@ -0,0 +1,187 @@
+package com.fintra.stocktrading.service.matching;
+
+import com.fintra.stocktrading.model.entity.EquityOrder;
+import com.fintra.stocktrading.model.enums.OrderSide;
+import com.fintra.stocktrading.model.enums.OrderStatus;
+import com.fintra.stocktrading.model.enums.OrderType;
+import com.fintra.stocktrading.repository.EquityOrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one resident {@link OrderBook} per equity so matching walks only the depth it
+ * crosses instead of scanning every open order. The database stays the durable record:
+ * books are rebuilt from {@link EquityOrderRepository} at startup, and a book touched by
+ * a transaction that rolls back is dropped and lazily reloaded on next access.
+ * <p>
+ * Alongside each matching book it keeps a display book that also holds {@code UPDATED}
+ * orders, which rest on screen but are not matched. Both are maintained by the same calls,
+ * so the order book screen is served from memory.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderBookEngine {
+
+    public static final List<OrderStatus> MATCHABLE_STATUSES =
+            List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
+
+    public static final List<OrderStatus> DISPLAY_STATUSES =
+            List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED, OrderStatus.UPDATED);
+
+    private final EquityOrderRepository orderRepository;
+
+    private final Map<Integer, OrderBook> books = new ConcurrentHashMap<>();
+    private final Map<Integer, OrderBook> displayBooks = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildAll() {
+        long t0 = System.currentTimeMillis();
+        books.clear();
+        displayBooks.clear();
+
+        List<EquityOrder> open = orderRepository.findOpenOrdersForBook(DISPLAY_STATUSES);
+        for (EquityOrder o : open) {
+            if (!isDisplayed(o)) continue;
+            Integer equityId = o.getEquity().getEquityId();
+            displayBooks.computeIfAbsent(equityId, OrderBook::new).upsert(RestingOrder.from(o));
+            if (isResting(o)) {
+                books.computeIfAbsent(equityId, OrderBook::new).upsert(RestingOrder.from(o));
+            }
+        }
+
+        log.info("[BOOK] Rebuilt {} order books with {} resting orders in {} ms",
+                books.size(), open.size(), System.currentTimeMillis() - t0);
+    }
+
+    public OrderBook bookFor(Integer equityId) {
+        return books.computeIfAbsent(equityId, id -> loadBook(id, MATCHABLE_STATUSES));
+    }
+
+    public OrderBook displayBookFor(Integer equityId) {
+        return displayBooks.computeIfAbsent(equityId, id -> loadBook(id, DISPLAY_STATUSES));
+    }
+
+    /**
+     * Returns the IDs of resting orders the taker would cross, in execution priority.
+     */
+    public List<Integer> findCrossingOrderIds(EquityOrder taker, int quantity) {
+        long limit;
+        if (taker.getOrderType() == OrderType.MARKET) {
+            limit = taker.getOrderSide() == OrderSide.BUY ? PriceTicks.MARKET_BUY : PriceTicks.MARKET_SELL;
+        } else if (taker.getPrice() != null) {
+            limit = PriceTicks.toTicks(taker.getPrice());
+        } else {
+            return List.of();
+        }
+        return bookFor(equityIdOf(taker)).collectCrossing(taker.getOrderSide(), limit, quantity);
+    }
+
+    /**
+     * Puts the order on the book (or refreshes its quantity) when it is still matchable,
+     * otherwise takes it off.
+     */
+    public void sync(EquityOrder order) {
+        Integer equityId = equityIdOf(order);
+        trackForRollback(equityId);
+        OrderBook book = bookFor(equityId);
+        if (isResting(order)) {
+            book.upsert(RestingOrder.from(order));
+        } else {
+            book.remove(order.getOrderId());
+        }
+        OrderBook display = displayBookFor(equityId);
+        if (isDisplayed(order)) {
+            display.upsert(RestingOrder.from(order));
+        } else {
+            display.remove(order.getOrderId());
+        }
+    }
+
+    public void reduce(EquityOrder order, int remainingQuantity) {
+        Integer equityId = equityIdOf(order);
+        trackForRollback(equityId);
+        bookFor(equityId).reduce(order.getOrderId(), remainingQuantity);
+        displayBookFor(equityId).reduce(order.getOrderId(), remainingQuantity);
+    }
+
+    public void remove(EquityOrder order) {
+        remove(equityIdOf(order), order.getOrderId());
+    }
+
+    public void remove(Integer equityId, Integer orderId) {
+        trackForRollback(equityId);
+        bookFor(equityId).remove(orderId);
+        displayBookFor(equityId).remove(orderId);
+    }
+
+    public void invalidate(Integer equityId) {
+        displayBooks.remove(equityId);
+        if (books.remove(equityId) != null) {
+            log.warn("[BOOK] Order book for equity {} invalidated, will reload from database", equityId);
+        }
+    }
+
+    private OrderBook loadBook(Integer equityId, List<OrderStatus> statuses) {
+        OrderBook book = new OrderBook(equityId);
+        for (EquityOrder o : orderRepository.findOpenOrdersByEquityId(equityId, statuses)) {
+            if (o.getPrice() != null) {
+                book.upsert(RestingOrder.from(o));
+            }
+        }
+        log.debug("[BOOK] Loaded {} book for equity {} with {} resting orders",
+                statuses == DISPLAY_STATUSES ? "display" : "order", equityId, book.size());
+        return book;
+    }
+
+    private boolean isResting(EquityOrder o) {
+        return MATCHABLE_STATUSES.contains(o.getFinalStatus()) && hasRestingQuantity(o);
+    }
+
+    private boolean isDisplayed(EquityOrder o) {
+        return DISPLAY_STATUSES.contains(o.getFinalStatus()) && hasRestingQuantity(o);
+    }
+
+    private boolean hasRestingQuantity(EquityOrder o) {
+        Integer rem = o.getRemainingQuantity();
+        return rem != null && rem > 0 && o.getPrice() != null;
+    }
+
+    private Integer equityIdOf(EquityOrder o) {
+        return o.getEquity().getEquityId();
+    }
+
+    private void trackForRollback(Integer equityId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+
+        @SuppressWarnings("unchecked")
+        Set<Integer> touched = (Set<Integer>) TransactionSynchronizationManager.getResource(this);
+        if (touched == null) {
+            Set<Integer> created = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderBookEngine.this);
+                    if (status != STATUS_COMMITTED) {
+                        created.forEach(OrderBookEngine.this::invalidate);
+                    }
+                }
+            });
+            touched = created;
+        }
+        touched.add(equityId);
+    }
+}
@@ -0,0 +1,55 @@
+package com.fintra.stocktrading.service.matching;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * All resting orders of one side at a single price, kept in arrival (FIFO) order.
+ */
+@Getter
+public class PriceLevel {
+
+    private final long priceTicks;
+    private final Map<Integer, RestingOrder> orders = new LinkedHashMap<>();
+    private long totalQuantity;
+
+    public PriceLevel(long priceTicks) {
+        this.priceTicks = priceTicks;
+    }
+
+    public BigDecimal getPrice() {
+        return PriceTicks.toPrice(priceTicks);
+    }
+
+    void add(RestingOrder order) {
+        orders.put(order.getOrderId(), order);
+        totalQuantity += order.getRemainingQuantity();
+    }
+
+    void remove(RestingOrder order) {
+        if (orders.remove(order.getOrderId()) != null) {
+            totalQuantity -= order.getRemainingQuantity();
+        }
+    }
+
+    void updateQuantity(RestingOrder order, int remainingQuantity) {
+        totalQuantity += remainingQuantity - order.getRemainingQuantity();
+        order.setRemainingQuantity(remainingQuantity);
+    }
+
+    Collection<RestingOrder> queue() {
+        return orders.values();
+    }
+
+    public int getOrderCount() {
+        return orders.size();
+    }
+
+    public boolean isEmpty() {
+        return orders.isEmpty();
+    }
+}
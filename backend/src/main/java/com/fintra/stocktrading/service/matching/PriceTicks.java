@@ -0,0 +1,36 @@
+package com.fintra.stocktrading.service.matching;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point price representation used by the matching core. A price is held as a
+ * {@code long} count of ten-thousandths, matching the {@code scale = 4} of the price
+ * columns, and converted back to {@link BigDecimal} only at the persistence/DTO boundary.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PriceTicks {
+
+    public static final int SCALE = 4;
+
+    /** Limit used for a market BUY: crosses every ask. */
+    public static final long MARKET_BUY = Long.MAX_VALUE;
+
+    /** Limit used for a market SELL: crosses every bid. */
+    public static final long MARKET_SELL = Long.MIN_VALUE;
+
+    public static long toTicks(BigDecimal price) {
+        return price.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toPrice(long ticks) {
+        return BigDecimal.valueOf(ticks, SCALE);
+    }
+
+    public static boolean crosses(boolean buyTaker, long takerLimit, long makerPrice) {
+        return buyTaker ? takerLimit >= makerPrice : takerLimit <= makerPrice;
+    }
+}
@@ -0,0 +1,37 @@
+package com.fintra.stocktrading.service.matching;
+
+import com.fintra.stocktrading.model.entity.EquityOrder;
+import com.fintra.stocktrading.model.enums.OrderSide;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class RestingOrder {
+
+    private final Integer orderId;
+    private final OrderSide orderSide;
+    private final long priceTicks;
+    private final LocalDateTime entryDate;
+    private int remainingQuantity;
+
+    public static RestingOrder from(EquityOrder order) {
+        Integer rem = order.getRemainingQuantity();
+        return new RestingOrder(
+                order.getOrderId(),
+                order.getOrderSide(),
+                PriceTicks.toTicks(order.getPrice()),
+                order.getEntryDate(),
+                rem != null ? rem : order.getOrderQuantity()
+        );
+    }
+
+    public BigDecimal getPrice() {
+        return PriceTicks.toPrice(priceTicks);
+    }
+}
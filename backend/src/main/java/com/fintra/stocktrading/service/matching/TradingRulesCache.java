@@ -0,0 +1,77 @@
+package com.fintra.stocktrading.service.matching;
+
+import com.fintra.stocktrading.model.entity.EquityPriceHistory;
+import com.fintra.stocktrading.repository.EquityPriceHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-equity price rules (reference price, daily band and tick step) precomputed in
+ * {@link PriceTicks} so order validation is a pair of primitive comparisons.
+ * The reference price is the latest close from the price history; the whole map is
+ * swapped atomically on refresh, which happens at startup, session open and after EOD.
+ */
+@Component
+@Slf4j
+public class TradingRulesCache {
+
+    private final EquityPriceHistoryRepository priceHistoryRepository;
+    private final long bandPercent;
+    private final long tickTicks;
+
+    private volatile Map<Integer, TradingRules> rules = Map.of();
+
+    public TradingRulesCache(EquityPriceHistoryRepository priceHistoryRepository,
+                             @Value("${app.trading-rules.band-percent:10}") long bandPercent,
+                             @Value("${app.trading-rules.tick-step:0.01}") BigDecimal tickStep) {
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.bandPercent = bandPercent;
+        this.tickTicks = PriceTicks.toTicks(tickStep);
+    }
+
+    public record TradingRules(long referenceTicks, long lowerTicks, long upperTicks, long tickTicks) {
+
+        public boolean withinBand(long priceTicks) {
+            return priceTicks >= lowerTicks && priceTicks <= upperTicks;
+        }
+
+        public boolean onTick(long priceTicks) {
+            return tickTicks <= 0 || priceTicks % tickTicks == 0;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void refresh() {
+        Map<Integer, TradingRules> loaded = new HashMap<>();
+        for (EquityPriceHistory price : priceHistoryRepository.findLatestPricesForAllEquities()) {
+            if (price.getClosePrice() == null || price.getClosePrice().signum() <= 0) continue;
+            long ref = PriceTicks.toTicks(price.getClosePrice());
+            loaded.put(price.getEquity().getEquityId(), new TradingRules(
+                    ref,
+                    Math.ceilDiv(ref * (100 - bandPercent), 100),
+                    Math.floorDiv(ref * (100 + bandPercent), 100),
+                    tickTicks
+            ));
+        }
+        rules = Map.copyOf(loaded);
+        log.info("[RULES] Loaded trading rules for {} equities (band ±{}%, tick {})",
+                loaded.size(), bandPercent, PriceTicks.toPrice(tickTicks));
+    }
+
+    /**
+     * Rules for the equity, or {@code null} when no reference price is known and the
+     * band and tick checks do not apply.
+     */
+    public TradingRules rulesFor(Integer equityId) {
+        return rules.get(equityId);
+    }
+}
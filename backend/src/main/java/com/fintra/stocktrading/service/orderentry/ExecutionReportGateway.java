@@ -0,0 +1,98 @@
+package com.fintra.stocktrading.service.orderentry;
+
+import com.fintra.stocktrading.model.dto.response.ExecutionReportResponse;
+import com.fintra.stocktrading.model.dto.response.OrderAckResponse;
+import com.fintra.stocktrading.model.enums.OrderSide;
+import com.fintra.stocktrading.service.matching.FillJournalEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes order acknowledgements and fills to the streams of the owning accounts. Fills are
+ * reported once the batch holding their trades is committed. Accounts without subscribers
+ * cost one map lookup per fill; a slow subscriber keeps the latest
+ * {@code app.order-entry.report-buffer-size} reports, oldest dropped first.
+ */
+@Component
+@Slf4j
+public class ExecutionReportGateway {
+
+    private static final Sinks.EmitFailureHandler RETRY_ON_CONTENTION =
+            Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(50));
+
+    private final int bufferSize;
+    private final Duration heartbeat;
+    private final Map<Integer, Sinks.Many<ServerSentEvent<Object>>> channels = new ConcurrentHashMap<>();
+
+    public ExecutionReportGateway(@Value("${app.order-entry.report-buffer-size:512}") int bufferSize,
+                                  @Value("${app.market-data.heartbeat-seconds:15}") long heartbeatSeconds) {
+        this.bufferSize = bufferSize;
+        this.heartbeat = Duration.ofSeconds(heartbeatSeconds);
+    }
+
+    /**
+     * Opens the report stream of one account: {@code ack} events for accepted orders and
+     * {@code fill} events for their executions.
+     */
+    public Flux<ServerSentEvent<Object>> stream(Integer accountId) {
+        Sinks.Many<ServerSentEvent<Object>> channel =
+                channels.computeIfAbsent(accountId, id -> Sinks.many().multicast().directBestEffort());
+
+        Flux<ServerSentEvent<Object>> reports = channel.asFlux()
+                .onBackpressureBuffer(bufferSize,
+                        dropped -> log.debug("[EXEC] Dropped report for slow subscriber of account {}", accountId),
+                        BufferOverflowStrategy.DROP_OLDEST);
+        Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(heartbeat)
+                .map(i -> ServerSentEvent.<Object>builder().comment("heartbeat").build());
+
+        return Flux.merge(reports, heartbeats)
+                .doOnSubscribe(s -> log.debug("[EXEC] Subscriber joined account {}", accountId))
+                .doFinally(signal -> log.debug("[EXEC] Subscriber left account {} ({})", accountId, signal));
+    }
+
+    public void publishAck(OrderAckResponse ack) {
+        emit(ack.getAccountId(), "ack", ack);
+    }
+
+    /**
+     * Reports committed fills to both sides. Entries other than fills, and fills journaled
+     * before accounts were recorded, are skipped.
+     */
+    public void publishFills(List<FillJournalEntry> entries) {
+        if (channels.isEmpty()) return;
+        for (FillJournalEntry entry : entries) {
+            if (entry.getKind() != FillJournalEntry.Kind.FILL) continue;
+            emit(entry.getBuyAccountId(), "fill", report(entry, entry.getBuyOrderId(), entry.getBuyAccountId(), OrderSide.BUY));
+            emit(entry.getSellAccountId(), "fill", report(entry, entry.getSellOrderId(), entry.getSellAccountId(), OrderSide.SELL));
+        }
+    }
+
+    private void emit(Integer accountId, String name, Object data) {
+        Sinks.Many<ServerSentEvent<Object>> channel = accountId != null ? channels.get(accountId) : null;
+        if (channel == null || channel.currentSubscriberCount() == 0) return;
+        channel.emitNext(ServerSentEvent.builder(data).event(name).build(), RETRY_ON_CONTENTION);
+    }
+
+    private static ExecutionReportResponse report(FillJournalEntry fill, Integer orderId, Integer accountId, OrderSide side) {
+        return ExecutionReportResponse.builder()
+                .orderId(orderId)
+                .accountId(accountId)
+                .equityId(fill.getEquityId())
+                .orderSide(side)
+                .matchId(fill.getMatchId())
+                .quantity(fill.getQuantity())
+                .price(fill.getPrice())
+                .timestamp(fill.getTime())
+                .build();
+    }
+}
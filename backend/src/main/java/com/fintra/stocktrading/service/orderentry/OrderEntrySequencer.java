@@ -0,0 +1,29 @@
+package com.fintra.stocktrading.service.orderentry;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Assigns entry sequence numbers to accepted orders. A number is taken together with the
+ * hand-off of the order to its matching lane, so within one equity sequence order is matching
+ * order, and anything the hand-off publishes before enqueueing is ordered the same way. The counter starts from the startup time in microseconds, which keeps numbers
+ * increasing across restarts as long as fewer than a million orders per second are accepted.
+ */
+@Component
+public class OrderEntrySequencer {
+
+    private long sequence = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+
+    /**
+     * Runs {@code handoff} with the number assigned to it under the sequencing lock and returns
+     * that number. The hand-off must only publish or enqueue work, never wait for it.
+     */
+    public synchronized long sequence(LongConsumer handoff) {
+        long next = ++sequence;
+        handoff.accept(next);
+        return next;
+    }
+}
@@ -0,0 +1,18 @@
+package com.fintra.stocktrading.service.pricehistory;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * One stored price bar, reduced to the equity it belongs to and its date, for working out
+ * which days each equity is missing.
+ */
+@Getter
+@AllArgsConstructor
+public class EquityPriceDate {
+
+    private final Integer equityId;
+    private final LocalDate dataDate;
+}
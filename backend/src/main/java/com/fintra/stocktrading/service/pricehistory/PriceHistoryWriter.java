@@ -0,0 +1,157 @@
+package com.fintra.stocktrading.service.pricehistory;
+
+import com.fintra.stocktrading.model.dto.external.ExternalPriceRecordDto;
+import com.fintra.stocktrading.model.entity.Equity;
+import com.fintra.stocktrading.repository.EquityRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Upserts external price records into {@code equity_price_histories} with set-based MERGE
+ * statements keyed on the (equity_id, data_date) unique constraint. Each statement commits on
+ * its own, so a caller interrupted half-way keeps everything merged up to that point and can
+ * simply run again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PriceHistoryWriter {
+
+    // SQL Server allows 2100 parameters per statement; 6 per row plus 4 timestamps.
+    public static final int ROWS_PER_STATEMENT = 300;
+
+    private static final String MERGE_PRICES_HEAD =
+            "MERGE equity_price_histories WITH (HOLDLOCK) AS t USING (VALUES ";
+    private static final String MERGE_PRICES_ROW =
+            "(?, CAST(? AS DATE), CAST(? AS DECIMAL(18, 4)), CAST(? AS DECIMAL(18, 4)), " +
+                    "CAST(? AS DECIMAL(18, 4)), CAST(? AS DECIMAL(18, 4)))";
+    private static final String MERGE_PRICES_TAIL =
+            ") AS s (equity_id, data_date, open_price, close_price, high_price, low_price) " +
+                    "ON t.equity_id = s.equity_id AND t.data_date = s.data_date " +
+                    "WHEN MATCHED THEN UPDATE SET open_price = s.open_price, close_price = s.close_price, " +
+                    "high_price = s.high_price, low_price = s.low_price, updated_at = ? " +
+                    "WHEN NOT MATCHED THEN INSERT (equity_id, data_date, open_price, close_price, high_price, low_price, " +
+                    "record_time, created_at, updated_at) VALUES (s.equity_id, s.data_date, s.open_price, s.close_price, " +
+                    "s.high_price, s.low_price, ?, ?, ?);";
+
+    private final EquityRepository equityRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public record MergeResult(int merged, int skipped) {
+    }
+
+    /**
+     * Maps ticker, equity code and their {@code .E}-suffixed and unsuffixed variants to the
+     * stored equities, for resolving the asset codes of price records.
+     */
+    public Map<String, Equity> equityLookup() {
+        List<Equity> allEquities = equityRepository.findAll();
+        Map<String, Equity> lookupMap = new HashMap<>();
+
+        for (Equity equity : allEquities) {
+            // Add multiple lookup keys for flexible matching
+            lookupMap.put(equity.getTicker(), equity);
+            lookupMap.put(equity.getEquityCode(), equity);
+
+            // Handle .E suffix variations
+            if (equity.getTicker().endsWith(".E")) {
+                lookupMap.put(equity.getTicker().substring(0, equity.getTicker().length() - 2), equity);
+            } else {
+                lookupMap.put(equity.getTicker() + ".E", equity);
+            }
+
+            if (equity.getEquityCode().endsWith(".E")) {
+                lookupMap.put(equity.getEquityCode().substring(0, equity.getEquityCode().length() - 2), equity);
+            } else {
+                lookupMap.put(equity.getEquityCode() + ".E", equity);
+            }
+        }
+
+        return lookupMap;
+    }
+
+    public Optional<Equity> resolve(String assetCode, Map<String, Equity> lookupMap) {
+        Equity equity = lookupMap.get(assetCode);
+        if (equity != null) {
+            return Optional.of(equity);
+        }
+
+        equity = lookupMap.get(assetCode + ".E");
+        if (equity != null) {
+            return Optional.of(equity);
+        }
+
+        if (assetCode.endsWith(".E")) {
+            equity = lookupMap.get(assetCode.substring(0, assetCode.length() - 2));
+            if (equity != null) {
+                return Optional.of(equity);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    public static boolean isValid(ExternalPriceRecordDto dto) {
+        return dto != null
+                && dto.getAssetCode() != null && !dto.getAssetCode().trim().isEmpty()
+                && dto.getDataDate() != null
+                && dto.getClosePrice() != null && dto.getClosePrice().compareTo(BigDecimal.ZERO) > 0;
+    }
+
+    /**
+     * Merges the valid records whose asset code resolves, {@link #ROWS_PER_STATEMENT} rows per
+     * statement. Invalid and unmatched records are counted as skipped.
+     */
+    public MergeResult merge(List<ExternalPriceRecordDto> records, Map<String, Equity> lookupMap) {
+        // MERGE rejects a source that hits the same target row twice; the last record wins.
+        Map<List<Object>, Object[]> rows = new LinkedHashMap<>();
+        int skipped = 0;
+        for (ExternalPriceRecordDto record : records) {
+            Optional<Equity> equity = isValid(record) ? resolve(record.getAssetCode(), lookupMap) : Optional.empty();
+            if (equity.isEmpty()) {
+                skipped++;
+                continue;
+            }
+            Integer equityId = equity.get().getEquityId();
+            rows.put(List.of(equityId, record.getDataDate()), new Object[]{equityId, record.getDataDate(),
+                    record.getOpenPrice(), record.getClosePrice(), record.getHighPrice(), record.getLowPrice()});
+        }
+
+        List<Object[]> ordered = new ArrayList<>(rows.values());
+        for (int from = 0; from < ordered.size(); from += ROWS_PER_STATEMENT) {
+            mergeStatement(ordered.subList(from, Math.min(from + ROWS_PER_STATEMENT, ordered.size())));
+        }
+        log.debug("Merged {} price records, skipped {}", ordered.size(), skipped);
+        return new MergeResult(ordered.size(), skipped);
+    }
+
+    private void mergeStatement(List<Object[]> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        StringBuilder sql = new StringBuilder(MERGE_PRICES_HEAD);
+        List<Object> args = new ArrayList<>(rows.size() * 6 + 4);
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(MERGE_PRICES_ROW);
+            args.addAll(Arrays.asList(rows.get(i)));
+        }
+        sql.append(MERGE_PRICES_TAIL);
+        args.addAll(List.of(now, now, now, now));
+
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(sql.toString(), args.toArray()));
+    }
+}
@@ -0,0 +1,68 @@
+package com.fintra.stocktrading.service.risk;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resident balances of one account plus the deltas not yet written to the database. Pending
+ * deltas are signed amounts moved from free to blocked. An account is held while the database
+ * refuses one of its deltas. Guarded by the account's ledger stripe.
+ */
+@Getter
+class AccountRisk {
+
+    @Getter
+    static class Holding {
+        private int free;
+        private int blocked;
+
+        Holding(int free, int blocked) {
+            this.free = free;
+            this.blocked = blocked;
+        }
+    }
+
+    private BigDecimal freeCash;
+    private BigDecimal blockedCash;
+    private final Map<Integer, Holding> holdings = new HashMap<>();
+
+    private BigDecimal pendingCash = BigDecimal.ZERO;
+    private final Map<Integer, Integer> pendingShares = new HashMap<>();
+    private boolean held;
+
+    AccountRisk(BigDecimal freeCash, BigDecimal blockedCash) {
+        this.freeCash = freeCash;
+        this.blockedCash = blockedCash;
+    }
+
+    void moveCash(BigDecimal toBlocked) {
+        freeCash = freeCash.subtract(toBlocked);
+        blockedCash = blockedCash.add(toBlocked);
+        pendingCash = pendingCash.add(toBlocked);
+    }
+
+    void moveShares(Integer equityId, Holding holding, int toBlocked) {
+        holding.free -= toBlocked;
+        holding.blocked += toBlocked;
+        pendingShares.merge(equityId, toBlocked, Integer::sum);
+    }
+
+    boolean hasPending() {
+        return pendingCash.signum() != 0 || pendingShares.values().stream().anyMatch(q -> q != 0);
+    }
+
+    void clearPendingCash() {
+        pendingCash = BigDecimal.ZERO;
+    }
+
+    void clearPendingShares(Integer equityId) {
+        pendingShares.remove(equityId);
+    }
+
+    void setHeld(boolean held) {
+        this.held = held;
+    }
+}
@@ -0,0 +1,537 @@
+package com.fintra.stocktrading.service.risk;
+
+import com.fintra.stocktrading.exception.ConflictException;
+import com.fintra.stocktrading.exception.NotFoundException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Resident pre-trade risk ledger: free and blocked cash per account and free and blocked
+ * shares per account and equity, loaded from the database on first use.
+ * <p>
+ * Checks and reservations run in memory under a lock striped by account, so a reservation
+ * is one atomic step with no database round trip. Within a transaction, a reservation takes
+ * effect at once and is undone on rollback; a release takes effect on commit. The moved
+ * amounts are written behind as guarded delta UPDATEs every
+ * {@code app.risk.flush-interval-ms}, so they commute with the delta writes of expiry and
+ * settlement.
+ * <p>
+ * Services that change balances or holdings directly must call {@link #lockForUpdate} first.
+ * End of day flushes the ledger, reconciles it against the database and starts over from the
+ * database.
+ * <p>
+ * A delta the database refuses is kept pending and retried, and its account is held: it stays
+ * resident, so the amounts it reserved cannot be spent again, and new reservations and direct
+ * updates for it fail until the delta is written or end of day reconciles the account.
+ */
+@Component
+@Slf4j
+public class RiskLedger {
+
+    private static final String LOAD_CASH =
+            "SELECT free_balance, blocked_balance FROM cash_balances WHERE account_id = ?";
+    private static final String LOAD_HOLDINGS =
+            "SELECT equity_id, free_quantity, blocked_quantity FROM equity_stocks WHERE account_id = ?";
+    private static final String APPLY_CASH =
+            "UPDATE cash_balances SET free_balance = free_balance - ?, blocked_balance = blocked_balance + ?, updated_at = ? " +
+                    "WHERE account_id = ? AND free_balance >= ? AND blocked_balance >= ?";
+    private static final String APPLY_SHARES =
+            "UPDATE equity_stocks SET free_quantity = free_quantity - ?, blocked_quantity = blocked_quantity + ?, updated_at = ? " +
+                    "WHERE account_id = ? AND equity_id = ? AND free_quantity >= ? AND blocked_quantity >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock[] stripes;
+    private final List<Set<Integer>> dirty;
+    private final Map<Integer, AccountRisk> accounts = new ConcurrentHashMap<>();
+
+    public RiskLedger(JdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${app.risk.stripes:64}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("app.risk.stripes must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stripes = new ReentrantLock[stripeCount];
+        this.dirty = new ArrayList<>(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+            dirty.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Blocks {@code amount} of free cash if the account has it.
+     *
+     * @return {@code false} if free cash is insufficient
+     * @throws NotFoundException if the account has no cash balance
+     * @throws ConflictException if the account is held
+     */
+    public boolean tryReserveCash(Integer accountId, BigDecimal amount) {
+        return moveCash(accountId, amount);
+    }
+
+    /**
+     * Returns {@code amount} of blocked cash to free cash.
+     *
+     * @throws IllegalArgumentException if less than {@code amount} is blocked
+     */
+    public void releaseCash(Integer accountId, BigDecimal amount) {
+        moveCash(accountId, amount.negate());
+    }
+
+    /**
+     * Swaps a reservation of {@code released} for one of {@code reserved} in one step, so the
+     * check sees the released amount as available.
+     *
+     * @return {@code false} if free cash is insufficient for the difference
+     */
+    public boolean tryReplaceCash(Integer accountId, BigDecimal released, BigDecimal reserved) {
+        return moveCash(accountId, reserved.subtract(released));
+    }
+
+    /**
+     * Blocks {@code quantity} free shares if the account holds them.
+     *
+     * @return {@code false} if free shares are insufficient or the account holds none
+     */
+    public boolean tryReserveShares(Integer accountId, Integer equityId, int quantity) {
+        return moveShares(accountId, equityId, quantity);
+    }
+
+    /**
+     * Returns {@code quantity} blocked shares to free shares.
+     *
+     * @throws IllegalArgumentException if the account holds no such equity or less is blocked
+     */
+    public void releaseShares(Integer accountId, Integer equityId, int quantity) {
+        moveShares(accountId, equityId, -quantity);
+    }
+
+    public boolean tryReplaceShares(Integer accountId, Integer equityId, int released, int reserved) {
+        return moveShares(accountId, equityId, reserved - released);
+    }
+
+    /**
+     * For services that change balances or holdings outside the ledger. Must be called in
+     * their transaction before they read the rows: writes out the accounts' pending deltas,
+     * then holds their stripes until the transaction completes and drops the accounts, so the
+     * next check reloads what the transaction committed.
+     *
+     * @throws ConflictException if one of the accounts is held
+     */
+    public void lockForUpdate(Integer... accountIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("lockForUpdate requires an active transaction");
+        }
+        List<Integer> ids = Arrays.stream(accountIds).filter(Objects::nonNull).distinct().toList();
+        int[] locked = ids.stream().mapToInt(this::stripeIndex).distinct().sorted().toArray();
+        for (int i : locked) {
+            stripes[i].lock();
+        }
+        try {
+            write(ids);
+            List<Integer> held = ids.stream().filter(this::isHeld).toList();
+            if (!held.isEmpty()) {
+                throw new ConflictException("Accounts " + held + " have reservations pending reconciliation");
+            }
+        } catch (RuntimeException e) {
+            unlock(locked);
+            throw e;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    write(ids);
+                } catch (RuntimeException e) {
+                    log.error("[RISK] Writing pending deltas failed, keeping accounts {} resident: {}", ids, e.getMessage(), e);
+                }
+                ids.stream().filter(id -> !hasPending(id)).forEach(accounts::remove);
+                unlock(locked);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.risk.flush-interval-ms:200}")
+    public void flush() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i].lock();
+            try {
+                if (!dirty.get(i).isEmpty()) {
+                    write(List.copyOf(dirty.get(i)));
+                }
+            } catch (RuntimeException e) {
+                log.error("[RISK] Writing pending deltas failed, will retry: {}", e.getMessage(), e);
+            } finally {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes out every pending delta, compares each resident account with the database and
+     * drops them all. Order entry is held for the duration.
+     *
+     * @return number of accounts whose resident state differed from the database
+     */
+    public int reconcile() {
+        return withAllStripes(() -> {
+            write(List.copyOf(accounts.keySet()));
+            int drifted = 0;
+            for (Map.Entry<Integer, AccountRisk> entry : accounts.entrySet()) {
+                if (drifted(entry.getKey(), entry.getValue())) {
+                    drifted++;
+                }
+            }
+            log.info("[RISK] Reconciled {} accounts, {} drifted from the database", accounts.size(), drifted);
+            dropAll();
+            return drifted;
+        });
+    }
+
+    /**
+     * Writes out every pending delta and drops all accounts, for use after bulk database
+     * changes such as expiry and settlement.
+     */
+    public void evictAll() {
+        withAllStripes(() -> {
+            write(List.copyOf(accounts.keySet()));
+            dropAll();
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private boolean moveCash(Integer accountId, BigDecimal toBlocked) {
+        if (toBlocked.signum() == 0) return true;
+
+        ReentrantLock lock = stripeOf(accountId);
+        lock.lock();
+        try {
+            AccountRisk risk = load(accountId);
+            if (toBlocked.signum() > 0) {
+                requireNotHeld(accountId, risk);
+                if (risk.getFreeCash().compareTo(toBlocked) < 0) {
+                    return false;
+                }
+                risk.moveCash(toBlocked);
+                markDirty(accountId);
+            } else if (risk.getBlockedCash().compareTo(toBlocked.negate()) < 0) {
+                throw new IllegalArgumentException("Insufficient blocked balance: requested=" + toBlocked.negate()
+                        + ", available=" + risk.getBlockedCash() + ", accountId=" + accountId);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (toBlocked.signum() > 0) {
+            onRollback(() -> applyCash(accountId, toBlocked.negate()));
+        } else {
+            onCommit(() -> applyCash(accountId, toBlocked));
+        }
+        return true;
+    }
+
+    private boolean moveShares(Integer accountId, Integer equityId, int toBlocked) {
+        if (toBlocked == 0) return true;
+
+        ReentrantLock lock = stripeOf(accountId);
+        lock.lock();
+        try {
+            AccountRisk risk = load(accountId);
+            AccountRisk.Holding holding = risk.getHoldings().get(equityId);
+            if (toBlocked > 0) {
+                requireNotHeld(accountId, risk);
+                if (holding == null || holding.getFree() < toBlocked) {
+                    return false;
+                }
+                risk.moveShares(equityId, holding, toBlocked);
+                markDirty(accountId);
+            } else if (holding == null) {
+                throw new IllegalArgumentException("No equity stock found for account=" + accountId + " and equity=" + equityId);
+            } else if (holding.getBlocked() < -toBlocked) {
+                throw new IllegalArgumentException("Insufficient blocked stock: requested=" + -toBlocked
+                        + ", available=" + holding.getBlocked() + ", accountId=" + accountId + ", equityId=" + equityId);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (toBlocked > 0) {
+            onRollback(() -> applyShares(accountId, equityId, -toBlocked));
+        } else {
+            onCommit(() -> applyShares(accountId, equityId, toBlocked));
+        }
+        return true;
+    }
+
+    /** Applies a deferred release or a rollback; a release larger than what is blocked is clamped. */
+    private void applyCash(Integer accountId, BigDecimal toBlocked) {
+        ReentrantLock lock = stripeOf(accountId);
+        lock.lock();
+        try {
+            AccountRisk risk = load(accountId);
+            BigDecimal delta = toBlocked;
+            if (delta.negate().compareTo(risk.getBlockedCash()) > 0) {
+                log.warn("[RISK] Release of {} exceeds blocked cash {} for account {}, clamping",
+                        delta.negate(), risk.getBlockedCash(), accountId);
+                delta = risk.getBlockedCash().negate();
+            }
+            risk.moveCash(delta);
+            markDirty(accountId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void applyShares(Integer accountId, Integer equityId, int toBlocked) {
+        ReentrantLock lock = stripeOf(accountId);
+        lock.lock();
+        try {
+            AccountRisk risk = load(accountId);
+            AccountRisk.Holding holding = risk.getHoldings().get(equityId);
+            if (holding == null) {
+                log.warn("[RISK] Account {} no longer holds equity {}, release of {} dropped", accountId, equityId, -toBlocked);
+                return;
+            }
+            int delta = toBlocked;
+            if (-delta > holding.getBlocked()) {
+                log.warn("[RISK] Release of {} exceeds blocked shares {} for account {} equity {}, clamping",
+                        -delta, holding.getBlocked(), accountId, equityId);
+                delta = -holding.getBlocked();
+            }
+            risk.moveShares(equityId, holding, delta);
+            markDirty(accountId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Caller holds the account's stripe. */
+    private AccountRisk load(Integer accountId) {
+        AccountRisk risk = accounts.get(accountId);
+        if (risk == null) {
+            risk = read(accountId);
+            accounts.put(accountId, risk);
+        }
+        return risk;
+    }
+
+    private AccountRisk read(Integer accountId) {
+        AccountRisk risk = jdbcTemplate.query(LOAD_CASH,
+                rs -> rs.next() ? new AccountRisk(rs.getBigDecimal(1), rs.getBigDecimal(2)) : null, accountId);
+        if (risk == null) {
+            throw new NotFoundException("CashBalance not found for account: " + accountId);
+        }
+        jdbcTemplate.query(LOAD_HOLDINGS, rs -> {
+            risk.getHoldings().put(rs.getInt(1), new AccountRisk.Holding(rs.getInt(2), rs.getInt(3)));
+        }, accountId);
+        return risk;
+    }
+
+    /**
+     * Writes the pending deltas of the given accounts in one transaction. Caller holds their
+     * stripes. A delta the database refuses means the row changed outside the ledger. Reloading
+     * the account would silently drop what its live orders reserved, so the delta stays pending
+     * and the account is held until a later write succeeds or reconciliation drops it.
+     */
+    private void write(Collection<Integer> accountIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Integer> written = new ArrayList<>();
+        List<Object[]> cashRows = new ArrayList<>();
+        List<Object[]> shareRows = new ArrayList<>();
+        for (Integer accountId : accountIds) {
+            AccountRisk risk = accounts.get(accountId);
+            if (risk == null || !risk.hasPending()) continue;
+            written.add(accountId);
+
+            BigDecimal cash = risk.getPendingCash();
+            if (cash.signum() != 0) {
+                cashRows.add(new Object[]{cash, cash, now, accountId, cash.max(BigDecimal.ZERO), cash.negate().max(BigDecimal.ZERO)});
+            }
+            risk.getPendingShares().forEach((equityId, quantity) -> {
+                if (quantity != 0) {
+                    shareRows.add(new Object[]{quantity, quantity, now, accountId, equityId, Math.max(quantity, 0), Math.max(-quantity, 0)});
+                }
+            });
+        }
+        if (written.isEmpty()) return;
+
+        int[][] counts = transactionTemplate.execute(status -> new int[][]{
+                cashRows.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(APPLY_CASH, cashRows),
+                shareRows.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(APPLY_SHARES, shareRows)});
+
+        Set<Integer> refused = new HashSet<>();
+        for (int i = 0; i < counts[0].length; i++) {
+            Integer accountId = (Integer) cashRows.get(i)[3];
+            if (counts[0][i] == 0) {
+                refused.add(accountId);
+            } else {
+                accounts.get(accountId).clearPendingCash();
+            }
+        }
+        for (int i = 0; i < counts[1].length; i++) {
+            Integer accountId = (Integer) shareRows.get(i)[3];
+            if (counts[1][i] == 0) {
+                refused.add(accountId);
+            } else {
+                accounts.get(accountId).clearPendingShares((Integer) shareRows.get(i)[4]);
+            }
+        }
+
+        for (Integer accountId : written) {
+            AccountRisk risk = accounts.get(accountId);
+            if (refused.contains(accountId)) {
+                if (!risk.isHeld()) {
+                    log.error("[RISK] Database refused pending delta for account {}, holding it until reconciled", accountId);
+                }
+                risk.setHeld(true);
+            } else {
+                if (risk.isHeld()) {
+                    log.info("[RISK] Pending delta for account {} written, releasing hold", accountId);
+                }
+                risk.setHeld(false);
+                risk.getPendingShares().values().removeIf(q -> q == 0);
+                dirty.get(stripeIndex(accountId)).remove(accountId);
+            }
+        }
+        log.debug("[RISK] Wrote pending deltas of {} accounts, {} refused", written.size(), refused.size());
+    }
+
+    /** Caller holds every stripe. Held accounts give up their refused deltas for the database copy. */
+    private void dropAll() {
+        List<Integer> held = accounts.entrySet().stream()
+                .filter(e -> e.getValue().isHeld()).map(Map.Entry::getKey).toList();
+        if (!held.isEmpty()) {
+            log.error("[RISK] Dropping refused deltas of held accounts {}, reloading them from the database", held);
+        }
+        accounts.clear();
+        dirty.forEach(Set::clear);
+    }
+
+    private boolean drifted(Integer accountId, AccountRisk resident) {
+        AccountRisk stored;
+        try {
+            stored = read(accountId);
+        } catch (NotFoundException e) {
+            log.warn("[RISK] Account {} has no cash balance any more", accountId);
+            return true;
+        }
+        boolean drift = resident.getFreeCash().compareTo(stored.getFreeCash()) != 0
+                || resident.getBlockedCash().compareTo(stored.getBlockedCash()) != 0;
+        for (Map.Entry<Integer, AccountRisk.Holding> e : resident.getHoldings().entrySet()) {
+            AccountRisk.Holding db = stored.getHoldings().get(e.getKey());
+            if (db == null || db.getFree() != e.getValue().getFree() || db.getBlocked() != e.getValue().getBlocked()) {
+                drift = true;
+            }
+        }
+        if (drift) {
+            log.warn("[RISK] Account {} drifted: resident cash {}/{}, database cash {}/{}", accountId,
+                    resident.getFreeCash(), resident.getBlockedCash(), stored.getFreeCash(), stored.getBlockedCash());
+        }
+        return drift;
+    }
+
+    private <T> T withAllStripes(Supplier<T> action) {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    private void unlock(int[] locked) {
+        for (int i = locked.length - 1; i >= 0; i--) {
+            stripes[locked[i]].unlock();
+        }
+    }
+
+    private boolean isHeld(Integer accountId) {
+        AccountRisk risk = accounts.get(accountId);
+        return risk != null && risk.isHeld();
+    }
+
+    private static void requireNotHeld(Integer accountId, AccountRisk risk) {
+        if (risk.isHeld()) {
+            throw new ConflictException("Account " + accountId + " has reservations pending reconciliation");
+        }
+    }
+
+    private boolean hasPending(Integer accountId) {
+        AccountRisk risk = accounts.get(accountId);
+        return risk != null && risk.hasPending();
+    }
+
+    private void markDirty(Integer accountId) {
+        dirty.get(stripeIndex(accountId)).add(accountId);
+    }
+
+    private int stripeIndex(Integer accountId) {
+        return Math.floorMod(accountId, stripes.length);
+    }
+
+    private ReentrantLock stripeOf(Integer accountId) {
+        return stripes[stripeIndex(accountId)];
+    }
+
+    private static void onRollback(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    undo.run();
+                }
+            }
+        });
+    }
+
+    private static void onCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
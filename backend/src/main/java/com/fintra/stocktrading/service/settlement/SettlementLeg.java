@@ -0,0 +1,51 @@
+package com.fintra.stocktrading.service.settlement;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Flat projection of one unsettled match together with its buy and sell trades,
+ * loaded in a single query instead of walking {@code EquityOrderMatch} associations.
+ */
+@Getter
+@AllArgsConstructor
+public class SettlementLeg {
+
+    private final Integer matchId;
+    private final Integer equityId;
+
+    private final Integer buyOrderId;
+    private final Integer buyerAccountId;
+    private final Integer buyTradeId;
+    private final Integer buyQuantity;
+    private final BigDecimal buyPrice;
+    private final BigDecimal buyCommission;
+
+    private final Integer sellOrderId;
+    private final Integer sellerAccountId;
+    private final Integer sellTradeId;
+    private final Integer sellQuantity;
+    private final BigDecimal sellPrice;
+    private final BigDecimal sellCommission;
+
+    public boolean isConsistent() {
+        return buyQuantity != null && buyQuantity > 0
+                && buyPrice != null && buyPrice.signum() > 0
+                && buyQuantity.equals(sellQuantity)
+                && sellPrice != null && buyPrice.compareTo(sellPrice) == 0;
+    }
+
+    public BigDecimal amount() {
+        return buyPrice.multiply(BigDecimal.valueOf(buyQuantity));
+    }
+
+    public BigDecimal buyCommissionOrZero() {
+        return buyCommission != null ? buyCommission : BigDecimal.ZERO;
+    }
+
+    public BigDecimal sellCommissionOrZero() {
+        return sellCommission != null ? sellCommission : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,119 @@
+package com.fintra.stocktrading.service.settlement;
+
+import com.fintra.stocktrading.model.enums.OrderSide;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory netting of a settlement day. Every leg is folded into one cash delta per
+ * account and one position delta per (account, equity), so applying the day costs one
+ * update per touched row instead of several lookups and writes per match. The deltas
+ * reproduce exactly what settling the matches one by one would have done.
+ */
+@Getter
+public class SettlementNetting {
+
+    @Getter
+    public static class CashDelta {
+        private BigDecimal freeDelta = BigDecimal.ZERO;
+        private BigDecimal blockedDelta = BigDecimal.ZERO;
+
+        void addFree(BigDecimal amount) {
+            freeDelta = freeDelta.add(amount);
+        }
+
+        void addBlocked(BigDecimal amount) {
+            blockedDelta = blockedDelta.add(amount);
+        }
+    }
+
+    @Getter
+    public static class PositionDelta {
+        private int boughtQuantity;
+        private BigDecimal boughtValue = BigDecimal.ZERO;
+        private int soldQuantity;
+    }
+
+    // TreeMaps keep account order stable, so chunk numbering is identical on every restart.
+    private final Map<Integer, CashDelta> cash = new TreeMap<>();
+    private final Map<Integer, Map<Integer, PositionDelta>> positions = new TreeMap<>();
+    private int legCount;
+
+    public static SettlementNetting of(List<SettlementLeg> legs) {
+        SettlementNetting netting = new SettlementNetting();
+        legs.forEach(netting::add);
+        return netting;
+    }
+
+    public void add(SettlementLeg leg) {
+        BigDecimal amount = leg.amount();
+        addBuy(leg.getBuyerAccountId(), leg.getEquityId(), leg.getBuyQuantity(), amount, leg.buyCommissionOrZero());
+        addSell(leg.getSellerAccountId(), leg.getEquityId(), leg.getSellQuantity(), amount, leg.sellCommissionOrZero());
+        legCount++;
+    }
+
+    /**
+     * Folds in a pre-aggregated side total. Every BUY trade is one leg, so only buy totals
+     * count towards {@link #legCount}.
+     */
+    public void add(SettlementPositionTotal total) {
+        int quantity = Math.toIntExact(total.getQuantity());
+        BigDecimal commission = total.getCommission() != null ? total.getCommission() : BigDecimal.ZERO;
+        if (total.getSide() == OrderSide.BUY) {
+            addBuy(total.getAccountId(), total.getEquityId(), quantity, total.getAmount(), commission);
+            legCount += Math.toIntExact(total.getTradeCount());
+        } else {
+            addSell(total.getAccountId(), total.getEquityId(), quantity, total.getAmount(), commission);
+        }
+    }
+
+    private void addBuy(Integer accountId, Integer equityId, int quantity, BigDecimal amount, BigDecimal commission) {
+        CashDelta buyer = cashOf(accountId);
+        buyer.addFree(amount.negate());
+        buyer.addBlocked(amount.add(commission).negate());
+
+        PositionDelta bought = positionOf(accountId, equityId);
+        bought.boughtQuantity += quantity;
+        bought.boughtValue = bought.boughtValue.add(amount).add(commission);
+    }
+
+    private void addSell(Integer accountId, Integer equityId, int quantity, BigDecimal amount, BigDecimal commission) {
+        CashDelta seller = cashOf(accountId);
+        seller.addFree(amount);
+        seller.addFree(amount.subtract(commission));
+
+        PositionDelta sold = positionOf(accountId, equityId);
+        sold.soldQuantity += quantity;
+    }
+
+    /**
+     * Splits the touched accounts into fixed-size chunks. Chunks never share an account,
+     * so they can be applied concurrently.
+     */
+    public List<List<Integer>> accountChunks(int chunkSize) {
+        List<Integer> accounts = new ArrayList<>(cash.keySet());
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int i = 0; i < accounts.size(); i += chunkSize) {
+            chunks.add(accounts.subList(i, Math.min(i + chunkSize, accounts.size())));
+        }
+        return chunks;
+    }
+
+    public Map<Integer, PositionDelta> positionsOf(Integer accountId) {
+        return positions.getOrDefault(accountId, Map.of());
+    }
+
+    private CashDelta cashOf(Integer accountId) {
+        return cash.computeIfAbsent(accountId, id -> new CashDelta());
+    }
+
+    private PositionDelta positionOf(Integer accountId, Integer equityId) {
+        return positions.computeIfAbsent(accountId, id -> new TreeMap<>())
+                .computeIfAbsent(equityId, id -> new PositionDelta());
+    }
+}
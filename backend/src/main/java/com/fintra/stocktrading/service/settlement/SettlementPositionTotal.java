@@ -0,0 +1,24 @@
+package com.fintra.stocktrading.service.settlement;
+
+import com.fintra.stocktrading.model.enums.OrderSide;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of the grouped settlement preview query: the unsettled trades of a day summed
+ * per (account, equity, side).
+ */
+@Getter
+@AllArgsConstructor
+public class SettlementPositionTotal {
+
+    private final Integer accountId;
+    private final Integer equityId;
+    private final OrderSide side;
+    private final Long tradeCount;
+    private final Long quantity;
+    private final BigDecimal amount;
+    private final BigDecimal commission;
+}
@@ -0,0 +1,138 @@
+package com.fintra.stocktrading.event.codec;
+
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TradeMatchedEventCodecTest {
+
+    private final BinaryTradeMatchedEventCodec binary = new BinaryTradeMatchedEventCodec();
+    private final JsonTradeMatchedEventCodec json = new JsonTradeMatchedEventCodec();
+    private final TradeMatchedEventDeserializer deserializer =
+            new TradeMatchedEventDeserializer(List.of(binary, json));
+
+    @Test
+    void binaryRoundTripKeepsEveryField() {
+        TradeMatchedEvent event = fullEvent();
+
+        byte[] payload = binary.encode(event);
+
+        assertThat(payload).hasSize(BinaryTradeMatchedEventCodec.V1_LENGTH);
+        assertThat(payload[0]).isEqualTo(BinaryTradeMatchedEventCodec.MAGIC);
+        assertThat(binary.decode(payload)).isEqualTo(event);
+    }
+
+    @Test
+    void binaryRoundTripKeepsNullFieldsNull() {
+        TradeMatchedEvent event = new TradeMatchedEvent();
+        event.setBuyOrderId(0);
+        event.setQuantity(3);
+
+        TradeMatchedEvent decoded = binary.decode(binary.encode(event));
+
+        assertThat(decoded).isEqualTo(event);
+        assertThat(decoded.getBuyOrderId()).isZero();
+        assertThat(decoded.getMatchId()).isNull();
+        assertThat(decoded.getSellOrderId()).isNull();
+        assertThat(decoded.getEquityId()).isNull();
+        assertThat(decoded.getPrice()).isNull();
+        assertThat(decoded.getTimestamp()).isNull();
+    }
+
+    @Test
+    void binaryPricesAreCarriedAtScaleFour() {
+        TradeMatchedEvent event = fullEvent();
+
+        event.setPrice(new BigDecimal("10.1235"));
+        assertThat(binary.decode(binary.encode(event)).getPrice()).isEqualTo(new BigDecimal("10.1235"));
+
+        event.setPrice(new BigDecimal("10.5"));
+        assertThat(binary.decode(binary.encode(event)).getPrice()).isEqualTo(new BigDecimal("10.5000"));
+
+        event.setPrice(new BigDecimal("10.12345"));
+        assertThat(binary.decode(binary.encode(event)).getPrice()).isEqualTo(new BigDecimal("10.1235"));
+    }
+
+    @Test
+    void binaryRejectsUnknownVersionAndShortPayload() {
+        byte[] payload = binary.encode(fullEvent());
+
+        byte[] nextVersion = payload.clone();
+        nextVersion[1] = BinaryTradeMatchedEventCodec.VERSION_1 + 1;
+        assertThatThrownBy(() -> binary.decode(nextVersion))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("version=2");
+
+        byte[] truncated = new byte[BinaryTradeMatchedEventCodec.V1_LENGTH - 1];
+        System.arraycopy(payload, 0, truncated, 0, truncated.length);
+        assertThatThrownBy(() -> binary.decode(truncated))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("length=" + truncated.length);
+    }
+
+    @Test
+    void binaryRejectsWrongMagic() {
+        byte[] payload = binary.encode(fullEvent());
+        payload[0] = (byte) 0xB8;
+
+        assertThatThrownBy(() -> binary.decode(payload)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void jsonRoundTripKeepsEveryField() {
+        TradeMatchedEvent event = fullEvent();
+
+        byte[] payload = json.encode(event);
+
+        assertThat(payload[0]).isEqualTo((byte) '{');
+        assertThat(json.decode(payload)).isEqualTo(event);
+    }
+
+    @Test
+    void deserializerPicksCodecByFirstByte() {
+        TradeMatchedEvent event = fullEvent();
+
+        assertThat(deserializer.deserialize("t", binary.encode(event))).isEqualTo(event);
+        assertThat(deserializer.deserialize("t", json.encode(event))).isEqualTo(event);
+
+        // Events written before the binary codec existed.
+        String legacy = "{\"matchId\":42,\"buyOrderId\":100,\"sellOrderId\":200,\"equityId\":7,"
+                + "\"quantity\":5,\"price\":10.1235,\"timestamp\":\"2025-08-08T10:30:15\"}";
+        TradeMatchedEvent decoded = deserializer.deserialize("t", legacy.getBytes(StandardCharsets.UTF_8));
+        assertThat(decoded.getMatchId()).isEqualTo(42);
+        assertThat(decoded.getPrice()).isEqualTo(new BigDecimal("10.1235"));
+        assertThat(decoded.getTimestamp()).isEqualTo(LocalDateTime.of(2025, 8, 8, 10, 30, 15));
+    }
+
+    @Test
+    void deserializerRejectsUnknownFirstByteAndSkipsEmptyPayloads() {
+        assertThatThrownBy(() -> deserializer.deserialize("t", new byte[]{'[', ']'}))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("0x5b");
+
+        assertThat(deserializer.deserialize("t", null)).isNull();
+        assertThat(deserializer.deserialize("t", new byte[0])).isNull();
+    }
+
+    private static TradeMatchedEvent fullEvent() {
+        TradeMatchedEvent event = new TradeMatchedEvent();
+        event.setMatchId(-2_147_483_000);
+        event.setBuyTradeId(11);
+        event.setSellTradeId(12);
+        event.setBuyOrderId(100);
+        event.setSellOrderId(200);
+        event.setEquityId(7);
+        event.setQuantity(5);
+        event.setPrice(new BigDecimal("1234.5678"));
+        event.setTimestamp(LocalDateTime.of(2025, 8, 8, 10, 30, 15));
+        return event;
+    }
+}
@@ -0,0 +1,112 @@
+package com.fintra.stocktrading.service.external;
+
+import com.fintra.stocktrading.model.dto.response.EquityPriceResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EquityPrefixIndexTest {
+
+    private static final List<EquityPriceResponse> LISTING = List.of(
+            equity("THYAO", "Türk Hava Yolları"),
+            equity("AKSEN", "Aksa Enerji"),
+            equity("ZOREN", "Akfen Enerji"),
+            equity("GARAN", "Garanti Bankası"),
+            equity("AKBNK", "Akbank"),
+            equity("ENJSA", "Akenerji"),
+            equity("ARCLK", "Arçelik"),
+            equity("AKSA", "Aksa Akrilik"));
+
+    private final EquityPrefixIndex index = EquityPrefixIndex.of(LISTING);
+
+    @Test
+    void blankFilterPagesThroughAllEquitiesByCode() {
+        List<String> all = List.of("AKBNK", "AKSA", "AKSEN", "ARCLK", "ENJSA", "GARAN", "THYAO", "ZOREN");
+
+        assertThat(codes(index.page(null, 0, 100))).isEqualTo(all);
+        assertThat(codes(index.page("", 0, 100))).isEqualTo(all);
+        assertThat(codes(index.page("   ", 1, 3))).containsExactly("ARCLK", "ENJSA", "GARAN");
+        assertThat(codes(index.page(" ", 2, 3))).containsExactly("THYAO", "ZOREN");
+    }
+
+    @Test
+    void codeMatchesComeBeforeNameOnlyMatches() {
+        assertThat(codes(index.page("ak", 0, 100)))
+                .containsExactly("AKBNK", "AKSA", "AKSEN", "ENJSA", "ZOREN");
+    }
+
+    @Test
+    void pageStraddlingCodeAndNameMatches() {
+        assertThat(codes(index.page("ak", 0, 2))).containsExactly("AKBNK", "AKSA");
+        assertThat(codes(index.page("ak", 1, 2))).containsExactly("AKSEN", "ENJSA");
+        assertThat(codes(index.page("ak", 2, 2))).containsExactly("ZOREN");
+
+        assertThat(codes(index.page("ak", 1, 3))).containsExactly("ENJSA", "ZOREN");
+        assertThat(codes(index.page("ak", 0, 4))).containsExactly("AKBNK", "AKSA", "AKSEN", "ENJSA");
+    }
+
+    @Test
+    void prefixIgnoresCaseAndSurroundingSpaces() {
+        List<String> expected = codes(index.page("ak", 0, 100));
+
+        assertThat(codes(index.page("AK", 0, 100))).isEqualTo(expected);
+        assertThat(codes(index.page(" aK ", 0, 100))).isEqualTo(expected);
+        assertThat(codes(index.page("GARANTI", 0, 10))).containsExactly("GARAN");
+        assertThat(codes(index.page("akSA e", 0, 10))).containsExactly("AKSEN");
+    }
+
+    @Test
+    void offsetPastTheEndIsEmpty() {
+        assertThat(index.page(null, 3, 3)).isEmpty();
+        assertThat(index.page("ak", 3, 2)).isEmpty();
+        assertThat(index.page("ak", 1, 5)).isEmpty();
+        assertThat(index.page("ak", Integer.MAX_VALUE, Integer.MAX_VALUE)).isEmpty();
+        assertThat(index.page("x", 0, 10)).isEmpty();
+        assertThat(EquityPrefixIndex.empty().page("ak", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void everyPageMatchesAFullScan() {
+        for (String filter : List.of("", "a", "ak", "aks", "aksa", "e", "g", "t", "z", "q")) {
+            List<String> expected = scan(filter);
+            for (int size = 1; size <= LISTING.size() + 1; size++) {
+                List<String> paged = new ArrayList<>();
+                for (int page = 0; page * size < expected.size() + size; page++) {
+                    paged.addAll(codes(index.page(filter, page, size)));
+                }
+                assertThat(paged).as("filter '%s', size %d", filter, size).isEqualTo(expected);
+            }
+        }
+    }
+
+    // Code matches in code order, then name-only matches in name order.
+    private static List<String> scan(String filter) {
+        String prefix = filter.toLowerCase(Locale.ROOT);
+        List<String> result = new ArrayList<>();
+        LISTING.stream()
+                .filter(e -> e.getAssetCode().toLowerCase(Locale.ROOT).startsWith(prefix))
+                .map(EquityPriceResponse::getAssetCode)
+                .sorted(Comparator.comparing(c -> c.toLowerCase(Locale.ROOT)))
+                .forEach(result::add);
+        LISTING.stream()
+                .filter(e -> !e.getAssetCode().toLowerCase(Locale.ROOT).startsWith(prefix))
+                .filter(e -> e.getEquityName().toLowerCase(Locale.ROOT).startsWith(prefix))
+                .sorted(Comparator.comparing(e -> e.getEquityName().toLowerCase(Locale.ROOT)))
+                .map(EquityPriceResponse::getAssetCode)
+                .forEach(result::add);
+        return result;
+    }
+
+    private static List<String> codes(List<EquityPriceResponse> page) {
+        return page.stream().map(EquityPriceResponse::getAssetCode).toList();
+    }
+
+    private static EquityPriceResponse equity(String assetCode, String equityName) {
+        return EquityPriceResponse.builder().assetCode(assetCode).equityName(equityName).build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.fintra.stocktrading.service.external;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonArrayStreamReaderTest {
+
+    private static final List<String> PATH = List.of("result", "data", "HisseFiyat");
+
+    // Same-named arrays elsewhere, nested containers and brackets inside strings around the target.
+    private static final String PAYLOAD = """
+            {"HisseFiyat": [{"wrong": "root"}],
+             "result": {
+               "meta": {"data": {"HisseFiyat": [{"wrong": "deeper"}]}},
+               "data": {
+                 "count": 3,
+                 "HisseFiyat": [
+                   {"kod": "AKBNK", "kapanis": 42.1235, "etiket": "}]{[",
+                    "detay": {"seans": [1, {"acilis": 41.5}], "bos": {}}},
+                   {"kod": "ŞİŞE", "HisseFiyat": [{"wrong": "inside element"}], "liste": [[], [[]]]},
+                   "not an object",
+                   {"kod": "THYAO", "kapanis": null, "aktif": true}
+                 ],
+                 "other": [{"wrong": "sibling"}]
+               },
+               "HisseFiyat": [{"wrong": "sibling of data"}]
+             }}
+            """;
+
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .build();
+
+    @Test
+    void readsTargetElementsWhereverThePayloadIsSplit() throws Exception {
+        byte[] bytes = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+        List<JsonNode> expected = objectElements(mapper.readTree(bytes).at("/result/data/HisseFiyat"));
+        assertThat(expected).hasSize(3);
+
+        for (int split = 0; split <= bytes.length; split++) {
+            assertThat(read(bytes, split)).as("split at %d", split).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void readsTargetElementsFedOneByteAtATime() throws Exception {
+        byte[] bytes = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+        List<JsonNode> expected = objectElements(mapper.readTree(bytes).at("/result/data/HisseFiyat"));
+
+        JsonArrayStreamReader<JsonNode> reader = new JsonArrayStreamReader<>(mapper, PATH, JsonNode.class);
+        List<JsonNode> read = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i++) {
+            read.addAll(reader.feed(wrap(bytes, i, i + 1)));
+        }
+        read.addAll(reader.complete());
+
+        assertThat(read).isEqualTo(expected);
+    }
+
+    @Test
+    void emptyTargetArrayYieldsNothing() {
+        byte[] bytes = """
+                {"result": {"data": {"HisseFiyat": [], "other": [{"wrong": "sibling"}]}}}
+                """.getBytes(StandardCharsets.UTF_8);
+
+        for (int split = 0; split <= bytes.length; split++) {
+            assertThat(read(bytes, split)).as("split at %d", split).isEmpty();
+        }
+    }
+
+    @Test
+    void missingTargetArrayYieldsNothing() {
+        byte[] bytes = """
+                {"result": {"data": {"HisseFiyatlar": [{"wrong": "other name"}]}}}
+                """.getBytes(StandardCharsets.UTF_8);
+
+        assertThat(read(bytes, bytes.length / 2)).isEmpty();
+    }
+
+    private List<JsonNode> read(byte[] bytes, int split) {
+        JsonArrayStreamReader<JsonNode> reader = new JsonArrayStreamReader<>(mapper, PATH, JsonNode.class);
+        List<JsonNode> read = new ArrayList<>(reader.feed(wrap(bytes, 0, split)));
+        read.addAll(reader.feed(wrap(bytes, split, bytes.length)));
+        read.addAll(reader.complete());
+        return read;
+    }
+
+    private static DataBuffer wrap(byte[] bytes, int from, int to) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, from, to));
+    }
+
+    // The reader only yields object elements; scalars in the target array are skipped.
+    private static List<JsonNode> objectElements(JsonNode array) {
+        List<JsonNode> elements = new ArrayList<>();
+        array.forEach(node -> {
+            if (node.isObject()) elements.add(node);
+        });
+        return elements;
+    }
+}
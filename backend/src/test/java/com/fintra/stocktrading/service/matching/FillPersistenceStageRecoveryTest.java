@@ -0,0 +1,225 @@
+package com.fintra.stocktrading.service.matching;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fintra.stocktrading.event.TradeMatchedEvent;
+import com.fintra.stocktrading.model.enums.OrderSide;
+import com.fintra.stocktrading.model.enums.OrderStatus;
+import com.fintra.stocktrading.model.enums.OrderType;
+import com.fintra.stocktrading.service.MarketSnapshotService;
+import com.fintra.stocktrading.service.event.TradeEventOutboxRelay;
+import com.fintra.stocktrading.service.marketdata.MarketDataGateway;
+import com.fintra.stocktrading.service.orderentry.ExecutionReportGateway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class FillPersistenceStageRecoveryTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private String journalPath;
+    private FillJournal openJournal;
+    private final TradeEventOutboxRelay outboxRelay = mock(TradeEventOutboxRelay.class);
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE trades (trade_id INT AUTO_INCREMENT PRIMARY KEY, match_id INT, " +
+                "order_id INT, trade_quantity INT, price DECIMAL(18, 4), commission DECIMAL(18, 4), " +
+                "trade_status VARCHAR(32), transaction_time TIMESTAMP, created_at TIMESTAMP, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE equity_order_matches (match_id INT PRIMARY KEY, buy_order_id INT, " +
+                "sell_order_id INT, match_time TIMESTAMP, created_at TIMESTAMP, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE equity_order_logs (log_id INT AUTO_INCREMENT PRIMARY KEY, order_id INT, " +
+                "order_status VARCHAR(32), transaction_time TIMESTAMP, created_at TIMESTAMP, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE equity_order_histories (history_id INT AUTO_INCREMENT PRIMARY KEY, " +
+                "order_id INT, old_order_quantity INT, order_status VARCHAR(32), order_side VARCHAR(8), " +
+                "order_type VARCHAR(8), old_price DECIMAL(18, 4), transaction_time TIMESTAMP, " +
+                "created_at TIMESTAMP, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE fill_flush_batches (batch_id VARCHAR(36) PRIMARY KEY, flushed_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE fill_commits (commit_id VARCHAR(36) PRIMARY KEY, committed_at TIMESTAMP)");
+        journalPath = dir.resolve("fills.journal").toString();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (openJournal != null) openJournal.close();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void committedBatchWithoutFlushedMarkerIsNotReplayed() throws Exception {
+        // Crash between the batch commit and the flushed marker.
+        FillJournal crashing = new FillJournal(objectMapper, journalPath) {
+            @Override
+            public synchronized void markFlushed(List<FillJournalEntry> entries) {
+            }
+        };
+        crashing.open();
+        FillPersistenceStage beforeCrash = stage(crashing);
+        entries().forEach(beforeCrash::record);
+        beforeCrash.flush();
+        crashing.close();
+        assertRowCounts(2, 1, 2, 1);
+
+        FillJournal reopened = restartJournal();
+        stage(reopened).recover();
+
+        assertRowCounts(2, 1, 2, 1);
+        assertThat(reopened.recover().entries()).isEmpty();
+    }
+
+    @Test
+    void matchRolledBackByCrashIsNotReplayed() throws Exception {
+        // Crash after the journal append but before the database commit: no marker is written.
+        FillJournal crashing = new FillJournal(objectMapper, journalPath) {
+            @Override
+            public synchronized void markAborted(List<FillJournalEntry> entries) {
+            }
+        };
+        crashing.open();
+        FillPersistenceStage beforeCrash = stage(crashing);
+        assertThatThrownBy(() -> new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+                .executeWithoutResult(status -> {
+                    entries().forEach(beforeCrash::record);
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override public void beforeCommit(boolean readOnly) {
+                            throw new IllegalStateException("crash");
+                        }
+                    });
+                }))
+                .hasMessage("crash");
+        crashing.close();
+        assertThat(count("fill_commits")).isZero();
+
+        FillJournal reopened = restartJournal();
+        stage(reopened).recover();
+
+        assertRowCounts(0, 0, 0, 0);
+        assertThat(reopened.recover().entries()).isEmpty();
+    }
+
+    @Test
+    void committedMatchWithoutCommitMarkerIsReplayed() throws Exception {
+        // Crash after the database commit but before the commit marker reached the journal.
+        FillJournal crashing = new FillJournal(objectMapper, journalPath) {
+            @Override
+            public synchronized void markCommitted(List<FillJournalEntry> entries) {
+            }
+        };
+        crashing.open();
+        FillPersistenceStage beforeCrash = stage(crashing);
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+                .executeWithoutResult(status -> entries().forEach(beforeCrash::record));
+        crashing.close();
+        assertThat(count("fill_commits")).isEqualTo(1);
+        assertRowCounts(0, 0, 0, 0);
+
+        stage(restartJournal()).recover();
+
+        assertRowCounts(2, 1, 2, 1);
+    }
+
+    @Test
+    void uncommittedEntriesAreReplayedOnce() throws Exception {
+        FillJournal beforeCrash = new FillJournal(objectMapper, journalPath);
+        beforeCrash.open();
+        entries().forEach(stage(beforeCrash)::record);
+        beforeCrash.close();
+        assertRowCounts(0, 0, 0, 0);
+
+        stage(restartJournal()).recover();
+        assertRowCounts(2, 1, 2, 1);
+
+        stage(restartJournal()).recover();
+        assertRowCounts(2, 1, 2, 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void eventsCarryTheTradeIdsOfTheirOwnRows() throws Exception {
+        // A trade inserted by someone else between the batches must not shift the ids.
+        FillJournal journal = restartJournal();
+        FillPersistenceStage stage = stage(journal);
+        jdbcTemplate.update("INSERT INTO trades (match_id, order_id, trade_quantity) VALUES (99, 999, 1)");
+        entries().forEach(stage::record);
+        stage.flush();
+
+        ArgumentCaptor<List<TradeMatchedEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(outboxRelay).append(events.capture());
+        TradeMatchedEvent event = events.getValue().get(0);
+        assertThat(event.getBuyTradeId()).isEqualTo(tradeId(10, 100));
+        assertThat(event.getSellTradeId()).isEqualTo(tradeId(10, 200));
+        assertThat(event.getBuyTradeId()).isNotEqualTo(event.getSellTradeId());
+    }
+
+    private Integer tradeId(int matchId, int orderId) {
+        return jdbcTemplate.queryForObject("SELECT trade_id FROM trades WHERE match_id = ? AND order_id = ?",
+                Integer.class, matchId, orderId);
+    }
+
+    private FillJournal restartJournal() throws Exception {
+        if (openJournal != null) openJournal.close();
+        openJournal = new FillJournal(objectMapper, journalPath);
+        openJournal.open();
+        return openJournal;
+    }
+
+    private FillPersistenceStage stage(FillJournal journal) {
+        return new FillPersistenceStage(journal, jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                outboxRelay, mock(MarketDataGateway.class),
+                mock(MarketSnapshotService.class), mock(ExecutionReportGateway.class), 200, 24);
+    }
+
+    private static List<FillJournalEntry> entries() {
+        LocalDateTime time = LocalDateTime.of(2025, 8, 8, 10, 30);
+        BigDecimal price = new BigDecimal("10.5000");
+        return List.of(
+                FillJournalEntry.builder().kind(FillJournalEntry.Kind.FILL).equityId(1).matchId(10)
+                        .buyOrderId(100).sellOrderId(200).buyAccountId(7).sellAccountId(8)
+                        .quantity(5).price(price).time(time).build(),
+                FillJournalEntry.builder().kind(FillJournalEntry.Kind.STATUS_LOG).orderId(100)
+                        .orderStatus(OrderStatus.FILLED).time(time).build(),
+                FillJournalEntry.builder().kind(FillJournalEntry.Kind.STATUS_LOG).orderId(200)
+                        .orderStatus(OrderStatus.FILLED).time(time).build(),
+                FillJournalEntry.builder().kind(FillJournalEntry.Kind.HISTORY).orderId(100).quantity(5)
+                        .orderStatus(OrderStatus.FILLED).orderSide(OrderSide.BUY).orderType(OrderType.LIMIT)
+                        .price(price).time(time).build());
+    }
+
+    private void assertRowCounts(int trades, int matches, int logs, int histories) {
+        assertThat(count("trades")).as("trades").isEqualTo(trades);
+        assertThat(count("equity_order_matches")).as("matches").isEqualTo(matches);
+        assertThat(count("equity_order_logs")).as("logs").isEqualTo(logs);
+        assertThat(count("equity_order_histories")).as("histories").isEqualTo(histories);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,68 @@
+package com.fintra.stocktrading.service.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceTicksTest {
+
+    @Test
+    void convertsAtScaleFour() {
+        assertThat(PriceTicks.toTicks(new BigDecimal("12.3456"))).isEqualTo(123_456L);
+        assertThat(PriceTicks.toTicks(new BigDecimal("12.3"))).isEqualTo(123_000L);
+        assertThat(PriceTicks.toTicks(new BigDecimal("12"))).isEqualTo(120_000L);
+        assertThat(PriceTicks.toTicks(new BigDecimal("1.2E+3"))).isEqualTo(12_000_000L);
+        assertThat(PriceTicks.toTicks(BigDecimal.ZERO)).isZero();
+
+        assertThat(PriceTicks.toPrice(123_456L)).isEqualTo(new BigDecimal("12.3456"));
+        assertThat(PriceTicks.toPrice(1L)).isEqualTo(new BigDecimal("0.0001"));
+        assertThat(PriceTicks.toPrice(-5L)).isEqualTo(new BigDecimal("-0.0005"));
+    }
+
+    @Test
+    void roundsExtraDigitsHalfUp() {
+        assertThat(PriceTicks.toTicks(new BigDecimal("10.12345"))).isEqualTo(101_235L);
+        assertThat(PriceTicks.toTicks(new BigDecimal("10.123449999"))).isEqualTo(101_234L);
+        assertThat(PriceTicks.toTicks(new BigDecimal("0.00005"))).isEqualTo(1L);
+        assertThat(PriceTicks.toTicks(new BigDecimal("0.000049"))).isZero();
+        assertThat(PriceTicks.toTicks(new BigDecimal("-10.12345"))).isEqualTo(-101_235L);
+    }
+
+    @Test
+    void roundTripsEveryScaleFourPrice() {
+        for (String price : new String[]{"0.0001", "0.9999", "1.0000", "42.1235", "99999999999999.9999"}) {
+            BigDecimal value = new BigDecimal(price);
+            assertThat(PriceTicks.toPrice(PriceTicks.toTicks(value))).isEqualTo(value);
+        }
+        assertThat(PriceTicks.toTicks(PriceTicks.toPrice(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+        assertThat(PriceTicks.toTicks(PriceTicks.toPrice(Long.MIN_VALUE))).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    void rejectsPricesBeyondLongRange() {
+        BigDecimal largest = PriceTicks.toPrice(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> PriceTicks.toTicks(largest.add(new BigDecimal("0.0001"))))
+                .isInstanceOf(ArithmeticException.class);
+        // Rounding up alone pushes it past Long.MAX_VALUE.
+        assertThatThrownBy(() -> PriceTicks.toTicks(largest.add(new BigDecimal("0.00005"))))
+                .isInstanceOf(ArithmeticException.class);
+        assertThat(PriceTicks.toTicks(largest.add(new BigDecimal("0.000049")))).isEqualTo(Long.MAX_VALUE);
+        assertThatThrownBy(() -> PriceTicks.toTicks(PriceTicks.toPrice(Long.MIN_VALUE).subtract(new BigDecimal("0.0001"))))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void crossesAtEqualPricesAndForMarketLimits() {
+        assertThat(PriceTicks.crosses(true, 100, 100)).isTrue();
+        assertThat(PriceTicks.crosses(true, 99, 100)).isFalse();
+        assertThat(PriceTicks.crosses(false, 100, 100)).isTrue();
+        assertThat(PriceTicks.crosses(false, 101, 100)).isFalse();
+
+        assertThat(PriceTicks.crosses(true, PriceTicks.MARKET_BUY, Long.MAX_VALUE - 1)).isTrue();
+        assertThat(PriceTicks.crosses(false, PriceTicks.MARKET_SELL, 1)).isTrue();
+    }
+}
@@ -0,0 +1,101 @@
+package com.fintra.stocktrading.service.matching;
+
+import com.fintra.stocktrading.model.entity.Equity;
+import com.fintra.stocktrading.model.entity.EquityPriceHistory;
+import com.fintra.stocktrading.repository.EquityPriceHistoryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TradingRulesCacheTest {
+
+    @Test
+    void bandMatchesExactTenPercentComparison() {
+        // References that are not multiples of ten ticks, where a rounded 0.90/1.10 product drifts.
+        long[] references = {1, 7, 9, 11, 99, 101, 123_457, 101_235, 999_999, 421_235};
+        TradingRulesCache cache = cache("0.0001", references);
+
+        for (int id = 0; id < references.length; id++) {
+            long ref = references[id];
+            TradingRulesCache.TradingRules rules = cache.rulesFor(id);
+            assertThat(rules.referenceTicks()).isEqualTo(ref);
+
+            long lower = ref * 9 / 10;
+            long upper = ref * 11 / 10;
+            for (long price = Math.max(0, lower - 3); price <= upper + 3; price++) {
+                boolean expected = price * 10 >= ref * 9 && price * 10 <= ref * 11;
+                assertThat(rules.withinBand(price)).as("ref %d, price %d", ref, price).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void bandEdgesAreInclusive() {
+        TradingRulesCache cache = cache("0.01", 100_000);
+        TradingRulesCache.TradingRules rules = cache.rulesFor(0);
+
+        assertThat(rules.lowerTicks()).isEqualTo(90_000);
+        assertThat(rules.upperTicks()).isEqualTo(110_000);
+        assertThat(rules.withinBand(90_000)).isTrue();
+        assertThat(rules.withinBand(89_999)).isFalse();
+        assertThat(rules.withinBand(110_000)).isTrue();
+        assertThat(rules.withinBand(110_001)).isFalse();
+    }
+
+    @Test
+    void tickStepIsCheckedInTicks() {
+        TradingRulesCache.TradingRules rules = cache("0.01", 100_000).rulesFor(0);
+
+        assertThat(rules.tickTicks()).isEqualTo(100);
+        assertThat(rules.onTick(PriceTicks.toTicks(new BigDecimal("10.05")))).isTrue();
+        assertThat(rules.onTick(PriceTicks.toTicks(new BigDecimal("10.055")))).isFalse();
+        assertThat(rules.onTick(PriceTicks.toTicks(new BigDecimal("10.0001")))).isFalse();
+        assertThat(rules.onTick(0)).isTrue();
+
+        TradingRulesCache.TradingRules free = cache("0", 100_000).rulesFor(0);
+        assertThat(free.onTick(100_001)).isTrue();
+    }
+
+    @Test
+    void equitiesWithoutPositiveCloseHaveNoRules() {
+        EquityPriceHistoryRepository repository = mock(EquityPriceHistoryRepository.class);
+        when(repository.findLatestPricesForAllEquities()).thenReturn(List.of(
+                close(1, null), close(2, BigDecimal.ZERO), close(3, new BigDecimal("-1")),
+                close(4, new BigDecimal("5.00"))));
+        TradingRulesCache cache = new TradingRulesCache(repository, 10, new BigDecimal("0.01"));
+        cache.refresh();
+
+        assertThat(cache.rulesFor(1)).isNull();
+        assertThat(cache.rulesFor(2)).isNull();
+        assertThat(cache.rulesFor(3)).isNull();
+        assertThat(cache.rulesFor(4)).isNotNull();
+        assertThat(cache.rulesFor(5)).isNull();
+    }
+
+    // Equity ids are the indexes of the reference prices, given in ticks.
+    private static TradingRulesCache cache(String tickStep, long... referenceTicks) {
+        EquityPriceHistoryRepository repository = mock(EquityPriceHistoryRepository.class);
+        List<EquityPriceHistory> closes = new ArrayList<>();
+        for (int id = 0; id < referenceTicks.length; id++) {
+            closes.add(close(id, PriceTicks.toPrice(referenceTicks[id])));
+        }
+        when(repository.findLatestPricesForAllEquities()).thenReturn(closes);
+
+        TradingRulesCache cache = new TradingRulesCache(repository, 10, new BigDecimal(tickStep));
+        cache.refresh();
+        return cache;
+    }
+
+    private static EquityPriceHistory close(int equityId, BigDecimal closePrice) {
+        return EquityPriceHistory.builder()
+                .equity(Equity.builder().equityId(equityId).build())
+                .closePrice(closePrice)
+                .build();
+    }
+}